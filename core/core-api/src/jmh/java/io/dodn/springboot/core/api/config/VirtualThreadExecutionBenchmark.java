@@ -0,0 +1,119 @@
+package io.dodn.springboot.core.api.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to serve a burst of simulated CMP requests that spend most of their time blocked on a JDBC connection
+ * from a pool of {@code connectionPoolSize}.
+ * <ul>
+ *   <li>{@code platform}: a fixed pool sized like {@code server.tomcat.threads.max}; every thread beyond the
+ *   connection pool parks inside the pool with its full stack.</li>
+ *   <li>{@code virtual}: {@link AsyncConfig#virtualThreadExecutor} with {@link DatabasePermits} sized to the
+ *   connection pool, as {@code VirtualThreadConfig} does; at most that many requests run, the rest park cheaply
+ *   waiting for a permit instead of inside the pool.</li>
+ *   <li>{@code virtual-unbounded}: virtual threads without a limit, every request waiting on the pool.</li>
+ * </ul>
+ * Throughput is bounded by the connection pool in all three; the comparison is whether the virtual variants
+ * match the 600-thread pool without a platform thread per waiting request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VirtualThreadExecutionBenchmark {
+
+    @Param({"platform", "virtual", "virtual-unbounded"})
+    private String executorType;
+
+    @Param({"25"})
+    private int connectionPoolSize;
+
+    @Param({"2000"})
+    private int requests;
+
+    @Param({"2"})
+    private long jdbcMillis;
+
+    private Executor executor;
+    private Semaphore connections;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        connections = new Semaphore(connectionPoolSize, true);
+        executor = switch (executorType) {
+            case "platform" -> {
+                ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+                pool.setCorePoolSize(600);
+                pool.setMaxPoolSize(600);
+                pool.setQueueCapacity(requests);
+                pool.initialize();
+                yield pool;
+            }
+            case "virtual" -> AsyncConfig.virtualThreadExecutor("bench-",
+                    new DatabasePermits(connectionPoolSize).bounded(requests));
+            case "virtual-unbounded" -> AsyncConfig.virtualThreadExecutor("bench-", task -> task);
+            default -> throw new IllegalArgumentException(executorType);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor simple) {
+            simple.close();
+        }
+    }
+
+    @Benchmark
+    public void burst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            executor.execute(() -> {
+                try {
+                    handleRequest();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private void handleRequest() {
+        Blackhole.consumeCPU(1_000);
+        try {
+            connections.acquire();
+            try {
+                Thread.sleep(jdbcMillis);
+            } finally {
+                connections.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Blackhole.consumeCPU(1_000);
+    }
+}
@@ -0,0 +1,210 @@
+package io.dodn.springboot.core.domain.pki.certificate.adapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The {@code issued_certificate} queries behind CRL, OCSP preload, the expiry-candidate projection and CMP
+ * transaction lookups, run on an in-memory H2 table of {@code rows} generated certificates, with and without the
+ * indexes of {@code V6__issued_certificate_access_indexes.sql} as amended by {@code V8}. With the indexes, setup
+ * fails unless each query's plan uses the index written for it, so the indexed numbers are never for a table scan.
+ * <p>
+ * Data: {@value #ISSUERS} issuers, 2% revoked over the last 30 days, 8% marked expired, 0.1% valid but past
+ * notAfter (what findValidExpiredBefore returns), one CMP transaction id per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IssuedCertificateIndexBenchmark {
+
+    private static final int ISSUERS = 20;
+    private static final String[] MIGRATIONS = {"db/migration/V6__issued_certificate_access_indexes.sql",
+            "db/migration/V8__issued_certificate_status_not_after.sql"};
+
+    private static final String CRL_SQL = "select serial_number_hex, revoked_at, revocation_reason "
+            + "from issued_certificate where issuer_id = ? and status = ? and revoked_at >= ?";
+    private static final String OCSP_SQL = "select serial_number_hex, status, revoked_at, revocation_reason, "
+            + "not_after from issued_certificate where issuer_id = ?";
+    private static final String EXPIRY_SQL = "select serial_number_hex, not_after, status "
+            + "from issued_certificate where status = ? and not_after < ? fetch first 500 rows only";
+    private static final String TRANSACTION_SQL = "select serial_number_hex "
+            + "from issued_certificate where cmp_transaction_id_hex = ?";
+
+    private static final String REVOCATION_INDEX = "idx_issued_certificate_issuer_status_revoked";
+    private static final String EXPIRY_INDEX = "idx_issued_certificate_status_not_after";
+    private static final String TRANSACTION_INDEX = "idx_issued_certificate_cmp_transaction_id_hex";
+
+    @Param({"2000000"})
+    private int rows;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private Connection connection;
+    private PreparedStatement crl;
+    private PreparedStatement ocsp;
+    private PreparedStatement expiry;
+    private PreparedStatement transaction;
+    private long nextTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Result reuse would answer repeated executions with unchanged parameters without running the query.
+        connection = DriverManager.getConnection(
+                "jdbc:h2:mem:issued-certificate-" + indexed + ";OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table issued_certificate ("
+                    + "id bigint generated by default as identity primary key, "
+                    + "serial_number_hex varchar(100) not null unique, "
+                    + "subject_dn_cn varchar(500) not null, "
+                    + "issuer_id bigint not null, "
+                    + "key_algorithm_type varchar(20) not null, "
+                    + "not_before timestamp not null, "
+                    + "not_after timestamp not null, "
+                    + "status varchar(20) not null, "
+                    + "revocation_reason varchar(30), "
+                    + "revoked_at timestamp, "
+                    + "cmp_transaction_id_hex varchar(64))");
+            statement.execute("insert into issued_certificate (serial_number_hex, subject_dn_cn, issuer_id, "
+                    + "key_algorithm_type, not_before, not_after, status, revocation_reason, revoked_at, "
+                    + "cmp_transaction_id_hex) select "
+                    + "cast(x as varchar), concat('device-', x), mod(x, " + ISSUERS + ") + 1, 'EC_P256', "
+                    + "dateadd('DAY', -400, localtimestamp), "
+                    + "case when mod(x, 10) = 0 or mod(x, 1000) = 1 "
+                    + "then dateadd('DAY', -1 - mod(x, 300), localtimestamp) "
+                    + "else dateadd('DAY', 1 + mod(x, 365), localtimestamp) end, "
+                    + "case when mod(x, 50) = 0 then 'REVOKED' when mod(x, 10) = 0 then 'EXPIRED' else 'VALID' end, "
+                    + "case when mod(x, 50) = 0 then 'KEY_COMPROMISE' end, "
+                    + "case when mod(x, 50) = 0 then dateadd('SECOND', -mod(x * 7919, 2592000), localtimestamp) end, "
+                    + "concat('tx-', x) from system_range(1, " + rows + ")");
+            if (indexed) {
+                for (String migration : MIGRATIONS) {
+                    for (String ddl : migrationStatements(migration)) {
+                        statement.execute(ddl);
+                    }
+                }
+            }
+            statement.execute("analyze");
+        }
+        crl = connection.prepareStatement(CRL_SQL);
+        ocsp = connection.prepareStatement(OCSP_SQL);
+        expiry = connection.prepareStatement(EXPIRY_SQL);
+        transaction = connection.prepareStatement(TRANSACTION_SQL);
+
+        if (indexed) {
+            assertUsesIndex(REVOCATION_INDEX, CRL_SQL, 1L, "REVOKED",
+                    Timestamp.from(Instant.now().minus(Duration.ofHours(1))));
+            assertUsesIndex(REVOCATION_INDEX, OCSP_SQL, 1L);
+            assertUsesIndex(EXPIRY_INDEX, EXPIRY_SQL, "VALID", Timestamp.from(Instant.now()));
+            assertUsesIndex(TRANSACTION_INDEX, TRANSACTION_SQL, "tx-1");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public void crlDelta(Blackhole bh) throws SQLException {
+        crl.setLong(1, 1L);
+        crl.setString(2, "REVOKED");
+        crl.setTimestamp(3, Timestamp.from(Instant.now().minus(Duration.ofHours(1))));
+        consume(crl, bh);
+    }
+
+    @Benchmark
+    public void crlFull(Blackhole bh) throws SQLException {
+        crl.setLong(1, 1L);
+        crl.setString(2, "REVOKED");
+        crl.setTimestamp(3, Timestamp.from(Instant.EPOCH));
+        consume(crl, bh);
+    }
+
+    @Benchmark
+    public void ocspPreload(Blackhole bh) throws SQLException {
+        ocsp.setLong(1, 1L);
+        consume(ocsp, bh);
+    }
+
+    @Benchmark
+    public void expiryCandidates(Blackhole bh) throws SQLException {
+        expiry.setString(1, "VALID");
+        expiry.setTimestamp(2, Timestamp.from(Instant.now()));
+        consume(expiry, bh);
+    }
+
+    @Benchmark
+    public void transactionLookup(Blackhole bh) throws SQLException {
+        nextTransaction = nextTransaction % rows + 1;
+        transaction.setString(1, "tx-" + nextTransaction);
+        consume(transaction, bh);
+    }
+
+    private static void consume(PreparedStatement statement, Blackhole bh) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(rs.getString(1));
+            }
+        }
+    }
+
+    private void assertUsesIndex(String index, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                String plan = rs.getString(1);
+                if (!plan.toLowerCase().contains(index)) {
+                    throw new IllegalStateException("Expected " + index + " in the plan of [" + sql + "]: " + plan);
+                }
+            }
+        }
+    }
+
+    private static String[] migrationStatements(String migration) throws IOException {
+        try (InputStream in = IssuedCertificateIndexBenchmark.class.getClassLoader().getResourceAsStream(migration)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration not on the classpath: " + migration);
+            }
+            String sql = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.strip().startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+            return Arrays.stream(sql.split(";")).map(String::strip).filter(s -> !s.isEmpty())
+                    .toArray(String[]::new);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package io.dodn.springboot.core.domain.pki.cmp.service;
+
+import io.dodn.springboot.core.domain.pki.cmp.CmpResponseSigner;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.cmp.PKIBody;
+import org.bouncycastle.asn1.cmp.PKIHeader;
+import org.bouncycastle.asn1.cmp.PKIHeaderBuilder;
+import org.bouncycastle.asn1.cmp.PKIMessage;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building an rp response unprotected, signed with a pooled or a freshly initialized signer, and
+ * MAC-protected with an already derived PBMAC1 key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CmpResponseProtectionBenchmark {
+
+    private final CmpMessageBuilder messageBuilder = new CmpMessageBuilder();
+    private PKIMessage request;
+    private CmpResponseSigner pooledSigner;
+    private CmpResponseSigner unpooledSigner;
+    private AlgorithmIdentifier macProtectionAlg;
+    private byte[] macKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", "BC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair caKeyPair = generator.generateKeyPair();
+        KeyPair protectionKeyPair = generator.generateKeyPair();
+        SubjectDN caSubject = new SubjectDN("Benchmark CA", "Meteor", null, "KR", null, null);
+        SubjectDN protectionSubject = new SubjectDN("Benchmark CA CMP Protection", "Meteor", null, "KR", null, null);
+        X509Certificate caCert = certificate(caSubject, caSubject, caKeyPair, caKeyPair);
+        X509Certificate protectionCert = certificate(protectionSubject, caSubject, protectionKeyPair, caKeyPair);
+
+        CaId caId = CaId.of(1L);
+        pooledSigner = CmpResponseSigner.create(caId, caCert, protectionCert, protectionKeyPair.getPrivate(),
+                "SHA256withECDSA", 8);
+        unpooledSigner = CmpResponseSigner.create(caId, caCert, protectionCert, protectionKeyPair.getPrivate(),
+                "SHA256withECDSA", 0);
+
+        byte[] salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+        macProtectionAlg = CmpResponseProtector.pbmac1(salt, 10_000);
+        macKey = new byte[32];
+        new SecureRandom().nextBytes(macKey);
+
+        byte[] transactionId = new byte[16];
+        byte[] senderNonce = new byte[16];
+        new SecureRandom().nextBytes(transactionId);
+        new SecureRandom().nextBytes(senderNonce);
+        PKIHeaderBuilder header = new PKIHeaderBuilder(PKIHeader.CMP_2000,
+                new GeneralName(new SubjectDN("client", null, null, null, null, null).toX500Name()),
+                new GeneralName(caSubject.toX500Name()));
+        header.setTransactionID(transactionId);
+        header.setSenderNonce(senderNonce);
+        request = new PKIMessage(header.build(), new PKIBody(PKIBody.TYPE_CONFIRM, DERNull.INSTANCE));
+    }
+
+    @Benchmark
+    public byte[] unprotected() {
+        return rpResponse();
+    }
+
+    @Benchmark
+    public byte[] signaturePooledSigner() throws Exception {
+        return pooledSigner.protect(PKIMessage.getInstance(rpResponse())).getEncoded();
+    }
+
+    @Benchmark
+    public byte[] signatureFreshSigner() throws Exception {
+        return unpooledSigner.protect(PKIMessage.getInstance(rpResponse())).getEncoded();
+    }
+
+    @Benchmark
+    public byte[] macCachedKey() throws Exception {
+        return CmpResponseProtector.protectWithMac(PKIMessage.getInstance(rpResponse()),
+                request.getHeader().getSenderKID(), macProtectionAlg, macKey).getEncoded();
+    }
+
+    private byte[] rpResponse() {
+        return messageBuilder.buildRpResponse(request, List.of(CmpMessageBuilder.granted()));
+    }
+
+    private static X509Certificate certificate(SubjectDN subject, SubjectDN issuer, KeyPair subjectKeyPair,
+            KeyPair issuerKeyPair) throws Exception {
+        Instant now = Instant.now();
+        JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(issuer.toX500Name(),
+                SerialNumber.generate().value(), Date.from(now), Date.from(now.plus(1, ChronoUnit.DAYS)),
+                subject.toX500Name(), subjectKeyPair.getPublic());
+        builder.addExtension(Extension.subjectKeyIdentifier, false,
+                new JcaX509ExtensionUtils().createSubjectKeyIdentifier(subjectKeyPair.getPublic()));
+        return new JcaX509CertificateConverter().setProvider("BC").getCertificate(
+                builder.build(new JcaContentSignerBuilder("SHA256withECDSA").setProvider("BC")
+                        .build(issuerKeyPair.getPrivate())));
+    }
+}
@@ -0,0 +1,82 @@
+package io.dodn.springboot.core.domain.pki.vo;
+
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares re-parsing the CA certificate on every access (the behavior before memoization, reproduced by
+ * building a fresh {@link CertificatePem} per call) against reusing one memoized instance.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CertificatePemBenchmark {
+
+    private String pem;
+    private CertificatePem memoized;
+
+    @Setup
+    public void setUp() throws Exception {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA", "BC");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        SubjectDN subject = new SubjectDN("Benchmark CA", "Meteor", null, "KR", null, null);
+        Instant now = Instant.now();
+        X509Certificate cert = new JcaX509CertificateConverter().setProvider("BC").getCertificate(
+                new JcaX509v3CertificateBuilder(subject.toX500Name(), SerialNumber.generate().value(),
+                        Date.from(now), Date.from(now.plus(1, ChronoUnit.DAYS)), subject.toX500Name(),
+                        keyPair.getPublic())
+                        .build(new JcaContentSignerBuilder("SHA256withRSA").setProvider("BC")
+                                .build(keyPair.getPrivate())));
+        pem = CertificatePem.fromX509(cert).pem();
+        memoized = new CertificatePem(pem);
+        memoized.toX509Certificate();
+    }
+
+    @Benchmark
+    public X509Certificate parseOnEveryAccess() {
+        return new CertificatePem(pem).toX509Certificate();
+    }
+
+    @Benchmark
+    public X509Certificate memoizedCertificate() {
+        return memoized.toX509Certificate();
+    }
+
+    @Benchmark
+    public byte[] decodeDerOnEveryAccess() {
+        return new CertificatePem(pem).toDer();
+    }
+
+    @Benchmark
+    public byte[] memoizedDer() {
+        return memoized.toDer();
+    }
+}
@@ -1,21 +1,46 @@
 package io.dodn.springboot.core.api.config;
 
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 @Configuration
 @EnableAsync
 public class AsyncConfig implements AsyncConfigurer {
 
+    private final boolean virtualThreads;
+    private final int asyncQueueCapacity;
+    private final ObjectProvider<DatabasePermits> databasePermits;
+
+    public AsyncConfig(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${pki.virtual-threads.async-queue-capacity:10000}") int asyncQueueCapacity,
+            ObjectProvider<DatabasePermits> databasePermits) {
+        this.virtualThreads = virtualThreads;
+        this.asyncQueueCapacity = asyncQueueCapacity;
+        this.databasePermits = databasePermits;
+    }
+
+    /**
+     * With {@code spring.threads.virtual.enabled}, {@code @Async} work runs on virtual threads that each wait for a
+     * {@link DatabasePermits} permit before running. Submitting never blocks: beyond
+     * {@code pki.virtual-threads.async-queue-capacity} waiting tasks the submission is rejected.
+     */
     @Bean
     @Override
     public Executor getAsyncExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("async-", databasePermits.getObject().bounded(asyncQueueCapacity));
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(10);
         executor.setMaxPoolSize(10);
@@ -25,6 +50,59 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    @Bean
+    public ThreadPoolTaskExecutor keyPairPoolExecutor(@Value("${pki.key-pool.threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("key-pool-");
+        executor.setDaemon(true);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cmpIssuanceExecutor(@Value("${pki.cmp.async.threads:4}") int threads,
+            @Value("${pki.cmp.async.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cmp-issuance-");
+        databasePermits.ifAvailable(executor::setTaskDecorator);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cmpTcpExecutor(@Value("${pki.cmp.tcp.threads:8}") int threads,
+            @Value("${pki.cmp.tcp.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cmp-tcp-");
+        databasePermits.ifAvailable(executor::setTaskDecorator);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool bulkIssuancePool(@Value("${pki.bulk.parallelism:4}") int parallelism) {
+        return new ForkJoinPool(parallelism);
+    }
+
+    public static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, TaskDecorator taskDecorator) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(taskDecorator);
+        executor.setTaskTerminationTimeout(10_000);
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new AsyncExceptionHandler();
@@ -0,0 +1,86 @@
+package io.dodn.springboot.core.api.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The one budget of work that may hold a core database connection at once, shared by requests
+ * ({@code ConnectionPoolConcurrencyFilter}) and by background work ({@code @Async}, the CMP issuance and TCP
+ * executors, scheduled jobs) through {@link #decorate}. Sized to the connection pool, so requests and background
+ * work together never queue inside Hikari.
+ * <p>
+ * Decorated tasks take their permit on the thread that runs them, never on the submitter: a request holding a permit
+ * can hand work to an executor without waiting for a second one.
+ */
+public class DatabasePermits implements TaskDecorator {
+
+    private final Semaphore permits;
+    private final int limit;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public DatabasePermits(int limit) {
+        this.permits = new Semaphore(limit, true);
+        this.limit = limit;
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return permits.tryAcquire(timeout, unit);
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /** Runs the task once a permit is free; for executors whose own queue already bounds the waiting tasks. */
+    @Override
+    public Runnable decorate(Runnable task) {
+        return withPermit(task, () -> {});
+    }
+
+    /**
+     * For executors without a queue of their own: at most {@code queueCapacity} submitted tasks may wait for a
+     * permit, further submissions are rejected with {@link TaskRejectedException} instead of blocking the submitter.
+     */
+    public TaskDecorator bounded(int queueCapacity) {
+        AtomicInteger pending = new AtomicInteger();
+        return task -> {
+            if (pending.incrementAndGet() > queueCapacity) {
+                pending.decrementAndGet();
+                throw new TaskRejectedException("Database permit queue is full (" + queueCapacity + " tasks)");
+            }
+            return withPermit(task, pending::decrementAndGet);
+        };
+    }
+
+    private Runnable withPermit(Runnable task, Runnable onDequeued) {
+        return () -> {
+            waiting.incrementAndGet();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                waiting.decrementAndGet();
+                onDequeued.run();
+            }
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    public int inFlight() {
+        return limit - permits.availablePermits();
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+}
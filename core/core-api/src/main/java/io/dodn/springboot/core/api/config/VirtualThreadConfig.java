@@ -0,0 +1,64 @@
+package io.dodn.springboot.core.api.config;
+
+import io.dodn.springboot.core.api.filter.ConnectionPoolConcurrencyFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled}, under which Spring Boot runs Tomcat request handling on
+ * virtual threads and {@code server.tomcat.threads.max} no longer caps concurrency. The limit is put back in
+ * front of the database instead: one {@link DatabasePermits} budget, by default as many permits as the core pool
+ * has connections, taken by requests, {@code @Async} work, the CMP executors and scheduled jobs alike.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public DatabasePermits databasePermits(
+            @Value("${storage.datasource.core.maximum-pool-size:10}") int connectionPoolSize,
+            @Value("${pki.virtual-threads.max-concurrent-requests:0}") int maxConcurrentRequests,
+            MeterRegistry meterRegistry) {
+        DatabasePermits permits = new DatabasePermits(
+                maxConcurrentRequests > 0 ? maxConcurrentRequests : connectionPoolSize);
+        Gauge.builder("pki.web.db-bound.in-flight", permits, DatabasePermits::inFlight)
+                .register(meterRegistry);
+        Gauge.builder("pki.web.db-bound.waiting", permits, DatabasePermits::waiting)
+                .register(meterRegistry);
+        return permits;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConnectionPoolConcurrencyFilter> connectionPoolConcurrencyFilter(
+            DatabasePermits databasePermits,
+            @Value("${pki.virtual-threads.acquire-timeout:2s}") Duration acquireTimeout) {
+        ConnectionPoolConcurrencyFilter filter = new ConnectionPoolConcurrencyFilter(databasePermits, acquireTimeout);
+        FilterRegistrationBean<ConnectionPoolConcurrencyFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    /**
+     * Replaces Boot's {@code SimpleAsyncTaskScheduler}, which runs fixed-delay jobs on its scheduler thread without
+     * the task decorator; this one decorates every scheduled run, so each job waits for a permit like any request.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(DatabasePermits databasePermits,
+            @Value("${spring.task.scheduling.pool.size:1}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setVirtualThreads(true);
+        scheduler.setThreadNamePrefix("scheduling-");
+        scheduler.setTaskDecorator(databasePermits);
+        return scheduler;
+    }
+}
@@ -0,0 +1,55 @@
+package io.dodn.springboot.core.api.controller;
+
+import io.dodn.springboot.core.domain.pki.ca.CaAlias;
+import io.dodn.springboot.core.domain.pki.crl.PublishedCrl;
+import io.dodn.springboot.core.domain.pki.crl.service.CrlPublicationService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+/**
+ * CRL distribution point referenced from issued certificates. Conditional requests are answered with 304 by
+ * Spring MVC from the ETag and Last-Modified headers set here.
+ */
+@RestController
+@RequestMapping("/pki")
+public class CrlController {
+
+    private static final MediaType PKIX_CRL_MEDIA_TYPE = MediaType.parseMediaType("application/pkix-crl");
+
+    private final CrlPublicationService crlPublicationService;
+
+    public CrlController(CrlPublicationService crlPublicationService) {
+        this.crlPublicationService = crlPublicationService;
+    }
+
+    @GetMapping("/{caAlias}/crl")
+    public ResponseEntity<Resource> getCrl(@PathVariable String caAlias) {
+        return toResponse(crlPublicationService.getCrl(CaAlias.of(caAlias)));
+    }
+
+    @GetMapping("/{caAlias}/crl/delta")
+    public ResponseEntity<Resource> getDeltaCrl(@PathVariable String caAlias) {
+        return toResponse(crlPublicationService.getDeltaCrl(CaAlias.of(caAlias)));
+    }
+
+    public static ResponseEntity<Resource> toResponse(PublishedCrl crl) {
+        return ResponseEntity.ok()
+                .contentType(PKIX_CRL_MEDIA_TYPE)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=crl.crl")
+                .eTag(crl.etag())
+                .lastModified(crl.thisUpdate())
+                .cacheControl(CacheControl.maxAge(crl.timeToNextUpdate(Instant.now())).cachePublic())
+                .contentLength(crl.length())
+                .body(new FileSystemResource(crl.file()));
+    }
+}
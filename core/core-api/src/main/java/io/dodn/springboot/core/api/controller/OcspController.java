@@ -0,0 +1,62 @@
+package io.dodn.springboot.core.api.controller;
+
+import io.dodn.springboot.core.domain.pki.ocsp.service.OcspResponderService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Base64;
+
+@RestController
+@RequestMapping("/pki")
+public class OcspController {
+
+    private static final String OCSP_REQUEST_MEDIA_TYPE = "application/ocsp-request";
+    private static final String OCSP_RESPONSE_MEDIA_TYPE = "application/ocsp-response";
+
+    private final OcspResponderService ocspResponderService;
+
+    public OcspController(OcspResponderService ocspResponderService) {
+        this.ocspResponderService = ocspResponderService;
+    }
+
+    @PostMapping(value = "/{caAlias}/ocsp",
+            consumes = OCSP_REQUEST_MEDIA_TYPE,
+            produces = OCSP_RESPONSE_MEDIA_TYPE)
+    public ResponseEntity<byte[]> handlePost(
+            @PathVariable String caAlias,
+            @RequestBody byte[] derOcspRequest) {
+        return toResponse(ocspResponderService.respond(caAlias, derOcspRequest));
+    }
+
+    /**
+     * RFC 6960 Appendix A.1 GET form: the URL-encoded base64 of the DER request, which may itself contain '/'.
+     */
+    @GetMapping(value = "/{caAlias}/ocsp/{*encodedRequest}", produces = OCSP_RESPONSE_MEDIA_TYPE)
+    public ResponseEntity<byte[]> handleGet(
+            @PathVariable String caAlias,
+            @PathVariable String encodedRequest) {
+        return toResponse(ocspResponderService.respond(caAlias, decode(encodedRequest)));
+    }
+
+    private ResponseEntity<byte[]> toResponse(byte[] response) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(OCSP_RESPONSE_MEDIA_TYPE))
+                .body(response);
+    }
+
+    /** An undecodable request is passed on as empty so the responder answers malformedRequest. */
+    private static byte[] decode(String encodedRequest) {
+        String base64 = encodedRequest.startsWith("/") ? encodedRequest.substring(1) : encodedRequest;
+        try {
+            return Base64.getDecoder().decode(base64);
+        } catch (IllegalArgumentException e) {
+            return new byte[0];
+        }
+    }
+}
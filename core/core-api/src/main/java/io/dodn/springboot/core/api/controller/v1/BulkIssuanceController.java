@@ -0,0 +1,104 @@
+package io.dodn.springboot.core.api.controller.v1;
+
+import io.dodn.springboot.core.api.controller.v1.request.BulkIssueLineRequest;
+import io.dodn.springboot.core.api.controller.v1.response.BulkIssueResultResponse;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.service.BulkIssuanceService;
+import io.dodn.springboot.core.domain.pki.certificate.service.BulkIssueRequest;
+import io.dodn.springboot.core.domain.pki.certificate.service.BulkIssueResult;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk issuance over NDJSON: one {@link BulkIssueLineRequest} per request line, one {@link BulkIssueResultResponse}
+ * per response line, in request order. Lines are read and answered chunk by chunk while the response streams, and
+ * each chunk's results are flushed to the client as soon as the chunk is done.
+ * <p>
+ * The stream outlives the container's default async timeout, so this endpoint alone runs with
+ * {@code pki.bulk.request-timeout}.
+ */
+@RestController
+@RequestMapping("/api/v1/pki/ca")
+public class BulkIssuanceController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final BulkIssuanceService bulkIssuanceService;
+    private final JsonMapper jsonMapper;
+    private final Duration requestTimeout;
+
+    public BulkIssuanceController(BulkIssuanceService bulkIssuanceService, JsonMapper jsonMapper,
+            @Value("${pki.bulk.request-timeout:30m}") Duration requestTimeout) {
+        this.bulkIssuanceService = bulkIssuanceService;
+        this.jsonMapper = jsonMapper;
+        this.requestTimeout = requestTimeout;
+    }
+
+    @PostMapping(value = "/{id}/certificates/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> bulkIssue(@PathVariable Long id, InputStream body,
+            HttpServletRequest request) {
+        CertificateAuthority issuer = bulkIssuanceService.requireIssuer(CaId.of(id));
+        AsyncWebRequest asyncRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncRequest != null) {
+            asyncRequest.setTimeout(requestTimeout.toMillis());
+        }
+        StreamingResponseBody stream = out -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            bulkIssuanceService.issue(issuer, requests(reader), results -> {
+                try {
+                    for (BulkIssueResult result : results) {
+                        out.write(jsonMapper.writeValueAsBytes(BulkIssueResultResponse.from(result)));
+                        out.write('\n');
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(stream);
+    }
+
+    private Iterator<BulkIssueRequest> requests(BufferedReader reader) {
+        AtomicLong lineNumber = new AtomicLong();
+        return reader.lines()
+                .map(line -> new NumberedLine(lineNumber.incrementAndGet(), line))
+                .filter(line -> !line.text().isBlank())
+                .map(this::parse)
+                .iterator();
+    }
+
+    private BulkIssueRequest parse(NumberedLine line) {
+        String defaultRef = String.valueOf(line.number());
+        try {
+            return jsonMapper.readValue(line.text(), BulkIssueLineRequest.class).toDomain(defaultRef);
+        } catch (JacksonException e) {
+            return BulkIssueRequest.invalid(defaultRef, "Malformed JSON");
+        }
+    }
+
+    private record NumberedLine(long number, String text) {
+    }
+}
@@ -1,13 +1,18 @@
 package io.dodn.springboot.core.api.controller.v1;
 
+import io.dodn.springboot.core.api.controller.CrlController;
 import io.dodn.springboot.core.api.controller.v1.request.CreateRootCaRequest;
 import io.dodn.springboot.core.api.controller.v1.request.CreateSubCaRequest;
 import io.dodn.springboot.core.api.controller.v1.response.CaResponse;
+import io.dodn.springboot.core.domain.pki.ca.CaChain;
 import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.ca.service.CaChainService;
 import io.dodn.springboot.core.domain.pki.ca.service.CaManagementService;
+import io.dodn.springboot.core.domain.pki.crl.service.CrlPublicationService;
 import io.dodn.springboot.core.domain.pki.vo.CaId;
 import io.dodn.springboot.core.support.response.ApiResponse;
-import org.springframework.http.HttpHeaders;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,16 +22,27 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/pki/ca")
 public class CaManagementController {
 
+    private static final MediaType PEM_MEDIA_TYPE = MediaType.parseMediaType("application/x-pem-file");
+    private static final MediaType PKCS7_MIME_MEDIA_TYPE = MediaType.parseMediaType("application/pkcs7-mime");
+    private static final CacheControl CHAIN_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+
     private final CaManagementService caManagementService;
+    private final CaChainService caChainService;
+    private final CrlPublicationService crlPublicationService;
 
-    public CaManagementController(CaManagementService caManagementService) {
+    public CaManagementController(CaManagementService caManagementService,
+            CaChainService caChainService,
+            CrlPublicationService crlPublicationService) {
         this.caManagementService = caManagementService;
+        this.caChainService = caChainService;
+        this.crlPublicationService = crlPublicationService;
     }
 
     @PostMapping("/root")
@@ -54,6 +70,12 @@ public class CaManagementController {
         return ApiResponse.success(CaResponse.from(ca));
     }
 
+    @PostMapping("/{id}/revoke")
+    public ApiResponse<CaResponse> revokeCa(@PathVariable Long id) {
+        CertificateAuthority ca = caManagementService.revokeCa(CaId.of(id));
+        return ApiResponse.success(CaResponse.from(ca));
+    }
+
     @GetMapping("/{id}/certificate")
     public ResponseEntity<String> getCertificate(@PathVariable Long id) {
         CertificateAuthority ca = caManagementService.findById(CaId.of(id));
@@ -64,18 +86,38 @@ public class CaManagementController {
 
     @GetMapping("/{id}/chain")
     public ApiResponse<List<String>> getCaChain(@PathVariable Long id) {
-        List<String> chain = caManagementService.getCaChain(CaId.of(id)).stream()
-                .map(ca -> ca.getCertificate().pem())
-                .toList();
-        return ApiResponse.success(chain);
+        return ApiResponse.success(caChainService.getChain(CaId.of(id)).getPems());
     }
 
-    @GetMapping("/{id}/crl")
-    public ResponseEntity<byte[]> getCrl(@PathVariable Long id) {
-        byte[] crl = caManagementService.generateCrl(CaId.of(id));
+    /** PEM bundle, root first. Conditional requests are answered with 304 from the ETag. */
+    @GetMapping("/{id}/chain.pem")
+    public ResponseEntity<byte[]> getCaChainPem(@PathVariable Long id) {
+        CaChain chain = caChainService.getChain(CaId.of(id));
         return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType("application/pkix-crl"))
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=crl.crl")
-                .body(crl);
+                .contentType(PEM_MEDIA_TYPE)
+                .eTag(chain.getEtag() + "-pem")
+                .cacheControl(CHAIN_CACHE_CONTROL)
+                .body(chain.getPemBundle());
+    }
+
+    /** PKCS#7 certs-only chain, referenced as caIssuers from the AIA of issued certificates. */
+    @GetMapping("/{id}/chain.p7c")
+    public ResponseEntity<byte[]> getCaChainPkcs7(@PathVariable Long id) {
+        CaChain chain = caChainService.getChain(CaId.of(id));
+        return ResponseEntity.ok()
+                .contentType(PKCS7_MIME_MEDIA_TYPE)
+                .eTag(chain.getEtag() + "-p7c")
+                .cacheControl(CHAIN_CACHE_CONTROL)
+                .body(chain.getPkcs7());
+    }
+
+    @GetMapping("/{id}/crl")
+    public ResponseEntity<Resource> getCrl(@PathVariable Long id) {
+        return CrlController.toResponse(crlPublicationService.getCrl(CaId.of(id)));
+    }
+
+    @GetMapping("/{id}/crl/delta")
+    public ResponseEntity<Resource> getDeltaCrl(@PathVariable Long id) {
+        return CrlController.toResponse(crlPublicationService.getDeltaCrl(CaId.of(id)));
     }
 }
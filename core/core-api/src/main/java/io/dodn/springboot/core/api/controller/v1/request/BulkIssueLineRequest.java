@@ -0,0 +1,58 @@
+package io.dodn.springboot.core.api.controller.v1.request;
+
+import io.dodn.springboot.core.domain.pki.certificate.service.BulkIssueRequest;
+import io.dodn.springboot.core.domain.pki.vo.SanExtension;
+import io.dodn.springboot.core.domain.pki.vo.SanValue;
+import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * One NDJSON line of a bulk issuance request. {@code csr} is a PEM or base64 DER PKCS#10 request; without it,
+ * {@code cn} and {@code publicKey} (base64 DER SubjectPublicKeyInfo) are required.
+ */
+public record BulkIssueLineRequest(
+        String ref,
+        String csr,
+        String cn,
+        String o,
+        String ou,
+        String c,
+        String st,
+        String l,
+        List<String> dnsNames,
+        List<String> ipAddresses,
+        List<String> emails,
+        String publicKey
+) {
+    public BulkIssueRequest toDomain(String defaultRef) {
+        String requestRef = ref != null ? ref : defaultRef;
+        try {
+            if (csr != null) {
+                return BulkIssueRequest.ofCsr(requestRef, decode(csr));
+            }
+            if (publicKey == null || cn == null) {
+                return BulkIssueRequest.invalid(requestRef, "Either csr or cn and publicKey are required");
+            }
+            return BulkIssueRequest.ofPublicKey(requestRef, new SubjectDN(cn, o, ou, c, st, l), toSan(),
+                    decode(publicKey));
+        } catch (IllegalArgumentException e) {
+            return BulkIssueRequest.invalid(requestRef, e.getMessage());
+        }
+    }
+
+    private SanExtension toSan() {
+        List<SanValue> values = new ArrayList<>();
+        if (dnsNames != null) dnsNames.forEach(v -> values.add(new SanValue.DnsName(v)));
+        if (ipAddresses != null) ipAddresses.forEach(v -> values.add(new SanValue.IpAddress(v)));
+        if (emails != null) emails.forEach(v -> values.add(new SanValue.EmailAddress(v)));
+        return new SanExtension(values);
+    }
+
+    private static byte[] decode(String pemOrBase64) {
+        String base64 = pemOrBase64.replaceAll("-----(BEGIN|END) [A-Z0-9 ]+-----", "");
+        return Base64.getMimeDecoder().decode(base64);
+    }
+}
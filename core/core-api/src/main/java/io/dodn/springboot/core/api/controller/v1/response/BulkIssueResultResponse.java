@@ -0,0 +1,22 @@
+package io.dodn.springboot.core.api.controller.v1.response;
+
+import io.dodn.springboot.core.domain.pki.certificate.service.BulkIssueResult;
+
+public record BulkIssueResultResponse(
+        String ref,
+        String serialNumber,
+        String certificate,
+        String error
+) {
+    public static BulkIssueResultResponse from(BulkIssueResult result) {
+        if (!result.isIssued()) {
+            return new BulkIssueResultResponse(result.ref(), null, null, result.error());
+        }
+        return new BulkIssueResultResponse(
+                result.ref(),
+                result.certificate().getSerialNumber().toHex(),
+                result.certificate().getCertificate().pem(),
+                null
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package io.dodn.springboot.core.api.filter;
+
+import io.dodn.springboot.core.api.config.DatabasePermits;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of requests in flight that may need a database connection. With virtual threads the
+ * container no longer limits concurrency, so without this every blocked request would queue inside Hikari and
+ * time out there. Requests that cannot get a permit within the acquire timeout get 503 with Retry-After.
+ * <p>
+ * The permits are the {@link DatabasePermits} that background executors draw from as well. Only health checks
+ * bypass the limit; OCSP and CRL requests can reach the database (unknown serials, CRL generation on a miss).
+ */
+public class ConnectionPoolConcurrencyFilter extends OncePerRequestFilter {
+
+    private final DatabasePermits permits;
+    private final long acquireTimeoutNanos;
+
+    public ConnectionPoolConcurrencyFilter(DatabasePermits permits, Duration acquireTimeout) {
+        this.permits = permits;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.equals("/health");
+    }
+}
@@ -0,0 +1,348 @@
+package io.dodn.springboot.core.api.transport;
+
+import io.dodn.springboot.core.domain.pki.cmp.service.CmpRequestProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * CMP over raw TCP for clients where HTTP framing dominates small messages. Each message, in both directions, is
+ * a 4-byte big-endian length followed by the DER-encoded PKIMessage; a connection may carry any number of
+ * request/response exchanges, one at a time. All messages are processed for {@code pki.cmp.tcp.ca-alias}.
+ * <p>
+ * A single selector thread does all socket I/O. Request bodies are read into pooled direct buffers and handed to
+ * {@link CmpRequestProcessor} on {@code cmpTcpExecutor}; the connection stops reading until the response has
+ * been written. Malformed frames and unparseable messages close the connection.
+ * <p>
+ * At most {@code pki.cmp.tcp.max-connections} connections are open at a time; further ones are closed on accept.
+ * A connection that does not complete a request frame, or take its response, within
+ * {@code pki.cmp.tcp.idle-timeout} of its last exchange is closed and its buffer returned, so slow or silent
+ * clients cannot hold buffers. When all {@code buffer-pool-size} buffers are in use, a connection that starts a
+ * new frame is closed rather than given a freshly allocated buffer.
+ */
+@Component
+@ConditionalOnProperty(name = "pki.cmp.tcp.enabled", havingValue = "true")
+public class CmpTcpServer implements SmartLifecycle {
+
+    private static final int LENGTH_PREFIX = 4;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final CmpRequestProcessor cmpRequestProcessor;
+    private final TaskExecutor executor;
+    private final String host;
+    private final int port;
+    private final String caAlias;
+    private final int maxMessageSize;
+    private final int maxConnections;
+    private final long idleTimeoutNanos;
+    private final long sweepIntervalMillis;
+    private final DirectBufferPool bufferPool;
+    private final Queue<Runnable> selectorTasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+    private int connections;
+    private long nextSweep;
+
+    public CmpTcpServer(CmpRequestProcessor cmpRequestProcessor,
+            @Qualifier("cmpTcpExecutor") TaskExecutor executor,
+            @Value("${pki.cmp.tcp.host:0.0.0.0}") String host,
+            @Value("${pki.cmp.tcp.port:1829}") int port,
+            @Value("${pki.cmp.tcp.ca-alias}") String caAlias,
+            @Value("${pki.cmp.tcp.max-message-size:65536}") int maxMessageSize,
+            @Value("${pki.cmp.tcp.buffer-pool-size:64}") int bufferPoolSize,
+            @Value("${pki.cmp.tcp.max-connections:1024}") int maxConnections,
+            @Value("${pki.cmp.tcp.idle-timeout:30s}") Duration idleTimeout) {
+        this.cmpRequestProcessor = cmpRequestProcessor;
+        this.executor = executor;
+        this.host = host;
+        this.port = port;
+        this.caAlias = caAlias;
+        this.maxMessageSize = maxMessageSize;
+        this.maxConnections = maxConnections;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.sweepIntervalMillis = Math.max(100, Math.min(1_000, idleTimeout.toMillis() / 2));
+        this.bufferPool = new DirectBufferPool(maxMessageSize, bufferPoolSize);
+    }
+
+    @Override
+    public void start() {
+        if (caAlias.isBlank()) {
+            throw new IllegalStateException("pki.cmp.tcp.ca-alias is required when the CMP TCP transport is enabled");
+        }
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.configureBlocking(false);
+            serverChannel.bind(new InetSocketAddress(host, port));
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open CMP TCP listener on port " + port, e);
+        }
+        running = true;
+        selectorThread = new Thread(this::selectLoop, "cmp-tcp-selector");
+        selectorThread.start();
+        log.info("CMP TCP transport listening on {}:{} for CA {}", host, port, caAlias);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            selectorThread.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.debug("Failed to close CMP TCP selector", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void selectLoop() {
+        while (running) {
+            try {
+                selector.select(sweepIntervalMillis);
+                Runnable task;
+                while ((task = selectorTasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                closeIdleConnections();
+            } catch (Exception e) {
+                log.error("CMP TCP selector loop failed", e);
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+            } else if (key.isReadable()) {
+                ((Connection) key.attachment()).onReadable();
+            } else if (key.isWritable()) {
+                ((Connection) key.attachment()).onWritable();
+            }
+        } catch (IOException e) {
+            log.debug("CMP TCP connection closed: {}", e.getMessage());
+            if (key.attachment() instanceof Connection connection) {
+                connection.close();
+            } else {
+                closeQuietly(key);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        if (connections >= maxConnections) {
+            log.warn("CMP TCP connection limit {} reached, refusing {}", maxConnections, channel.getRemoteAddress());
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+        connections++;
+    }
+
+    /** Connections whose request is on the executor are left alone; their clock restarts once it answers. */
+    private void closeIdleConnections() {
+        long now = System.nanoTime();
+        if (now - nextSweep < 0) {
+            return;
+        }
+        nextSweep = now + sweepIntervalMillis * 1_000_000;
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection connection && !connection.processing
+                    && now - connection.lastExchange > idleTimeoutNanos) {
+                log.debug("CMP TCP connection idle for longer than the timeout, closing");
+                connection.close();
+            }
+        }
+    }
+
+    private void dispatch(Connection connection) {
+        try {
+            executor.execute(() -> process(connection));
+        } catch (RejectedExecutionException e) {
+            log.warn("CMP TCP executor saturated, dropping connection");
+            connection.processing = false;
+            connection.close();
+        }
+    }
+
+    /** Runs on the executor; the outcome is handed back to the selector thread. */
+    private void process(Connection connection) {
+        ByteBuffer request = connection.body;
+        byte[] response = null;
+        try {
+            response = cmpRequestProcessor.process(request, caAlias);
+        } catch (Exception e) {
+            log.debug("Rejected CMP TCP message: {}", e.getMessage());
+        } finally {
+            connection.body = null;
+            bufferPool.release(request);
+        }
+        byte[] result = response;
+        selectorTasks.add(() -> {
+            connection.processing = false;
+            connection.lastExchange = System.nanoTime();
+            if (result != null) {
+                connection.startWrite(result);
+            } else {
+                connection.close();
+            }
+        });
+        selector.wakeup();
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // already closed
+        }
+    }
+
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final ByteBuffer lengthPrefix = ByteBuffer.allocate(LENGTH_PREFIX);
+        private volatile ByteBuffer body;
+        private boolean processing;
+        private ByteBuffer[] pendingWrite;
+        private long lastExchange = System.nanoTime();
+        private boolean closed;
+
+        private Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        private void onReadable() throws IOException {
+            if (body == null) {
+                if (channel.read(lengthPrefix) < 0) {
+                    close();
+                    return;
+                }
+                if (lengthPrefix.hasRemaining()) {
+                    return;
+                }
+                int length = lengthPrefix.getInt(0);
+                if (length <= 0 || length > maxMessageSize) {
+                    log.debug("CMP TCP frame length {} out of range", length);
+                    close();
+                    return;
+                }
+                ByteBuffer buffer = bufferPool.acquire();
+                if (buffer == null) {
+                    log.warn("CMP TCP buffer pool exhausted, closing connection");
+                    close();
+                    return;
+                }
+                body = buffer.limit(length);
+            }
+            if (channel.read(body) < 0) {
+                close();
+                return;
+            }
+            if (body.hasRemaining()) {
+                return;
+            }
+            body.flip();
+            key.interestOps(0);
+            processing = true;
+            dispatch(this);
+        }
+
+        private void startWrite(byte[] response) {
+            if (!key.isValid()) {
+                return;
+            }
+            lengthPrefix.clear();
+            lengthPrefix.putInt(response.length).flip();
+            pendingWrite = new ByteBuffer[]{lengthPrefix, ByteBuffer.wrap(response)};
+            try {
+                onWritable();
+            } catch (IOException e) {
+                log.debug("CMP TCP connection closed: {}", e.getMessage());
+                close();
+            }
+        }
+
+        private void onWritable() throws IOException {
+            channel.write(pendingWrite);
+            if (pendingWrite[1].hasRemaining()) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+            pendingWrite = null;
+            lengthPrefix.clear();
+            lastExchange = System.nanoTime();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /** A body still owned by the executor is released there. */
+        private void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connections--;
+            ByteBuffer pending = body;
+            if (pending != null && !processing) {
+                body = null;
+                bufferPool.release(pending);
+            }
+            closeQuietly(key);
+        }
+    }
+}
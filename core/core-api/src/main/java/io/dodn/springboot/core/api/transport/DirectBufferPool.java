@@ -0,0 +1,45 @@
+package io.dodn.springboot.core.api.transport;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size direct buffers recycled between connections, so a message is read by the kernel straight into
+ * off-heap memory and no buffer is allocated per message. At most {@code capacity} buffers are ever allocated;
+ * once they are all in use {@link #acquire} returns {@code null} instead of allocating more.
+ */
+final class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int capacity;
+    private final BlockingQueue<ByteBuffer> idle;
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    DirectBufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+        this.idle = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /** Returns {@code null} when every buffer is in use. */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = idle.poll();
+        if (buffer != null) {
+            return buffer.clear();
+        }
+        int count = allocated.get();
+        while (count < capacity) {
+            if (allocated.compareAndSet(count, count + 1)) {
+                return ByteBuffer.allocateDirect(bufferSize);
+            }
+            count = allocated.get();
+        }
+        return null;
+    }
+
+    void release(ByteBuffer buffer) {
+        idle.offer(buffer);
+    }
+}
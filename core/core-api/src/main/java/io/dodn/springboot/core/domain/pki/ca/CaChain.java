@@ -0,0 +1,74 @@
+package io.dodn.springboot.core.domain.pki.ca;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cms.CMSAbsentContent;
+import org.bouncycastle.cms.CMSSignedDataGenerator;
+import org.bouncycastle.util.CollectionStore;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Certificate path of a CA from its root down to the CA itself, with the encodings served to clients computed
+ * once: the PEM strings, a PEM bundle, a PKCS#7 certs-only structure (RFC 5280 caIssuers .p7c) and an entity tag
+ * derived from the certificates' DER. The byte arrays are shared and must not be modified.
+ */
+public final class CaChain {
+
+    private final CaId caId;
+    private final List<String> pems;
+    private final byte[] pemBundle;
+    private final byte[] pkcs7;
+    private final String etag;
+
+    private CaChain(CaId caId, List<String> pems, byte[] pemBundle, byte[] pkcs7, String etag) {
+        this.caId = caId;
+        this.pems = pems;
+        this.pemBundle = pemBundle;
+        this.pkcs7 = pkcs7;
+        this.etag = etag;
+    }
+
+    /**
+     * @param certificates root first
+     */
+    public static CaChain of(CaId caId, List<CertificatePem> certificates) {
+        try {
+            List<String> pems = new ArrayList<>(certificates.size());
+            List<X509CertificateHolder> holders = new ArrayList<>(certificates.size());
+            StringBuilder bundle = new StringBuilder();
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (CertificatePem certificate : certificates) {
+                String pem = certificate.pem();
+                pems.add(pem);
+                bundle.append(pem);
+                if (!pem.endsWith("\n")) {
+                    bundle.append('\n');
+                }
+                byte[] der = certificate.toDer();
+                holders.add(new X509CertificateHolder(der));
+                digest.update(der);
+            }
+            CMSSignedDataGenerator generator = new CMSSignedDataGenerator();
+            generator.addCertificates(new CollectionStore<>(holders));
+            byte[] pkcs7 = generator.generate(new CMSAbsentContent()).getEncoded(ASN1Encoding.DER);
+            String etag = HexFormat.of().formatHex(digest.digest(), 0, 16);
+            return new CaChain(caId, List.copyOf(pems), bundle.toString().getBytes(StandardCharsets.US_ASCII),
+                    pkcs7, etag);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode certificate chain of CA: " + caId.value(), e);
+        }
+    }
+
+    public CaId getCaId() { return caId; }
+    public List<String> getPems() { return pems; }
+    public byte[] getPemBundle() { return pemBundle; }
+    public byte[] getPkcs7() { return pkcs7; }
+    public String getEtag() { return etag; }
+}
@@ -0,0 +1,7 @@
+package io.dodn.springboot.core.domain.pki.ca;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+
+/** Published once a CA is revoked, so every cache holding its key, issuer context or signers drops them. */
+public record CaRevokedEvent(CaId caId) {
+}
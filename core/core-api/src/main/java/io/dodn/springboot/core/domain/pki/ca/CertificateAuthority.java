@@ -27,6 +27,7 @@ public class CertificateAuthority {
     private CaStatus status;
     private CrlDistributionPoint crlDp;
     private CaChainDepth chainDepth;
+    private long version;
 
     public CertificateAuthority(CaId id, CaAlias alias, SubjectDN subjectDN, CaType type,
             KeyAlgorithm keyAlgorithm, CaId parentId, EncryptedPrivateKey privateKey,
@@ -67,6 +68,18 @@ public class CertificateAuthority {
         this.status = CaStatus.REVOKED;
     }
 
+    public void changePrivateKey(EncryptedPrivateKey privateKey) {
+        this.privateKey = privateKey;
+    }
+
+    /** Independent instance sharing the immutable value objects, for handing out cached aggregates. */
+    public CertificateAuthority copy() {
+        CertificateAuthority copy = new CertificateAuthority(id, alias, subjectDN, type, keyAlgorithm, parentId,
+                privateKey, certificate, serialNumber, validity, status, crlDp, chainDepth);
+        copy.version = version;
+        return copy;
+    }
+
     public CaChainDepth maxIssuableDepth() {
         if (chainDepth.isUnlimited()) {
             return CaChainDepth.unlimited();
@@ -89,4 +102,6 @@ public class CertificateAuthority {
     public CaStatus getStatus() { return status; }
     public CrlDistributionPoint getCrlDp() { return crlDp; }
     public CaChainDepth getChainDepth() { return chainDepth; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
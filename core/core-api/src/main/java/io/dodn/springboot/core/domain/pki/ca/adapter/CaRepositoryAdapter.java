@@ -14,9 +14,11 @@ import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
 import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
 import io.dodn.springboot.storage.db.core.pki.CaJpaEntity;
 import io.dodn.springboot.storage.db.core.pki.CaJpaRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigInteger;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -51,9 +53,17 @@ public class CaRepositoryAdapter implements CaRepository {
 
     @Override
     public CertificateAuthority save(CertificateAuthority ca) {
-        CaJpaEntity entity = toEntityForSave(ca);
-        CaJpaEntity saved = jpaRepository.save(entity);
-        return toDomain(saved);
+        if (ca.getId() == null) {
+            return toDomain(jpaRepository.save(newEntity(ca)));
+        }
+        int updated = jpaRepository.updateState(ca.getId().value(), ca.getVersion(), ca.getStatus(),
+                ca.getPrivateKey().toBase64(), ca.getCertificate() != null ? ca.getCertificate().toDer() : null,
+                LocalDateTime.now());
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException("CA changed concurrently: " + ca.getAlias().value());
+        }
+        ca.setVersion(ca.getVersion() + 1);
+        return ca;
     }
 
     @Override
@@ -62,11 +72,11 @@ public class CaRepositoryAdapter implements CaRepository {
     }
 
     private CertificateAuthority toDomain(CaJpaEntity e) {
-        CertificatePem certPem = e.getCertificatePem() != null ? new CertificatePem(e.getCertificatePem()) : null;
+        CertificatePem certPem = CertificatePem.fromStored(e.getCertificateDer(), e.getCertificatePem());
         CrlDistributionPoint crlDp = e.getCrlDistributionPointUrl() != null ?
                 new CrlDistributionPoint(e.getCrlDistributionPointUrl()) : null;
 
-        return new CertificateAuthority(
+        CertificateAuthority ca = new CertificateAuthority(
                 CaId.of(e.getId()),
                 CaAlias.of(e.getAlias()),
                 new SubjectDN(e.getSubjectDnCn(), e.getSubjectDnO(), e.getSubjectDnOu(),
@@ -82,17 +92,8 @@ public class CaRepositoryAdapter implements CaRepository {
                 crlDp,
                 new CaChainDepth(e.getChainDepthPathLen())
         );
-    }
-
-    private CaJpaEntity toEntityForSave(CertificateAuthority ca) {
-        if (ca.getId() != null) {
-            return jpaRepository.findById(ca.getId().value()).map(existing -> {
-                existing.setCertificatePem(ca.getCertificate() != null ? ca.getCertificate().pem() : null);
-                existing.setStatus(ca.getStatus());
-                return existing;
-            }).orElseGet(() -> newEntity(ca));
-        }
-        return newEntity(ca);
+        ca.setVersion(e.getVersion());
+        return ca;
     }
 
     private CaJpaEntity newEntity(CertificateAuthority ca) {
@@ -108,7 +109,7 @@ public class CaRepositoryAdapter implements CaRepository {
                 ca.getKeyAlgorithm().type(),
                 ca.getParentId() != null ? ca.getParentId().value() : null,
                 ca.getPrivateKey().toBase64(),
-                ca.getCertificate() != null ? ca.getCertificate().pem() : null,
+                ca.getCertificate() != null ? ca.getCertificate().toDer() : null,
                 ca.getSerialNumber().toHex(),
                 ca.getValidity().notBefore(),
                 ca.getValidity().notAfter(),
@@ -0,0 +1,127 @@
+package io.dodn.springboot.core.domain.pki.ca.adapter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.dodn.springboot.core.domain.pki.ca.CaAlias;
+import io.dodn.springboot.core.domain.pki.ca.CaRepository;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.storage.db.core.pki.CaJpaRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of {@link CaRepositoryAdapter} for the alias and id lookups made on every CMP, OCSP
+ * and issuance request. Entries are dropped on {@code save} and, for changes made by other nodes, whenever the
+ * {@code certificate_authority} version stamp moves, which is polled every {@code pki.ca-cache.refresh-interval}.
+ * <p>
+ * Callers receive copies, so mutating a returned aggregate never leaks into the cache before it is saved.
+ */
+@Primary
+@Repository
+public class CachingCaRepository implements CaRepository {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final CaRepositoryAdapter delegate;
+    private final CaJpaRepository jpaRepository;
+    private final Cache<CaId, CertificateAuthority> byId;
+    private final Cache<CaAlias, CertificateAuthority> byAlias;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long versionStamp = -1;
+
+    public CachingCaRepository(CaRepositoryAdapter delegate,
+            CaJpaRepository jpaRepository,
+            MeterRegistry meterRegistry,
+            @Value("${pki.ca-cache.ttl:10m}") Duration ttl,
+            @Value("${pki.ca-cache.maximum-size:1000}") long maximumSize) {
+        this.delegate = delegate;
+        this.jpaRepository = jpaRepository;
+        this.byId = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).recordStats().build();
+        this.byAlias = Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maximumSize).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "pki.ca.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, byAlias, "pki.ca.by-alias");
+    }
+
+    @Override
+    public Optional<CertificateAuthority> findByAlias(CaAlias alias) {
+        return lookup(byAlias.getIfPresent(alias), () -> delegate.findByAlias(alias));
+    }
+
+    @Override
+    public Optional<CertificateAuthority> findById(CaId id) {
+        return lookup(byId.getIfPresent(id), () -> delegate.findById(id));
+    }
+
+    @Override
+    public List<CertificateAuthority> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<CertificateAuthority> findByParentId(CaId parentId) {
+        return delegate.findByParentId(parentId);
+    }
+
+    @Override
+    public CertificateAuthority save(CertificateAuthority ca) {
+        CertificateAuthority saved = delegate.save(ca);
+        generation.incrementAndGet();
+        byId.invalidate(saved.getId());
+        byAlias.invalidate(saved.getAlias());
+        return saved;
+    }
+
+    @Override
+    public boolean existsByAlias(CaAlias alias) {
+        return delegate.existsByAlias(alias);
+    }
+
+    @Scheduled(fixedDelayString = "${pki.ca-cache.refresh-interval:5s}")
+    public void refreshVersionStamp() {
+        try {
+            long current = jpaRepository.versionStamp();
+            if (current != versionStamp) {
+                invalidateAll();
+                versionStamp = current;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to poll CA version stamp, dropping cached CAs", e);
+            invalidateAll();
+        }
+    }
+
+    private Optional<CertificateAuthority> lookup(CertificateAuthority cached,
+            Supplier<Optional<CertificateAuthority>> loader) {
+        if (cached != null) {
+            return Optional.of(cached.copy());
+        }
+        long loadedIn = generation.get();
+        Optional<CertificateAuthority> loaded = loader.get();
+        // A load that raced with an invalidation may have read the old row; leave it uncached.
+        if (loaded.isPresent() && generation.get() == loadedIn) {
+            CertificateAuthority entry = loaded.get().copy();
+            byId.put(entry.getId(), entry);
+            byAlias.put(entry.getAlias(), entry);
+        }
+        return loaded;
+    }
+
+    private void invalidateAll() {
+        generation.incrementAndGet();
+        byId.invalidateAll();
+        byAlias.invalidateAll();
+    }
+}
@@ -0,0 +1,107 @@
+package io.dodn.springboot.core.domain.pki.ca.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.dodn.springboot.core.domain.pki.ca.CaChain;
+import io.dodn.springboot.core.domain.pki.ca.CaRepository;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
+import io.dodn.springboot.core.support.error.CoreException;
+import io.dodn.springboot.core.support.error.ErrorType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves CA chains from an in-memory snapshot of the CA tree, loaded with a single query and reloaded only when
+ * a CA unknown to it is asked for. A CA's certificate never changes after creation, so a resolved chain, with its
+ * encodings, is kept for the lifetime of the process.
+ * <p>
+ * Ids still missing after a reload are remembered for {@code pki.ca-chain.unknown-ttl}, and the tree is reloaded
+ * at most once per {@code pki.ca-chain.min-reload-interval}, so requests for ids that do not exist cannot turn
+ * into one full table read each.
+ */
+@Service
+public class CaChainService {
+
+    private static final String UNKNOWN_CACHE_NAME = "pki.ca-chain.unknown-id";
+
+    private final CaRepository caRepository;
+    private final Map<CaId, CaChain> chains = new ConcurrentHashMap<>();
+    private final Cache<CaId, Boolean> unknownIds;
+    private final long minReloadIntervalNanos;
+    private volatile Map<CaId, CertificateAuthority> tree = Map.of();
+    private long lastReload;
+
+    public CaChainService(CaRepository caRepository,
+            @Value("${pki.ca-chain.unknown-ttl:30s}") Duration unknownTtl,
+            @Value("${pki.ca-chain.unknown-maximum-size:10000}") long unknownMaximumSize,
+            @Value("${pki.ca-chain.min-reload-interval:1s}") Duration minReloadInterval,
+            MeterRegistry meterRegistry) {
+        this.caRepository = caRepository;
+        this.minReloadIntervalNanos = minReloadInterval.toNanos();
+        this.lastReload = System.nanoTime() - minReloadIntervalNanos;
+        this.unknownIds = Caffeine.newBuilder()
+                .expireAfterWrite(unknownTtl)
+                .maximumSize(unknownMaximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownIds, UNKNOWN_CACHE_NAME);
+    }
+
+    public CaChain getChain(CaId caId) {
+        CaChain chain = chains.get(caId);
+        if (chain != null) {
+            return chain;
+        }
+        // Resolved outside the map: a reload reads the database and must not run under a map bin lock.
+        CaChain resolved = resolve(caId);
+        CaChain existing = chains.putIfAbsent(caId, resolved);
+        return existing != null ? existing : resolved;
+    }
+
+    private CaChain resolve(CaId caId) {
+        Map<CaId, CertificateAuthority> snapshot = tree;
+        if (!snapshot.containsKey(caId) && unknownIds.getIfPresent(caId) == null) {
+            snapshot = reloadTree(caId);
+        }
+        CertificateAuthority ca = snapshot.get(caId);
+        if (ca == null) {
+            throw new CoreException(ErrorType.PKI_CA_NOT_FOUND, caId);
+        }
+        Deque<CertificatePem> certificates = new ArrayDeque<>();
+        for (CertificateAuthority current = ca; current != null;
+                current = current.isRoot() ? null : snapshot.get(current.getParentId())) {
+            certificates.addFirst(current.getCertificate());
+        }
+        return CaChain.of(caId, List.copyOf(certificates));
+    }
+
+    /** Only an id missing from a fresh reload is remembered as unknown, never one skipped by the rate limit. */
+    private synchronized Map<CaId, CertificateAuthority> reloadTree(CaId caId) {
+        Map<CaId, CertificateAuthority> snapshot = tree;
+        long now = System.nanoTime();
+        if (snapshot.containsKey(caId) || now - lastReload < minReloadIntervalNanos) {
+            return snapshot;
+        }
+        snapshot = caRepository.findAll().stream()
+                .collect(Collectors.toUnmodifiableMap(CertificateAuthority::getId, Function.identity()));
+        tree = snapshot;
+        lastReload = now;
+        if (!snapshot.containsKey(caId)) {
+            unknownIds.put(caId, Boolean.TRUE);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,65 @@
+package io.dodn.springboot.core.domain.pki.ca.service;
+
+import io.dodn.springboot.core.domain.pki.ca.CaRepository;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.crypto.CaKeyService;
+import io.dodn.springboot.core.domain.pki.vo.EncryptedPrivateKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Re-wraps stored CA private keys into the configured {@code pki.key-wrapping.mode} in the background.
+ */
+@Service
+public class CaKeyMigrationService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final CaRepository caRepository;
+    private final CaKeyService caKeyService;
+    private final boolean migrateOnStartup;
+
+    public CaKeyMigrationService(CaRepository caRepository,
+            CaKeyService caKeyService,
+            @Value("${pki.key-wrapping.migrate-on-startup:false}") boolean migrateOnStartup) {
+        this.caRepository = caRepository;
+        this.caKeyService = caKeyService;
+        this.migrateOnStartup = migrateOnStartup;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    public int migrate() {
+        int migrated = 0;
+        for (CertificateAuthority ca : caRepository.findAll()) {
+            if (!caKeyService.needsRewrap(ca.getPrivateKey())) {
+                continue;
+            }
+            try {
+                EncryptedPrivateKey rewrapped = caKeyService.rewrap(ca.getPrivateKey(),
+                        ca.getAlias().value(), ca.getKeyAlgorithm().getJcaAlgorithm());
+                ca.changePrivateKey(rewrapped);
+                caRepository.save(ca);
+                caKeyService.evict(ca.getId());
+                migrated++;
+            } catch (Exception e) {
+                log.error("Failed to re-wrap private key of CA {} : {}", ca.getAlias().value(), e.getMessage(), e);
+            }
+        }
+        if (migrated > 0) {
+            log.info("Re-wrapped {} CA private keys", migrated);
+        }
+        return migrated;
+    }
+}
@@ -2,11 +2,10 @@ package io.dodn.springboot.core.domain.pki.ca.service;
 
 import io.dodn.springboot.core.domain.pki.ca.CaAlias;
 import io.dodn.springboot.core.domain.pki.ca.CaRepository;
+import io.dodn.springboot.core.domain.pki.ca.CaRevokedEvent;
 import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
-import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
 import io.dodn.springboot.core.domain.pki.crypto.CaKeyService;
 import io.dodn.springboot.core.domain.pki.crypto.CertificateBuilderService;
-import io.dodn.springboot.core.domain.pki.crypto.CrlBuilderService;
 import io.dodn.springboot.core.domain.pki.vo.CaChainDepth;
 import io.dodn.springboot.core.domain.pki.vo.CaId;
 import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
@@ -19,38 +18,35 @@ import io.dodn.springboot.core.enums.pki.CaType;
 import io.dodn.springboot.core.support.error.CoreException;
 import io.dodn.springboot.core.support.error.ErrorType;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.security.KeyPair;
 import java.security.PrivateKey;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class CaManagementService {
 
     private final CaRepository caRepository;
-    private final IssuedCertificateRepository issuedCertificateRepository;
     private final CaKeyService caKeyService;
     private final CertificateBuilderService certBuilderService;
-    private final CrlBuilderService crlBuilderService;
+    private final ApplicationEventPublisher eventPublisher;
     private final String crlBaseUrl;
     private final int rootCaValidityDays;
     private final int subCaValidityDays;
 
     public CaManagementService(CaRepository caRepository,
-            IssuedCertificateRepository issuedCertificateRepository,
             CaKeyService caKeyService,
             CertificateBuilderService certBuilderService,
-            CrlBuilderService crlBuilderService,
+            ApplicationEventPublisher eventPublisher,
             @Value("${pki.crl-distribution-base-url}") String crlBaseUrl,
             @Value("${pki.default-validity-days.root-ca}") int rootCaValidityDays,
             @Value("${pki.default-validity-days.sub-ca}") int subCaValidityDays) {
         this.caRepository = caRepository;
-        this.issuedCertificateRepository = issuedCertificateRepository;
         this.caKeyService = caKeyService;
         this.certBuilderService = certBuilderService;
-        this.crlBuilderService = crlBuilderService;
+        this.eventPublisher = eventPublisher;
         this.crlBaseUrl = crlBaseUrl;
         this.rootCaValidityDays = rootCaValidityDays;
         this.subCaValidityDays = subCaValidityDays;
@@ -103,14 +99,11 @@ public class CaManagementService {
         CaChainDepth chainDepth = parentCa.maxIssuableDepth();
 
         EncryptedPrivateKey encPrivKey = caKeyService.encrypt(keyPair.getPrivate(), command.alias());
-        PrivateKey parentPrivKey = caKeyService.decrypt(parentCa.getPrivateKey(),
-                parentCa.getAlias().value(), parentCa.getKeyAlgorithm().getJcaAlgorithm());
-
-        String aiaUrl = crlBaseUrl + "/api/v1/pki/ca/" + parentCa.getId().value() + "/certificate";
+        PrivateKey parentPrivKey = caKeyService.decrypt(parentCa);
 
         CertificatePem certPem = certBuilderService.buildSubCaCertificate(
                 command.subjectDN(), serialNumber, validity, keyPair.getPublic(),
-                chainDepth, parentCa, parentPrivKey, crlDp, aiaUrl
+                chainDepth, certBuilderService.issuerContext(parentCa), parentPrivKey, crlDp
         );
 
         CaType type = chainDepth.pathLen() == 0 ? CaType.END_ENTITY_ISSUER : CaType.INTERMEDIATE;
@@ -124,28 +117,16 @@ public class CaManagementService {
         return caRepository.save(ca);
     }
 
-    public List<CertificateAuthority> getCaChain(CaId caId) {
+    public CertificateAuthority revokeCa(CaId caId) {
         CertificateAuthority ca = caRepository.findById(caId)
                 .orElseThrow(() -> new CoreException(ErrorType.PKI_CA_NOT_FOUND, caId));
-        List<CertificateAuthority> chain = new ArrayList<>();
-        CertificateAuthority current = ca;
-        while (current != null) {
-            chain.add(0, current);
-            if (current.isRoot()) {
-                break;
-            }
-            current = caRepository.findById(current.getParentId()).orElse(null);
+        if (ca.getStatus() == CaStatus.REVOKED) {
+            throw new CoreException(ErrorType.PKI_CA_NOT_ACTIVE, ca.getAlias().value());
         }
-        return chain;
-    }
-
-    public byte[] generateCrl(CaId caId) {
-        CertificateAuthority ca = caRepository.findById(caId)
-                .orElseThrow(() -> new CoreException(ErrorType.PKI_CA_NOT_FOUND, caId));
-        PrivateKey privateKey = caKeyService.decrypt(ca.getPrivateKey(),
-                ca.getAlias().value(), ca.getKeyAlgorithm().getJcaAlgorithm());
-        var revokedCerts = issuedCertificateRepository.findRevokedByIssuerId(ca.getId());
-        return crlBuilderService.buildCrl(ca, revokedCerts, privateKey);
+        ca.revoke();
+        CertificateAuthority saved = caRepository.save(ca);
+        eventPublisher.publishEvent(new CaRevokedEvent(saved.getId()));
+        return saved;
     }
 
     public List<CertificateAuthority> findAll() {
@@ -0,0 +1,12 @@
+package io.dodn.springboot.core.domain.pki.certificate;
+
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+
+import java.time.Instant;
+
+/**
+ * What an expiry scan needs of one issued certificate, read without loading the certificate itself.
+ */
+public record CertificateExpiryEntry(SerialNumber serialNumber, Instant notAfter, CertificateStatus status) {
+}
@@ -0,0 +1,13 @@
+package io.dodn.springboot.core.domain.pki.certificate;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+
+import java.time.Instant;
+
+public record CertificateIssuedEvent(CaId issuerId, SerialNumber serialNumber, Instant notAfter) {
+
+    public static CertificateIssuedEvent of(IssuedCertificate cert) {
+        return new CertificateIssuedEvent(cert.getIssuerId(), cert.getSerialNumber(), cert.getValidity().notAfter());
+    }
+}
@@ -0,0 +1,16 @@
+package io.dodn.springboot.core.domain.pki.certificate;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+
+import java.time.Instant;
+
+public record CertificateRevokedEvent(CaId issuerId, SerialNumber serialNumber, RevocationReason reason,
+        Instant revokedAt) {
+
+    public static CertificateRevokedEvent of(IssuedCertificate cert) {
+        return new CertificateRevokedEvent(cert.getIssuerId(), cert.getSerialNumber(), cert.getRevocationReason(),
+                cert.getRevokedAt());
+    }
+}
@@ -0,0 +1,14 @@
+package io.dodn.springboot.core.domain.pki.certificate;
+
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+
+import java.time.Instant;
+
+/**
+ * Revocation status of one issued certificate, read without loading the certificate itself.
+ */
+public record CertificateStatusEntry(SerialNumber serialNumber, CertificateStatus status, Instant revokedAt,
+        RevocationReason reason, Instant notAfter) {
+}
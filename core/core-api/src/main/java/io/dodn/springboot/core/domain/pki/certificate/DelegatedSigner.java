@@ -0,0 +1,17 @@
+package io.dodn.springboot.core.domain.pki.certificate;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.EncryptedPrivateKey;
+import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.DelegatedSignerPurpose;
+
+import java.time.Instant;
+
+/**
+ * The key of a certificate a CA delegates OCSP or CMP signing to. The certificate itself is stored as an
+ * {@link IssuedCertificate} under the same serial number.
+ */
+public record DelegatedSigner(CaId issuerId, DelegatedSignerPurpose purpose, SerialNumber serialNumber,
+        KeyAlgorithm keyAlgorithm, EncryptedPrivateKey privateKey, Instant notAfter) {
+}
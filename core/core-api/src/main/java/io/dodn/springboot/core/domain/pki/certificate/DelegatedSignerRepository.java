@@ -0,0 +1,17 @@
+package io.dodn.springboot.core.domain.pki.certificate;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
+import io.dodn.springboot.core.enums.pki.DelegatedSignerPurpose;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface DelegatedSignerRepository {
+
+    /** Signers whose certificate is still valid after {@code validAfter}, latest expiry first. */
+    List<DelegatedSigner> findValidAfter(CaId issuerId, DelegatedSignerPurpose purpose, KeyAlgorithm keyAlgorithm,
+            Instant validAfter);
+
+    DelegatedSigner save(DelegatedSigner signer);
+}
@@ -26,6 +26,7 @@ public class IssuedCertificate {
     private RevocationReason revocationReason;
     private Instant revokedAt;
     private CmpTransactionId cmpTransactionId;
+    private long version;
 
     public IssuedCertificate(IssuedCertificateId id, SerialNumber serialNumber, SubjectDN subjectDN,
             CaId issuerId, CertificatePem certificate, KeyAlgorithm keyAlgorithm,
@@ -75,4 +76,6 @@ public class IssuedCertificate {
     public RevocationReason getRevocationReason() { return revocationReason; }
     public Instant getRevokedAt() { return revokedAt; }
     public CmpTransactionId getCmpTransactionId() { return cmpTransactionId; }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 }
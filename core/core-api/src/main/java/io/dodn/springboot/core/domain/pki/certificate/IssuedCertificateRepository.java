@@ -1,18 +1,54 @@
 package io.dodn.springboot.core.domain.pki.certificate;
 
 import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.CmpTransactionId;
 import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface IssuedCertificateRepository {
 
     Optional<IssuedCertificate> findBySerialNumber(SerialNumber sn);
 
-    List<IssuedCertificate> findByIssuerId(CaId issuerId);
+    /** Certificates issued under a CMP transaction, in insertion order. */
+    List<IssuedCertificate> findByCmpTransactionId(CmpTransactionId txId);
 
-    List<IssuedCertificate> findRevokedByIssuerId(CaId issuerId);
+    Optional<CertificateStatusEntry> findStatusBySerialNumber(SerialNumber sn);
 
+    Optional<CertificateStatusEntry> findStatusBySerialNumber(SerialNumber sn, CaId issuerId);
+
+    /**
+     * Up to {@code limit} certificates still marked valid whose validity ended before {@code cutoff}.
+     */
+    List<CertificateExpiryEntry> findValidExpiredBefore(Instant cutoff, int limit);
+
+    /**
+     * Streams revocation entries through a database cursor. Must be consumed and closed inside a transaction.
+     */
+    Stream<RevokedCertificateEntry> streamRevokedByIssuerId(CaId issuerId);
+
+    Stream<RevokedCertificateEntry> streamRevokedByIssuerIdSince(CaId issuerId, Instant revokedSince);
+
+    Stream<CertificateStatusEntry> streamStatusesByIssuerId(CaId issuerId);
+
+    /**
+     * Inserts a certificate without an id; otherwise writes its status and revocation details, failing with
+     * {@link org.springframework.dao.OptimisticLockingFailureException} if the row changed since it was read.
+     */
     IssuedCertificate save(IssuedCertificate cert);
+
+    /**
+     * Revokes in one statement without reading the row first. Returns {@code false} if the issuer has no certificate
+     * with that serial left to revoke.
+     */
+    boolean revoke(SerialNumber sn, CaId issuerId, RevocationReason reason, Instant revokedAt);
+
+    /**
+     * Inserts new certificates as one JDBC batch and sets their generated ids.
+     */
+    List<IssuedCertificate> insertAll(List<IssuedCertificate> certs);
 }
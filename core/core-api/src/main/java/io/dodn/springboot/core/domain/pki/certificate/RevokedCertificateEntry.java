@@ -0,0 +1,12 @@
+package io.dodn.springboot.core.domain.pki.certificate;
+
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+
+import java.time.Instant;
+
+/**
+ * The three fields a CRL entry needs, read without loading the certificate itself.
+ */
+public record RevokedCertificateEntry(SerialNumber serialNumber, Instant revokedAt, RevocationReason reason) {
+}
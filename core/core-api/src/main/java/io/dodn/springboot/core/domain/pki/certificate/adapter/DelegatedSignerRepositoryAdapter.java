@@ -0,0 +1,48 @@
+package io.dodn.springboot.core.domain.pki.certificate.adapter;
+
+import io.dodn.springboot.core.domain.pki.certificate.DelegatedSigner;
+import io.dodn.springboot.core.domain.pki.certificate.DelegatedSignerRepository;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.EncryptedPrivateKey;
+import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.DelegatedSignerPurpose;
+import io.dodn.springboot.storage.db.core.pki.DelegatedSignerJpaEntity;
+import io.dodn.springboot.storage.db.core.pki.DelegatedSignerJpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public class DelegatedSignerRepositoryAdapter implements DelegatedSignerRepository {
+
+    private final DelegatedSignerJpaRepository jpaRepository;
+
+    public DelegatedSignerRepositoryAdapter(DelegatedSignerJpaRepository jpaRepository) {
+        this.jpaRepository = jpaRepository;
+    }
+
+    @Override
+    public List<DelegatedSigner> findValidAfter(CaId issuerId, DelegatedSignerPurpose purpose,
+            KeyAlgorithm keyAlgorithm, Instant validAfter) {
+        return jpaRepository.findByIssuerIdAndPurposeAndKeyAlgorithmTypeAndNotAfterAfterOrderByNotAfterDesc(
+                        issuerId.value(), purpose, keyAlgorithm.type(), validAfter).stream()
+                .map(this::toDomain)
+                .toList();
+    }
+
+    @Override
+    public DelegatedSigner save(DelegatedSigner signer) {
+        return toDomain(jpaRepository.save(new DelegatedSignerJpaEntity(signer.issuerId().value(), signer.purpose(),
+                signer.serialNumber().toHex(), signer.keyAlgorithm().type(), signer.privateKey().toBase64(),
+                signer.notAfter())));
+    }
+
+    private DelegatedSigner toDomain(DelegatedSignerJpaEntity e) {
+        return new DelegatedSigner(CaId.of(e.getIssuerId()), e.getPurpose(),
+                SerialNumber.of(new BigInteger(e.getSerialNumberHex(), 16)), new KeyAlgorithm(e.getKeyAlgorithmType()),
+                EncryptedPrivateKey.fromBase64(e.getEncryptedPrivateKeyBase64()), e.getNotAfter());
+    }
+}
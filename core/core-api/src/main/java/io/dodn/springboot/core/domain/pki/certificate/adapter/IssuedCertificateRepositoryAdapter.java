@@ -1,7 +1,10 @@
 package io.dodn.springboot.core.domain.pki.certificate.adapter;
 
+import io.dodn.springboot.core.domain.pki.certificate.CertificateExpiryEntry;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateStatusEntry;
 import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
 import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.certificate.RevokedCertificateEntry;
 import io.dodn.springboot.core.domain.pki.vo.CaId;
 import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
 import io.dodn.springboot.core.domain.pki.vo.CertificateValidity;
@@ -11,21 +14,32 @@ import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
 import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
 import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
 import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+import io.dodn.springboot.storage.db.core.pki.IssuedCertificateJdbcRepository;
 import io.dodn.springboot.storage.db.core.pki.IssuedCertificateJpaEntity;
 import io.dodn.springboot.storage.db.core.pki.IssuedCertificateJpaRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public class IssuedCertificateRepositoryAdapter implements IssuedCertificateRepository {
 
     private final IssuedCertificateJpaRepository jpaRepository;
+    private final IssuedCertificateJdbcRepository jdbcRepository;
 
-    public IssuedCertificateRepositoryAdapter(IssuedCertificateJpaRepository jpaRepository) {
+    public IssuedCertificateRepositoryAdapter(IssuedCertificateJpaRepository jpaRepository,
+            IssuedCertificateJdbcRepository jdbcRepository) {
         this.jpaRepository = jpaRepository;
+        this.jdbcRepository = jdbcRepository;
     }
 
     @Override
@@ -34,32 +48,82 @@ public class IssuedCertificateRepositoryAdapter implements IssuedCertificateRepo
     }
 
     @Override
-    public List<IssuedCertificate> findByIssuerId(CaId issuerId) {
-        return jpaRepository.findByIssuerId(issuerId.value()).stream().map(this::toDomain).toList();
+    public List<IssuedCertificate> findByCmpTransactionId(CmpTransactionId txId) {
+        return jpaRepository.findByCmpTransactionIdHexOrderByIdAsc(txId.toHex()).stream()
+                .map(this::toDomain)
+                .toList();
     }
 
     @Override
-    public List<IssuedCertificate> findRevokedByIssuerId(CaId issuerId) {
-        return jpaRepository.findByIssuerIdAndStatus(issuerId.value(), CertificateStatus.REVOKED)
-                .stream().map(this::toDomain).toList();
+    public Optional<CertificateStatusEntry> findStatusBySerialNumber(SerialNumber sn) {
+        return jpaRepository.findStatusBySerialNumberHex(sn.toHex())
+                .map(r -> new CertificateStatusEntry(sn, r.getStatus(), r.getRevokedAt(), r.getRevocationReason(),
+                        r.getNotAfter()));
+    }
+
+    @Override
+    public Optional<CertificateStatusEntry> findStatusBySerialNumber(SerialNumber sn, CaId issuerId) {
+        return jpaRepository.findStatusBySerialNumberHexAndIssuerId(sn.toHex(), issuerId.value())
+                .map(r -> new CertificateStatusEntry(sn, r.getStatus(), r.getRevokedAt(), r.getRevocationReason(),
+                        r.getNotAfter()));
+    }
+
+    @Override
+    public List<CertificateExpiryEntry> findValidExpiredBefore(Instant cutoff, int limit) {
+        return jpaRepository.findExpiring(CertificateStatus.VALID, cutoff, Limit.of(limit)).stream()
+                .map(r -> new CertificateExpiryEntry(SerialNumber.of(new BigInteger(r.getSerialNumberHex(), 16)),
+                        r.getNotAfter(), r.getStatus()))
+                .toList();
+    }
+
+    @Override
+    public Stream<RevokedCertificateEntry> streamRevokedByIssuerId(CaId issuerId) {
+        return streamRevokedByIssuerIdSince(issuerId, Instant.EPOCH);
+    }
+
+    @Override
+    public Stream<RevokedCertificateEntry> streamRevokedByIssuerIdSince(CaId issuerId, Instant revokedSince) {
+        return jpaRepository.streamRevoked(issuerId.value(), CertificateStatus.REVOKED, revokedSince)
+                .map(r -> new RevokedCertificateEntry(SerialNumber.of(new BigInteger(r.getSerialNumberHex(), 16)),
+                        r.getRevokedAt(), r.getRevocationReason()));
+    }
+
+    @Override
+    public Stream<CertificateStatusEntry> streamStatusesByIssuerId(CaId issuerId) {
+        return jpaRepository.streamStatuses(issuerId.value())
+                .map(r -> new CertificateStatusEntry(SerialNumber.of(new BigInteger(r.getSerialNumberHex(), 16)),
+                        r.getStatus(), r.getRevokedAt(), r.getRevocationReason(), r.getNotAfter()));
     }
 
     @Override
     public IssuedCertificate save(IssuedCertificate cert) {
-        IssuedCertificateJpaEntity entity;
-        if (cert.getId() != null) {
-            entity = jpaRepository.findById(cert.getId().value()).map(existing -> {
-                existing.setStatus(cert.getStatus());
-                existing.setRevocationReason(cert.getRevocationReason());
-                existing.setRevokedAt(cert.getRevokedAt());
-                existing.setCertificatePem(cert.getCertificate() != null ? cert.getCertificate().pem() : null);
-                return existing;
-            }).orElseGet(() -> toEntity(cert));
-        } else {
-            entity = toEntity(cert);
+        if (cert.getId() == null) {
+            return toDomain(jpaRepository.save(toEntity(cert)));
+        }
+        int updated = jpaRepository.updateState(cert.getId().value(), cert.getVersion(), cert.getStatus(),
+                cert.getRevocationReason(), cert.getRevokedAt(),
+                cert.getCertificate() != null ? cert.getCertificate().toDer() : null, LocalDateTime.now());
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException(
+                    "Issued certificate changed concurrently: " + cert.getSerialNumber().toHex());
+        }
+        cert.setVersion(cert.getVersion() + 1);
+        return cert;
+    }
+
+    @Override
+    public boolean revoke(SerialNumber sn, CaId issuerId, RevocationReason reason, Instant revokedAt) {
+        return jpaRepository.revoke(sn.toHex(), issuerId.value(), reason, revokedAt, LocalDateTime.now()) > 0;
+    }
+
+    @Override
+    @Transactional
+    public List<IssuedCertificate> insertAll(List<IssuedCertificate> certs) {
+        List<Long> ids = jdbcRepository.insertAll(certs.stream().map(this::toEntity).toList());
+        for (int i = 0; i < certs.size(); i++) {
+            certs.get(i).setId(IssuedCertificateId.of(ids.get(i)));
         }
-        IssuedCertificateJpaEntity saved = jpaRepository.save(entity);
-        return toDomain(saved);
+        return certs;
     }
 
     private IssuedCertificate toDomain(IssuedCertificateJpaEntity e) {
@@ -70,13 +134,13 @@ public class IssuedCertificateRepositoryAdapter implements IssuedCertificateRepo
             } catch (Exception ignored) {}
         }
 
-        return new IssuedCertificate(
+        IssuedCertificate cert = new IssuedCertificate(
                 IssuedCertificateId.of(e.getId()),
                 SerialNumber.of(new BigInteger(e.getSerialNumberHex(), 16)),
                 new SubjectDN(e.getSubjectDnCn(), e.getSubjectDnO(), e.getSubjectDnOu(),
                         e.getSubjectDnC(), e.getSubjectDnSt(), e.getSubjectDnL()),
                 CaId.of(e.getIssuerId()),
-                e.getCertificatePem() != null ? new CertificatePem(e.getCertificatePem()) : null,
+                CertificatePem.fromStored(e.getCertificateDer(), e.getCertificatePem()),
                 new KeyAlgorithm(e.getKeyAlgorithmType()),
                 new CertificateValidity(e.getNotBefore(), e.getNotAfter()),
                 e.getStatus(),
@@ -84,6 +148,8 @@ public class IssuedCertificateRepositoryAdapter implements IssuedCertificateRepo
                 e.getRevokedAt(),
                 txId
         );
+        cert.setVersion(e.getVersion());
+        return cert;
     }
 
     private IssuedCertificateJpaEntity toEntity(IssuedCertificate cert) {
@@ -97,7 +163,7 @@ public class IssuedCertificateRepositoryAdapter implements IssuedCertificateRepo
                 cert.getSubjectDN().st(),
                 cert.getSubjectDN().l(),
                 cert.getIssuerId().value(),
-                cert.getCertificate() != null ? cert.getCertificate().pem() : null,
+                cert.getCertificate() != null ? cert.getCertificate().toDer() : null,
                 cert.getKeyAlgorithm().type(),
                 cert.getValidity().notBefore(),
                 cert.getValidity().notAfter(),
@@ -0,0 +1,262 @@
+package io.dodn.springboot.core.domain.pki.certificate.service;
+
+import io.dodn.springboot.core.domain.pki.ca.CaRepository;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateIssuedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.crypto.CaKeyService;
+import io.dodn.springboot.core.domain.pki.crypto.CertificateBuilderService;
+import io.dodn.springboot.core.domain.pki.crypto.IssuerContext;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
+import io.dodn.springboot.core.domain.pki.vo.CertificateValidity;
+import io.dodn.springboot.core.domain.pki.vo.ExtKeyUsageExtension;
+import io.dodn.springboot.core.domain.pki.vo.KeyUsageExtension;
+import io.dodn.springboot.core.domain.pki.vo.SanExtension;
+import io.dodn.springboot.core.domain.pki.vo.SanValue;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.dodn.springboot.core.support.error.CoreException;
+import io.dodn.springboot.core.support.error.ErrorType;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.pkcs.Attribute;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Issues certificates from a stream of requests in fixed-size chunks: each chunk is decoded and signed in parallel
+ * on the bulk issuance pool, inserted as one JDBC batch, then handed to the result sink as one list before the next
+ * chunk is read, so memory use is bounded by the chunk size rather than the request size and callers can flush
+ * each chunk's results as soon as it is done.
+ */
+@Service
+public class BulkIssuanceService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final CaRepository caRepository;
+    private final IssuedCertificateRepository issuedCertificateRepository;
+    private final CaKeyService caKeyService;
+    private final CertificateBuilderService certBuilderService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ForkJoinPool pool;
+    private final int batchSize;
+    private final int endEntityValidityDays;
+
+    public BulkIssuanceService(CaRepository caRepository,
+            IssuedCertificateRepository issuedCertificateRepository,
+            CaKeyService caKeyService,
+            CertificateBuilderService certBuilderService,
+            ApplicationEventPublisher eventPublisher,
+            @Qualifier("bulkIssuancePool") ForkJoinPool pool,
+            @Value("${pki.bulk.batch-size:500}") int batchSize,
+            @Value("${pki.default-validity-days.end-entity}") int endEntityValidityDays) {
+        this.caRepository = caRepository;
+        this.issuedCertificateRepository = issuedCertificateRepository;
+        this.caKeyService = caKeyService;
+        this.certBuilderService = certBuilderService;
+        this.eventPublisher = eventPublisher;
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.endEntityValidityDays = endEntityValidityDays;
+    }
+
+    /**
+     * Resolves the issuing CA up front so that an unknown or inactive CA is reported before any result is streamed.
+     */
+    public CertificateAuthority requireIssuer(CaId caId) {
+        CertificateAuthority issuer = caRepository.findById(caId)
+                .orElseThrow(() -> new CoreException(ErrorType.PKI_CA_NOT_FOUND, caId));
+        if (!issuer.canIssue()) {
+            throw new CoreException(ErrorType.PKI_CA_NOT_ACTIVE, issuer.getAlias().value());
+        }
+        return issuer;
+    }
+
+    /**
+     * The issuer is re-read before every chunk, so a CA revoked or deactivated while a long request is streaming
+     * stops signing at the next chunk boundary: that chunk is answered as failed and the rest of the input is not
+     * read. Results already streamed stay issued.
+     */
+    public void issue(CertificateAuthority issuer, Iterator<BulkIssueRequest> requests,
+            Consumer<List<BulkIssueResult>> sink) {
+        PrivateKey issuerPrivKey = caKeyService.decrypt(issuer);
+        IssuerContext issuerContext = certBuilderService.issuerContext(issuer);
+
+        List<BulkIssueRequest> chunk = new ArrayList<>(batchSize);
+        int issued = 0;
+        while (requests.hasNext()) {
+            chunk.add(requests.next());
+            if (chunk.size() == batchSize || !requests.hasNext()) {
+                try {
+                    requireIssuer(issuer.getId());
+                } catch (CoreException e) {
+                    log.warn("Bulk issuance for CA {} stopped after {} certificates: {}",
+                            issuer.getAlias().value(), issued, e.getMessage());
+                    sink.accept(chunk.stream()
+                            .map(request -> BulkIssueResult.failed(request.ref(), e.getMessage()))
+                            .toList());
+                    return;
+                }
+                issued += issueChunk(issuer, issuerContext, issuerPrivKey, chunk, sink);
+                chunk.clear();
+            }
+        }
+        log.info("Bulk issuance for CA {} issued {} certificates", issuer.getAlias().value(), issued);
+    }
+
+    private int issueChunk(CertificateAuthority issuer, IssuerContext issuerContext, PrivateKey issuerPrivKey,
+            List<BulkIssueRequest> chunk, Consumer<List<BulkIssueResult>> sink) {
+        List<BulkIssueResult> results = pool.submit(() -> chunk.parallelStream()
+                .map(request -> sign(issuer, issuerContext, issuerPrivKey, request))
+                .toList()).join();
+
+        List<IssuedCertificate> certificates = results.stream()
+                .filter(BulkIssueResult::isIssued)
+                .map(BulkIssueResult::certificate)
+                .toList();
+        if (!certificates.isEmpty()) {
+            issuedCertificateRepository.insertAll(certificates);
+            certificates.forEach(cert -> eventPublisher.publishEvent(CertificateIssuedEvent.of(cert)));
+        }
+        sink.accept(results);
+        return certificates.size();
+    }
+
+    private BulkIssueResult sign(CertificateAuthority issuer, IssuerContext issuerContext, PrivateKey issuerPrivKey,
+            BulkIssueRequest request) {
+        if (request.invalidReason() != null) {
+            return BulkIssueResult.failed(request.ref(), request.invalidReason());
+        }
+        try {
+            IssueCertificateCommand command = toCommand(request);
+            SerialNumber serialNumber = SerialNumber.generate();
+            CertificateValidity validity = CertificateValidity.forDays(endEntityValidityDays);
+
+            CertificatePem certPem = certBuilderService.buildEndEntityCertificate(
+                    command.subjectDN(), serialNumber, validity, command.publicKey(),
+                    command.keyUsage(), command.extKeyUsage(), command.san(),
+                    issuerContext, issuerPrivKey
+            );
+
+            return BulkIssueResult.issued(request.ref(), new IssuedCertificate(
+                    null, serialNumber, command.subjectDN(), issuer.getId(), certPem,
+                    issuer.getKeyAlgorithm(), validity, CertificateStatus.VALID,
+                    null, null, null
+            ));
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return BulkIssueResult.failed(request.ref(), e.getMessage());
+        }
+    }
+
+    private IssueCertificateCommand toCommand(BulkIssueRequest request) {
+        if (request.pkcs10() != null) {
+            return fromCsr(request.pkcs10());
+        }
+        if (request.publicKeyInfo() == null || request.subjectDN() == null) {
+            throw new IllegalArgumentException("Request needs either a CSR or a subject and public key");
+        }
+        return new IssueCertificateCommand(
+                request.subjectDN(), toPublicKey(SubjectPublicKeyInfo.getInstance(request.publicKeyInfo())),
+                new KeyUsageExtension(Set.of()),
+                new ExtKeyUsageExtension(Set.of()),
+                request.san(),
+                null
+        );
+    }
+
+    private IssueCertificateCommand fromCsr(byte[] der) {
+        PKCS10CertificationRequest csr;
+        try {
+            csr = new PKCS10CertificationRequest(der);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Malformed PKCS#10 request");
+        }
+        try {
+            if (!csr.isSignatureValid(new JcaContentVerifierProviderBuilder().setProvider("BC")
+                    .build(csr.getSubjectPublicKeyInfo()))) {
+                throw new IllegalArgumentException("PKCS#10 signature is invalid");
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Failed to verify PKCS#10 signature");
+        }
+        return new IssueCertificateCommand(
+                SubjectDN.parse(csr.getSubject().toString()),
+                toPublicKey(csr.getSubjectPublicKeyInfo()),
+                new KeyUsageExtension(Set.of()),
+                new ExtKeyUsageExtension(Set.of()),
+                requestedSan(csr),
+                null
+        );
+    }
+
+    private static SanExtension requestedSan(PKCS10CertificationRequest csr) {
+        List<SanValue> values = new ArrayList<>();
+        for (Attribute attribute : csr.getAttributes(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest)) {
+            Extensions extensions = Extensions.getInstance(attribute.getAttrValues().getObjectAt(0));
+            GeneralNames names = GeneralNames.fromExtensions(extensions, Extension.subjectAlternativeName);
+            if (names == null) {
+                continue;
+            }
+            for (GeneralName name : names.getNames()) {
+                switch (name.getTagNo()) {
+                    case GeneralName.dNSName -> values.add(new SanValue.DnsName(name.getName().toString()));
+                    case GeneralName.rfc822Name -> values.add(new SanValue.EmailAddress(name.getName().toString()));
+                    case GeneralName.iPAddress -> values.add(new SanValue.IpAddress(
+                            toIpString(ASN1OctetString.getInstance(name.getName()).getOctets())));
+                    default -> {
+                    }
+                }
+            }
+        }
+        return new SanExtension(values);
+    }
+
+    private static String toIpString(byte[] address) {
+        try {
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid IP address in subjectAltName");
+        }
+    }
+
+    private static PublicKey toPublicKey(SubjectPublicKeyInfo publicKeyInfo) {
+        PublicKey publicKey;
+        try {
+            publicKey = BouncyCastleProvider.getPublicKey(publicKeyInfo);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unsupported public key");
+        }
+        if (publicKey == null) {
+            throw new IllegalArgumentException("Unsupported public key");
+        }
+        return publicKey;
+    }
+}
@@ -0,0 +1,30 @@
+package io.dodn.springboot.core.domain.pki.certificate.service;
+
+import io.dodn.springboot.core.domain.pki.vo.SanExtension;
+import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
+
+/**
+ * One entry of a bulk issuance: either a DER PKCS#10 request, or a subject, SAN and DER SubjectPublicKeyInfo.
+ * Decoding and proof-of-possession checks happen on the signing workers, not on the reader.
+ */
+public record BulkIssueRequest(
+        String ref,
+        byte[] pkcs10,
+        SubjectDN subjectDN,
+        SanExtension san,
+        byte[] publicKeyInfo,
+        String invalidReason
+) {
+    public static BulkIssueRequest ofCsr(String ref, byte[] pkcs10) {
+        return new BulkIssueRequest(ref, pkcs10, null, null, null, null);
+    }
+
+    public static BulkIssueRequest ofPublicKey(String ref, SubjectDN subjectDN, SanExtension san,
+            byte[] publicKeyInfo) {
+        return new BulkIssueRequest(ref, null, subjectDN, san, publicKeyInfo, null);
+    }
+
+    public static BulkIssueRequest invalid(String ref, String reason) {
+        return new BulkIssueRequest(ref, null, null, null, null, reason);
+    }
+}
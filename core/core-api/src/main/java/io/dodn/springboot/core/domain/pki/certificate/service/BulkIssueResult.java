@@ -0,0 +1,18 @@
+package io.dodn.springboot.core.domain.pki.certificate.service;
+
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
+
+public record BulkIssueResult(String ref, IssuedCertificate certificate, String error) {
+
+    public static BulkIssueResult issued(String ref, IssuedCertificate certificate) {
+        return new BulkIssueResult(ref, certificate, null);
+    }
+
+    public static BulkIssueResult failed(String ref, String error) {
+        return new BulkIssueResult(ref, null, error);
+    }
+
+    public boolean isIssued() {
+        return certificate != null;
+    }
+}
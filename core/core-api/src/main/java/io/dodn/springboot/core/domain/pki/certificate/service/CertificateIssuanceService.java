@@ -2,10 +2,13 @@ package io.dodn.springboot.core.domain.pki.certificate.service;
 
 import io.dodn.springboot.core.domain.pki.ca.CaRepository;
 import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateIssuedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateRevokedEvent;
 import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
 import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
 import io.dodn.springboot.core.domain.pki.crypto.CaKeyService;
 import io.dodn.springboot.core.domain.pki.crypto.CertificateBuilderService;
+import io.dodn.springboot.core.domain.pki.crypto.IssuerContext;
 import io.dodn.springboot.core.domain.pki.vo.CaId;
 import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
 import io.dodn.springboot.core.domain.pki.vo.CertificateValidity;
@@ -16,9 +19,14 @@ import io.dodn.springboot.core.enums.pki.RevocationReason;
 import io.dodn.springboot.core.support.error.CoreException;
 import io.dodn.springboot.core.support.error.ErrorType;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.security.PrivateKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 public class CertificateIssuanceService {
@@ -27,20 +35,20 @@ public class CertificateIssuanceService {
     private final IssuedCertificateRepository issuedCertificateRepository;
     private final CaKeyService caKeyService;
     private final CertificateBuilderService certBuilderService;
-    private final String crlBaseUrl;
+    private final ApplicationEventPublisher eventPublisher;
     private final int endEntityValidityDays;
 
     public CertificateIssuanceService(CaRepository caRepository,
             IssuedCertificateRepository issuedCertificateRepository,
             CaKeyService caKeyService,
             CertificateBuilderService certBuilderService,
-            @Value("${pki.crl-distribution-base-url}") String crlBaseUrl,
+            ApplicationEventPublisher eventPublisher,
             @Value("${pki.default-validity-days.end-entity}") int endEntityValidityDays) {
         this.caRepository = caRepository;
         this.issuedCertificateRepository = issuedCertificateRepository;
         this.caKeyService = caKeyService;
         this.certBuilderService = certBuilderService;
-        this.crlBaseUrl = crlBaseUrl;
+        this.eventPublisher = eventPublisher;
         this.endEntityValidityDays = endEntityValidityDays;
     }
 
@@ -51,17 +59,15 @@ public class CertificateIssuanceService {
             throw new CoreException(ErrorType.PKI_CA_NOT_ACTIVE, issuer.getAlias().value());
         }
 
-        PrivateKey issuerPrivKey = caKeyService.decrypt(issuer.getPrivateKey(),
-                issuer.getAlias().value(), issuer.getKeyAlgorithm().getJcaAlgorithm());
+        PrivateKey issuerPrivKey = caKeyService.decrypt(issuer);
 
         SerialNumber serialNumber = SerialNumber.generate();
         CertificateValidity validity = CertificateValidity.forDays(endEntityValidityDays);
-        String aiaUrl = crlBaseUrl + "/api/v1/pki/ca/" + issuer.getId().value() + "/certificate";
 
         CertificatePem certPem = certBuilderService.buildEndEntityCertificate(
                 command.subjectDN(), serialNumber, validity, command.publicKey(),
                 command.keyUsage(), command.extKeyUsage(), command.san(),
-                issuer, issuerPrivKey, issuer.getCrlDp(), aiaUrl
+                certBuilderService.issuerContext(issuer), issuerPrivKey
         );
 
         IssuedCertificate issuedCert = new IssuedCertificate(
@@ -70,19 +76,61 @@ public class CertificateIssuanceService {
                 null, null, command.cmpTransactionId()
         );
 
-        return issuedCertificateRepository.save(issuedCert);
+        IssuedCertificate saved = issuedCertificateRepository.save(issuedCert);
+        eventPublisher.publishEvent(CertificateIssuedEvent.of(saved));
+        return saved;
     }
 
-    public IssuedCertificate revokeCertificate(SerialNumber serialNumber, CaId caId, RevocationReason reason) {
-        IssuedCertificate cert = issuedCertificateRepository.findBySerialNumber(serialNumber)
-                .orElseThrow(() -> new CoreException(ErrorType.PKI_CERT_NOT_FOUND, serialNumber.toHex()));
-        if (!cert.getIssuerId().equals(caId)) {
-            throw new CoreException(ErrorType.PKI_CERT_NOT_FOUND, serialNumber.toHex());
+    /**
+     * Issues several certificates under one CA with a single key decryption, inserting them in one batch within
+     * one transaction. The issued events reach their transactional listeners only after that transaction commits.
+     */
+    @Transactional
+    public List<IssuedCertificate> issueCertificates(List<IssueCertificateCommand> commands, CaId caId) {
+        CertificateAuthority issuer = caRepository.findById(caId)
+                .orElseThrow(() -> new CoreException(ErrorType.PKI_CA_NOT_FOUND, caId));
+        if (!issuer.canIssue()) {
+            throw new CoreException(ErrorType.PKI_CA_NOT_ACTIVE, issuer.getAlias().value());
+        }
+
+        PrivateKey issuerPrivKey = caKeyService.decrypt(issuer);
+        IssuerContext issuerContext = certBuilderService.issuerContext(issuer);
+
+        List<IssuedCertificate> issued = new ArrayList<>(commands.size());
+        for (IssueCertificateCommand command : commands) {
+            SerialNumber serialNumber = SerialNumber.generate();
+            CertificateValidity validity = CertificateValidity.forDays(endEntityValidityDays);
+
+            CertificatePem certPem = certBuilderService.buildEndEntityCertificate(
+                    command.subjectDN(), serialNumber, validity, command.publicKey(),
+                    command.keyUsage(), command.extKeyUsage(), command.san(),
+                    issuerContext, issuerPrivKey
+            );
+
+            issued.add(new IssuedCertificate(
+                    null, serialNumber, command.subjectDN(), issuer.getId(), certPem,
+                    issuer.getKeyAlgorithm(), validity, CertificateStatus.VALID,
+                    null, null, command.cmpTransactionId()
+            ));
         }
-        if (cert.isRevoked()) {
-            throw new CoreException(ErrorType.PKI_CERT_ALREADY_REVOKED, serialNumber.toHex());
+
+        List<IssuedCertificate> saved = issuedCertificateRepository.insertAll(issued);
+        saved.forEach(cert -> eventPublisher.publishEvent(CertificateIssuedEvent.of(cert)));
+        return saved;
+    }
+
+    /**
+     * Revokes with a single conditional UPDATE; the certificate is only read to explain a revocation that matched
+     * nothing.
+     */
+    public void revokeCertificate(SerialNumber serialNumber, CaId caId, RevocationReason reason) {
+        Instant revokedAt = Instant.now();
+        if (!issuedCertificateRepository.revoke(serialNumber, caId, reason, revokedAt)) {
+            IssuedCertificate cert = issuedCertificateRepository.findBySerialNumber(serialNumber)
+                    .filter(found -> found.getIssuerId().equals(caId))
+                    .orElseThrow(() -> new CoreException(ErrorType.PKI_CERT_NOT_FOUND, serialNumber.toHex()));
+            throw new CoreException(ErrorType.PKI_CERT_ALREADY_REVOKED, cert.getSerialNumber().toHex());
         }
-        cert.revoke(reason);
-        return issuedCertificateRepository.save(cert);
+        eventPublisher.publishEvent(new CertificateRevokedEvent(caId, serialNumber, reason, revokedAt));
     }
 }
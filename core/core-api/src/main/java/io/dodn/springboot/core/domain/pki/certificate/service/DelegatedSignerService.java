@@ -0,0 +1,119 @@
+package io.dodn.springboot.core.domain.pki.certificate.service;
+
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateIssuedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.DelegatedSigner;
+import io.dodn.springboot.core.domain.pki.certificate.DelegatedSignerRepository;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.crypto.CaKeyService;
+import io.dodn.springboot.core.domain.pki.crypto.CertificateBuilderService;
+import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
+import io.dodn.springboot.core.domain.pki.vo.CertificateValidity;
+import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.dodn.springboot.core.enums.pki.DelegatedSignerPurpose;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Provides the OCSP responder and CMP protection certificates a CA delegates signing to. The certificate is stored
+ * in {@code issued_certificate} and its key, wrapped like CA keys, in {@code delegated_signer}, so every node and
+ * every restart reuses the same certificate until it is within {@code renewBefore} of expiry or revoked. Nodes
+ * renewing at the same moment may each issue one; both stay valid and later lookups pick the one expiring last.
+ */
+@Service
+public class DelegatedSignerService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final DelegatedSignerRepository delegatedSignerRepository;
+    private final IssuedCertificateRepository issuedCertificateRepository;
+    private final CaKeyService caKeyService;
+    private final CertificateBuilderService certBuilderService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public DelegatedSignerService(DelegatedSignerRepository delegatedSignerRepository,
+            IssuedCertificateRepository issuedCertificateRepository,
+            CaKeyService caKeyService,
+            CertificateBuilderService certBuilderService,
+            ApplicationEventPublisher eventPublisher) {
+        this.delegatedSignerRepository = delegatedSignerRepository;
+        this.issuedCertificateRepository = issuedCertificateRepository;
+        this.caKeyService = caKeyService;
+        this.certBuilderService = certBuilderService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public record Credential(X509Certificate certificate, PrivateKey privateKey) {
+    }
+
+    @Transactional
+    public Credential obtain(CertificateAuthority ca, DelegatedSignerPurpose purpose, KeyAlgorithm keyAlgorithm,
+            Duration validity, Duration renewBefore) {
+        Instant now = Instant.now();
+        for (DelegatedSigner signer : delegatedSignerRepository.findValidAfter(ca.getId(), purpose, keyAlgorithm,
+                now.plus(renewBefore))) {
+            Optional<IssuedCertificate> certificate = issuedCertificateRepository
+                    .findBySerialNumber(signer.serialNumber())
+                    .filter(cert -> cert.getStatus() == CertificateStatus.VALID);
+            if (certificate.isPresent()) {
+                PrivateKey privateKey = caKeyService.decrypt(signer.privateKey(), keyAlias(ca, purpose),
+                        keyAlgorithm.getJcaAlgorithm());
+                return new Credential(certificate.get().getCertificate().toX509Certificate(), privateKey);
+            }
+        }
+        return issue(ca, purpose, keyAlgorithm, validity);
+    }
+
+    private Credential issue(CertificateAuthority ca, DelegatedSignerPurpose purpose, KeyAlgorithm keyAlgorithm,
+            Duration validity) {
+        KeyPair keyPair = caKeyService.generateKeyPair(keyAlgorithm);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        CertificateValidity certValidity = new CertificateValidity(now, now.plus(validity));
+        SerialNumber serialNumber = SerialNumber.generate();
+        SubjectDN subject = subject(ca.getSubjectDN(), purpose);
+        CertificatePem certificate = switch (purpose) {
+            case OCSP -> certBuilderService.buildOcspResponderCertificate(subject, serialNumber, certValidity,
+                    keyPair.getPublic(), certBuilderService.issuerContext(ca), caKeyService.decrypt(ca));
+            case CMP -> certBuilderService.buildCmpProtectionCertificate(subject, serialNumber, certValidity,
+                    keyPair.getPublic(), certBuilderService.issuerContext(ca), caKeyService.decrypt(ca));
+        };
+
+        IssuedCertificate saved = issuedCertificateRepository.save(new IssuedCertificate(
+                null, serialNumber, subject, ca.getId(), certificate, keyAlgorithm, certValidity,
+                CertificateStatus.VALID, null, null, null));
+        delegatedSignerRepository.save(new DelegatedSigner(ca.getId(), purpose, serialNumber, keyAlgorithm,
+                caKeyService.encrypt(keyPair.getPrivate(), keyAlias(ca, purpose)), certValidity.notAfter()));
+        eventPublisher.publishEvent(CertificateIssuedEvent.of(saved));
+        log.info("Issued {} signer certificate {} for CA {}", purpose, serialNumber.toHex(), ca.getAlias().value());
+        return new Credential(certificate.toX509Certificate(), keyPair.getPrivate());
+    }
+
+    private static SubjectDN subject(SubjectDN caSubject, DelegatedSignerPurpose purpose) {
+        String suffix = switch (purpose) {
+            case OCSP -> " OCSP Responder";
+            case CMP -> " CMP Protection";
+        };
+        return new SubjectDN(caSubject.cn() + suffix, caSubject.o(), caSubject.ou(), caSubject.c(), caSubject.st(),
+                caSubject.l());
+    }
+
+    /** Binds the wrapped key to its CA and purpose, as CA keys are bound to their alias. */
+    private static String keyAlias(CertificateAuthority ca, DelegatedSignerPurpose purpose) {
+        return ca.getAlias().value() + "#" + purpose.name().toLowerCase();
+    }
+}
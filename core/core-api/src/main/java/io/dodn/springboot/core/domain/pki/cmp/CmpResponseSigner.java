@@ -0,0 +1,146 @@
+package io.dodn.springboot.core.domain.pki.cmp;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.cmp.CMPCertificate;
+import org.bouncycastle.asn1.cmp.InfoTypeAndValue;
+import org.bouncycastle.asn1.cmp.PKIHeader;
+import org.bouncycastle.asn1.cmp.PKIHeaderBuilder;
+import org.bouncycastle.asn1.cmp.PKIMessage;
+import org.bouncycastle.asn1.cmp.ProtectedPart;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.SubjectKeyIdentifier;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.io.OutputStream;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Signs CMP responses for one CA with a dedicated protection key, whose certificate and the CA certificate are
+ * sent in extraCerts. Initialized signers are pooled: a JCA signature returns to its initialized state after
+ * producing a value, so a released signer is reused instead of re-running key setup for every response.
+ */
+public final class CmpResponseSigner {
+
+    private final CaId caId;
+    private final PrivateKey protectionKey;
+    private final JcaContentSignerBuilder signerBuilder;
+    private final AlgorithmIdentifier protectionAlg;
+    private final GeneralName sender;
+    private final ASN1OctetString senderKid;
+    private final CMPCertificate[] extraCerts;
+    private final Instant notAfter;
+    private final int poolSize;
+    private final BlockingQueue<ContentSigner> idleSigners;
+
+    private CmpResponseSigner(CaId caId, PrivateKey protectionKey, JcaContentSignerBuilder signerBuilder,
+            AlgorithmIdentifier protectionAlg, X509CertificateHolder protectionCert, X509CertificateHolder caCert,
+            int poolSize) {
+        this.caId = caId;
+        this.protectionKey = protectionKey;
+        this.signerBuilder = signerBuilder;
+        this.protectionAlg = protectionAlg;
+        this.sender = new GeneralName(protectionCert.getSubject());
+        SubjectKeyIdentifier ski = SubjectKeyIdentifier.fromExtensions(protectionCert.getExtensions());
+        this.senderKid = ski != null ? new DEROctetString(ski.getKeyIdentifier()) : null;
+        this.extraCerts = new CMPCertificate[]{
+                new CMPCertificate(protectionCert.toASN1Structure()), new CMPCertificate(caCert.toASN1Structure())};
+        this.notAfter = protectionCert.getNotAfter().toInstant();
+        this.poolSize = poolSize;
+        this.idleSigners = new ArrayBlockingQueue<>(Math.max(poolSize, 1));
+    }
+
+    public static CmpResponseSigner create(CaId caId, X509Certificate caCertificate,
+            X509Certificate protectionCertificate, PrivateKey protectionKey, String signatureAlgorithm,
+            int poolSize) {
+        try {
+            JcaContentSignerBuilder signerBuilder = new JcaContentSignerBuilder(signatureAlgorithm).setProvider("BC");
+            ContentSigner first = signerBuilder.build(protectionKey);
+            CmpResponseSigner signer = new CmpResponseSigner(caId, protectionKey, signerBuilder,
+                    first.getAlgorithmIdentifier(), new JcaX509CertificateHolder(protectionCertificate),
+                    new JcaX509CertificateHolder(caCertificate), poolSize);
+            if (poolSize > 0) {
+                signer.idleSigners.offer(first);
+            }
+            return signer;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialize CMP response signer for CA: " + caId.value(), e);
+        }
+    }
+
+    /**
+     * Returns {@code response} with the protection key's subject as sender, its key identifier as senderKID and a
+     * signature over the protected part.
+     */
+    public PKIMessage protect(PKIMessage response) {
+        PKIHeader header = protectionHeader(response.getHeader(), sender, protectionAlg, senderKid);
+        ContentSigner signer = borrow();
+        try {
+            try (OutputStream out = signer.getOutputStream()) {
+                out.write(new ProtectedPart(header, response.getBody()).getEncoded(ASN1Encoding.DER));
+            }
+            DERBitString signature = new DERBitString(signer.getSignature());
+            if (poolSize > 0) {
+                idleSigners.offer(signer);
+            }
+            return new PKIMessage(header, response.getBody(), signature, extraCerts);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to sign CMP response for CA: " + caId.value(), e);
+        }
+    }
+
+    public boolean needsRenewal(Instant now, Duration renewBefore) {
+        return !now.plus(renewBefore).isBefore(notAfter);
+    }
+
+    public CaId getCaId() {
+        return caId;
+    }
+
+    /**
+     * Copy of {@code header} carrying the given protection algorithm; {@code sender} and {@code senderKid} replace
+     * the original values when not null.
+     */
+    public static PKIHeader protectionHeader(PKIHeader header, GeneralName sender, AlgorithmIdentifier protectionAlg,
+            ASN1OctetString senderKid) {
+        PKIHeaderBuilder builder = new PKIHeaderBuilder(header.getPvno().intValueExact(),
+                sender != null ? sender : header.getSender(), header.getRecipient());
+        builder.setMessageTime(header.getMessageTime());
+        builder.setProtectionAlg(protectionAlg);
+        builder.setSenderKID(senderKid != null ? senderKid : header.getSenderKID());
+        builder.setRecipKID(header.getRecipKID());
+        builder.setTransactionID(header.getTransactionID());
+        builder.setSenderNonce(header.getSenderNonce());
+        builder.setRecipNonce(header.getRecipNonce());
+        builder.setFreeText(header.getFreeText());
+        InfoTypeAndValue[] generalInfo = header.getGeneralInfo();
+        if (generalInfo != null) {
+            builder.setGeneralInfo(generalInfo);
+        }
+        return builder.build();
+    }
+
+    private ContentSigner borrow() {
+        ContentSigner signer = idleSigners.poll();
+        if (signer != null) {
+            return signer;
+        }
+        try {
+            return signerBuilder.build(protectionKey);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to create CMP response signer for CA: " + caId.value(), e);
+        }
+    }
+}
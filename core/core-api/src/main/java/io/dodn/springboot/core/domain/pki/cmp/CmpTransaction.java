@@ -14,6 +14,8 @@ public class CmpTransaction {
     private CmpBodyType requestType;
     private CmpTransactionStatus status;
     private String errorInfo;
+    /** Row version once stored; {@code null} for a transaction that was never saved. */
+    private Long version;
 
     public CmpTransaction(CmpTransactionId transactionId, String sender, Nonce senderNonce,
             CmpBodyType requestType) {
@@ -49,6 +51,10 @@ public class CmpTransaction {
         this.errorInfo = reason;
     }
 
+    public boolean isFinished() {
+        return status == CmpTransactionStatus.COMPLETED || status == CmpTransactionStatus.FAILED;
+    }
+
     public boolean isWaitingConfirm() {
         return status == CmpTransactionStatus.WAITING_CONFIRM;
     }
@@ -64,4 +70,6 @@ public class CmpTransaction {
     public CmpBodyType getRequestType() { return requestType; }
     public CmpTransactionStatus getStatus() { return status; }
     public String getErrorInfo() { return errorInfo; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -9,4 +9,9 @@ public interface CmpTransactionRepository {
     Optional<CmpTransaction> findByTransactionId(CmpTransactionId id);
 
     CmpTransaction save(CmpTransaction tx);
+
+    /**
+     * Completes a transaction waiting for certConf. Returns {@code false} if it is unknown or not waiting.
+     */
+    boolean confirm(CmpTransactionId id);
 }
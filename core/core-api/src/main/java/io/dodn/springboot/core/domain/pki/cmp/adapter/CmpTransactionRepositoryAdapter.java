@@ -4,11 +4,17 @@ import io.dodn.springboot.core.domain.pki.cmp.CmpTransaction;
 import io.dodn.springboot.core.domain.pki.cmp.CmpTransactionRepository;
 import io.dodn.springboot.core.domain.pki.vo.CmpTransactionId;
 import io.dodn.springboot.core.domain.pki.vo.Nonce;
+import io.dodn.springboot.core.enums.pki.CmpTransactionStatus;
 import io.dodn.springboot.storage.db.core.pki.CmpTransactionJpaEntity;
 import io.dodn.springboot.storage.db.core.pki.CmpTransactionJpaRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -25,20 +31,45 @@ public class CmpTransactionRepositoryAdapter implements CmpTransactionRepository
         return jpaRepository.findByTransactionIdHex(id.toHex()).map(this::toDomain);
     }
 
+    /**
+     * Inserts a transaction never saved before and updates a loaded one against its version, neither reading the
+     * row first. An insert that hits an existing transactionID, e.g. a retransmitted request, overwrites that row.
+     */
     @Override
     public CmpTransaction save(CmpTransaction tx) {
-        CmpTransactionJpaEntity entity = jpaRepository.findByTransactionIdHex(tx.getTransactionId().toHex())
-                .map(existing -> {
-                    existing.setStatus(tx.getStatus());
-                    existing.setErrorInfo(tx.getErrorInfo());
-                    if (tx.getRecipientNonce() != null) {
-                        existing.setRecipientNonceHex(tx.getRecipientNonce().toHex());
-                    }
-                    return existing;
-                })
-                .orElseGet(() -> toEntity(tx));
-        CmpTransactionJpaEntity saved = jpaRepository.save(entity);
-        return toDomain(saved);
+        if (tx.getVersion() == null) {
+            try {
+                return toDomain(jpaRepository.save(toEntity(tx)));
+            } catch (DataIntegrityViolationException duplicate) {
+                long storedVersion = jpaRepository.findByTransactionIdHex(tx.getTransactionId().toHex())
+                        .map(CmpTransactionJpaEntity::getVersion)
+                        .orElseThrow(() -> duplicate);
+                tx.setVersion(storedVersion);
+            }
+        }
+        String recipientNonceHex = tx.getRecipientNonce() != null ? tx.getRecipientNonce().toHex() : null;
+        int updated = jpaRepository.updateState(tx.getTransactionId().toHex(), tx.getVersion(), tx.getStatus(),
+                tx.getErrorInfo(), recipientNonceHex, LocalDateTime.now());
+        if (updated == 0) {
+            throw new OptimisticLockingFailureException(
+                    "CMP transaction changed concurrently: " + tx.getTransactionId().toHex());
+        }
+        tx.setVersion(tx.getVersion() + 1);
+        return tx;
+    }
+
+    @Override
+    public boolean confirm(CmpTransactionId id) {
+        return jpaRepository.transition(id.toHex(), CmpTransactionStatus.WAITING_CONFIRM,
+                CmpTransactionStatus.COMPLETED, LocalDateTime.now()) > 0;
+    }
+
+    /**
+     * Inserts transactions that were never written before, e.g. those flushed by the in-memory store.
+     */
+    @Transactional
+    public void insertAll(List<CmpTransaction> txs) {
+        jpaRepository.saveAll(txs.stream().map(this::toEntity).toList());
     }
 
     private CmpTransaction toDomain(CmpTransactionJpaEntity e) {
@@ -47,8 +78,10 @@ public class CmpTransactionRepositoryAdapter implements CmpTransactionRepository
         Nonce recipientNonce = e.getRecipientNonceHex() != null ?
                 Nonce.fromBytes(HexFormat.of().parseHex(e.getRecipientNonceHex())) : null;
 
-        return new CmpTransaction(txId, e.getSender(), senderNonce, recipientNonce,
+        CmpTransaction tx = new CmpTransaction(txId, e.getSender(), senderNonce, recipientNonce,
                 e.getRequestType(), e.getStatus(), e.getErrorInfo());
+        tx.setVersion(e.getVersion());
+        return tx;
     }
 
     private CmpTransactionJpaEntity toEntity(CmpTransaction tx) {
@@ -0,0 +1,150 @@
+package io.dodn.springboot.core.domain.pki.cmp.adapter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.dodn.springboot.core.domain.pki.cmp.CmpTransaction;
+import io.dodn.springboot.core.domain.pki.cmp.CmpTransactionRepository;
+import io.dodn.springboot.core.domain.pki.vo.CmpTransactionId;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * CMP transaction store kept in memory for the few seconds a transaction lives, enabled with
+ * {@code pki.cmp.transaction-store=memory}. Finished transactions, and those that expire before certConf, are
+ * written to {@code cmp_transaction} in the background for audit. Transactions in flight are lost on restart.
+ * <p>
+ * A transaction waiting for certConf lives only on the node that issued it. certConf for a transaction this node
+ * does not hold is passed to the database, which covers rows written there by the database store, but with several
+ * nodes CMP requests must be routed to the same node by transactionID for the confirmation to be found.
+ */
+@Primary
+@Repository
+@ConditionalOnProperty(name = "pki.cmp.transaction-store", havingValue = "memory")
+public class InMemoryCmpTransactionRepository implements CmpTransactionRepository {
+
+    private static final String CACHE_NAME = "pki.cmp.transaction";
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Cache<CmpTransactionId, CmpTransaction> transactions;
+    private final BlockingQueue<CmpTransaction> pendingWrites;
+    private final CmpTransactionRepositoryAdapter database;
+
+    public InMemoryCmpTransactionRepository(CmpTransactionRepositoryAdapter database,
+            MeterRegistry meterRegistry,
+            @Value("${pki.cmp.transaction-ttl:5m}") Duration ttl,
+            @Value("${pki.cmp.transaction-maximum-size:100000}") long maximumSize,
+            @Value("${pki.cmp.write-behind.queue-capacity:10000}") int queueCapacity) {
+        this.database = database;
+        this.pendingWrites = new LinkedBlockingQueue<>(queueCapacity);
+        this.transactions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .removalListener((CmpTransactionId id, CmpTransaction tx, RemovalCause cause) -> {
+                    if (tx != null && cause.wasEvicted() && !tx.isFinished()) {
+                        tx.fail("Transaction expired before confirmation");
+                        enqueue(tx);
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, transactions, CACHE_NAME);
+        Gauge.builder("pki.cmp.transaction.write-behind.size", pendingWrites, BlockingQueue::size)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<CmpTransaction> findByTransactionId(CmpTransactionId id) {
+        return Optional.ofNullable(transactions.getIfPresent(id)).map(InMemoryCmpTransactionRepository::copy);
+    }
+
+    /** Stores a copy, so a caller mutating its instance is not seen until it saves, as with the database. */
+    @Override
+    public CmpTransaction save(CmpTransaction tx) {
+        CmpTransaction stored = copy(tx);
+        CmpTransaction previous = transactions.asMap().put(stored.getTransactionId(), stored);
+        boolean alreadyQueued = previous != null && previous.isFinished();
+        if (stored.isFinished() && !alreadyQueued) {
+            enqueue(stored);
+        }
+        return tx;
+    }
+
+    @Override
+    public boolean confirm(CmpTransactionId id) {
+        CmpTransaction[] confirmed = new CmpTransaction[1];
+        transactions.asMap().computeIfPresent(id, (key, stored) -> {
+            if (!stored.isWaitingConfirm()) {
+                return stored;
+            }
+            CmpTransaction completed = copy(stored);
+            completed.complete();
+            confirmed[0] = completed;
+            return completed;
+        });
+        if (confirmed[0] == null) {
+            return transactions.getIfPresent(id) == null && database.confirm(id);
+        }
+        enqueue(confirmed[0]);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${pki.cmp.write-behind.interval:1s}")
+    public void flush() {
+        List<CmpTransaction> batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+        while (pendingWrites.drainTo(batch, FLUSH_BATCH_SIZE) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /** Writes inline rather than dropping the audit record when the write-behind queue is full. */
+    private void enqueue(CmpTransaction tx) {
+        if (!pendingWrites.offer(tx)) {
+            write(List.of(tx));
+        }
+    }
+
+    /** Falls back to row-by-row inserts so one bad row, e.g. a reused transactionID, does not lose the batch. */
+    private void write(List<CmpTransaction> batch) {
+        try {
+            database.insertAll(batch);
+        } catch (Exception e) {
+            for (CmpTransaction tx : batch) {
+                try {
+                    database.insertAll(List.of(tx));
+                } catch (Exception rowFailure) {
+                    log.error("Failed to persist CMP transaction {}", tx.getTransactionId().toHex(), rowFailure);
+                }
+            }
+        }
+    }
+
+    private static CmpTransaction copy(CmpTransaction tx) {
+        return new CmpTransaction(tx.getTransactionId(), tx.getSender(), tx.getSenderNonce(),
+                tx.getRecipientNonce(), tx.getRequestType(), tx.getStatus(), tx.getErrorInfo());
+    }
+}
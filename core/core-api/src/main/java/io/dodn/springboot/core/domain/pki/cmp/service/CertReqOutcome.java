@@ -0,0 +1,23 @@
+package io.dodn.springboot.core.domain.pki.cmp.service;
+
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
+
+import java.math.BigInteger;
+
+/**
+ * Result for one CertReqMsg of an ir/cr; becomes one CertResponse echoing the request's certReqId.
+ */
+public record CertReqOutcome(BigInteger certReqId, IssuedCertificate certificate, String failureText) {
+
+    public static CertReqOutcome granted(BigInteger certReqId, IssuedCertificate certificate) {
+        return new CertReqOutcome(certReqId, certificate, null);
+    }
+
+    public static CertReqOutcome rejected(BigInteger certReqId, String failureText) {
+        return new CertReqOutcome(certReqId, null, failureText);
+    }
+
+    public boolean isGranted() {
+        return certificate != null;
+    }
+}
@@ -0,0 +1,165 @@
+package io.dodn.springboot.core.domain.pki.cmp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.cmp.CmpTransactionRepository;
+import io.dodn.springboot.core.domain.pki.vo.CmpTransactionId;
+import io.dodn.springboot.core.enums.pki.CmpBodyType;
+import io.dodn.springboot.core.support.error.CoreException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bouncycastle.asn1.cmp.PKIMessage;
+import org.bouncycastle.asn1.cmp.PollReqContent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous enrollment (RFC 4210 section 5.3.22). Issuance runs on the bounded {@code cmpIssuanceExecutor};
+ * the outcome is kept per transactionID until it expires, and the ip/cp is built when the client polls for it so
+ * that its header answers the pollReq.
+ * <p>
+ * Outcomes are held by the node that accepted the request, in a cache bounded by {@code pki.cmp.async.maximum-size}.
+ * A pollReq that misses it (another node, a restart or an evicted entry) is answered from the certificates stored
+ * under the transactionID once the issuance has committed. While it is still running only the accepting node
+ * knows about it, so a load balancer in front of several nodes should route CMP requests by transactionID.
+ */
+@Service
+public class CmpAsyncEnrollmentService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Cache<CmpTransactionId, PendingEnrollment> enrollments;
+    private final ThreadPoolTaskExecutor executor;
+    private final CmpMessageBuilder messageBuilder;
+    private final IssuedCertificateRepository issuedCertificateRepository;
+    private final CmpTransactionRepository cmpTransactionRepository;
+    private final boolean enabled;
+    private final Duration checkAfter;
+
+    public CmpAsyncEnrollmentService(@Qualifier("cmpIssuanceExecutor") ThreadPoolTaskExecutor executor,
+            CmpMessageBuilder messageBuilder,
+            IssuedCertificateRepository issuedCertificateRepository,
+            CmpTransactionRepository cmpTransactionRepository,
+            MeterRegistry meterRegistry,
+            @Value("${pki.cmp.async.enabled:false}") boolean enabled,
+            @Value("${pki.cmp.async.check-after:5s}") Duration checkAfter,
+            @Value("${pki.cmp.async.result-ttl:10m}") Duration resultTtl,
+            @Value("${pki.cmp.async.maximum-size:10000}") long maximumSize) {
+        this.executor = executor;
+        this.messageBuilder = messageBuilder;
+        this.issuedCertificateRepository = issuedCertificateRepository;
+        this.cmpTransactionRepository = cmpTransactionRepository;
+        this.enabled = enabled;
+        this.checkAfter = checkAfter;
+        this.enrollments = Caffeine.newBuilder()
+                .expireAfterWrite(resultTtl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, enrollments, "pki.cmp.enrollment");
+        Gauge.builder("pki.cmp.issuance.queue.size", executor,
+                        e -> e.getThreadPoolExecutor().getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("pki.cmp.issuance.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+        Gauge.builder("pki.cmp.enrollment.pending", enrollments, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public byte[] submit(PKIMessage request, CmpTransactionId txId, List<BigInteger> certReqIds, boolean isIr,
+            Supplier<List<CertReqOutcome>> issuance) {
+        PendingEnrollment enrollment = new PendingEnrollment(certReqIds, isIr);
+        if (enrollments.asMap().putIfAbsent(txId, enrollment) != null) {
+            return messageBuilder.buildErrorResponse(request, "Transaction ID already in use");
+        }
+        try {
+            executor.execute(() -> enrollment.run(issuance));
+        } catch (TaskRejectedException e) {
+            enrollments.invalidate(txId);
+            return messageBuilder.buildErrorResponse(request, "Issuance queue is full, retry later");
+        }
+        return messageBuilder.buildWaitingResponse(request, certReqIds, isIr);
+    }
+
+    public byte[] poll(PKIMessage request, CmpTransactionId txId) {
+        PendingEnrollment enrollment = enrollments.getIfPresent(txId);
+        if (enrollment == null) {
+            return fromStoredCertificates(request, txId);
+        }
+        if (!enrollment.isDone()) {
+            return messageBuilder.buildPollRepResponse(request, enrollment.certReqIds, checkAfter);
+        }
+        if (enrollment.failure != null) {
+            return messageBuilder.buildErrorResponse(request, enrollment.failure);
+        }
+        return messageBuilder.buildIpCpResponse(request, enrollment.outcomes, enrollment.isIr);
+    }
+
+    /**
+     * Rebuilds the ip/cp from the certificates stored under the transactionID. They are matched to the polled
+     * certReqIds in order, which only holds if every request was granted; anything else is answered with an error.
+     */
+    private byte[] fromStoredCertificates(PKIMessage request, CmpTransactionId txId) {
+        List<BigInteger> certReqIds = Arrays.asList(
+                PollReqContent.getInstance(request.getBody().getContent()).getCertReqIdValues());
+        List<IssuedCertificate> issued = issuedCertificateRepository.findByCmpTransactionId(txId);
+        if (issued.isEmpty() || issued.size() != certReqIds.size()) {
+            return messageBuilder.buildErrorResponse(request, "No pending enrollment for transaction");
+        }
+        List<CertReqOutcome> outcomes = new ArrayList<>(issued.size());
+        for (int i = 0; i < issued.size(); i++) {
+            outcomes.add(CertReqOutcome.granted(certReqIds.get(i), issued.get(i)));
+        }
+        boolean isIr = cmpTransactionRepository.findByTransactionId(txId)
+                .map(tx -> tx.getRequestType() == CmpBodyType.IR)
+                .orElse(true);
+        return messageBuilder.buildIpCpResponse(request, outcomes, isIr);
+    }
+
+    private final class PendingEnrollment {
+
+        private final List<BigInteger> certReqIds;
+        private final boolean isIr;
+        private volatile List<CertReqOutcome> outcomes;
+        private volatile String failure;
+
+        private PendingEnrollment(List<BigInteger> certReqIds, boolean isIr) {
+            this.certReqIds = certReqIds;
+            this.isIr = isIr;
+        }
+
+        private void run(Supplier<List<CertReqOutcome>> issuance) {
+            try {
+                outcomes = issuance.get();
+            } catch (CoreException e) {
+                failure = e.getMessage();
+            } catch (Exception e) {
+                log.error("Asynchronous CMP enrollment failed", e);
+                failure = "Internal processing error";
+            }
+        }
+
+        private boolean isDone() {
+            return outcomes != null || failure != null;
+        }
+    }
+}
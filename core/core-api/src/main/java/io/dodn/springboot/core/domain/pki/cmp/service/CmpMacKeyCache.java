@@ -0,0 +1,54 @@
+package io.dodn.springboot.core.domain.pki.cmp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Derived CMP MAC keys keyed by everything the derivation depends on, so that a client reusing its salt pays for
+ * PBKDF2 / the OWF iterations once rather than on every message. The shared secret is part of the key as a SHA-256
+ * digest, so a rotated secret never verifies against a key derived from the old one.
+ */
+@Component
+public class CmpMacKeyCache {
+
+    private static final String CACHE_NAME = "pki.cmp.mac-key";
+
+    private final Cache<CacheKey, byte[]> cache;
+
+    public CmpMacKeyCache(MeterRegistry meterRegistry, CmpProtectionProperties properties) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.cacheTtl())
+                .maximumSize(10_000)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public byte[] get(String senderKid, byte[] secret, ASN1ObjectIdentifier derivation, byte[] salt, int iterations,
+            int keyLength, Supplier<byte[]> deriver) {
+        CacheKey key = new CacheKey(senderKid, sha256Hex(secret), derivation, HexFormat.of().formatHex(salt),
+                iterations, keyLength);
+        return cache.get(key, k -> deriver.get());
+    }
+
+    private static String sha256Hex(byte[] secret) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(secret));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CacheKey(String senderKid, String secretHash, ASN1ObjectIdentifier derivation, String saltHex,
+            int iterations, int keyLength) {
+    }
+}
@@ -1,7 +1,9 @@
 package io.dodn.springboot.core.domain.pki.cmp.service;
 
-import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1EncodableVector;
 import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DERSequence;
 import org.bouncycastle.asn1.DERUTF8String;
 import org.bouncycastle.asn1.cmp.CMPCertificate;
 import org.bouncycastle.asn1.cmp.CertOrEncCert;
@@ -15,9 +17,8 @@ import org.bouncycastle.asn1.cmp.PKIHeaderBuilder;
 import org.bouncycastle.asn1.cmp.PKIMessage;
 import org.bouncycastle.asn1.cmp.PKIStatus;
 import org.bouncycastle.asn1.cmp.PKIStatusInfo;
-import org.bouncycastle.asn1.ASN1EncodableVector;
-import org.bouncycastle.asn1.DERSequence;
-import org.bouncycastle.asn1.cmp.RevRepContent;
+import org.bouncycastle.asn1.cmp.PollRepContent;
+import org.bouncycastle.asn1.cmp.RevRepContentBuilder;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.GeneralName;
 import org.bouncycastle.cert.cmp.GeneralPKIMessage;
@@ -25,12 +26,13 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
 import java.security.cert.X509Certificate;
-import java.util.Date;
+import java.time.Duration;
+import java.util.List;
 
 @Service
 public class CmpMessageBuilder {
 
-    public byte[] buildIpCpResponse(PKIMessage request, IssuedCertificate issuedCert, boolean isIr) {
+    public byte[] buildIpCpResponse(PKIMessage request, List<CertReqOutcome> outcomes, boolean isIr) {
         try {
             PKIHeader reqHeader = request.getHeader();
 
@@ -42,14 +44,12 @@ public class CmpMessageBuilder {
             headerBuilder.setTransactionID(reqHeader.getTransactionID());
             headerBuilder.setRecipNonce(reqHeader.getSenderNonce());
 
-            X509Certificate x509Cert = issuedCert.getCertificate().toX509Certificate();
-            CMPCertificate cmpCert = CMPCertificate.getInstance(x509Cert.getEncoded());
-
-            PKIStatusInfo statusInfo = new PKIStatusInfo(PKIStatus.granted);
-            CertifiedKeyPair ckp = new CertifiedKeyPair(new CertOrEncCert(cmpCert));
-            CertResponse certResponse = new CertResponse(new ASN1Integer(BigInteger.ZERO), statusInfo, ckp, null);
+            CertResponse[] certResponses = new CertResponse[outcomes.size()];
+            for (int i = 0; i < certResponses.length; i++) {
+                certResponses[i] = toCertResponse(outcomes.get(i));
+            }
 
-            CertRepMessage certRepMessage = new CertRepMessage(null, new CertResponse[]{certResponse});
+            CertRepMessage certRepMessage = new CertRepMessage(null, certResponses);
             int bodyType = isIr ? PKIBody.TYPE_INIT_REP : PKIBody.TYPE_CERT_REP;
             PKIBody body = new PKIBody(bodyType, certRepMessage);
 
@@ -60,7 +60,42 @@ public class CmpMessageBuilder {
         }
     }
 
-    public byte[] buildRpResponse(PKIMessage request) {
+    /**
+     * ip/cp answering every certReqId with {@code waiting}; the certificates are delivered in reply to pollReq.
+     */
+    public byte[] buildWaitingResponse(PKIMessage request, List<BigInteger> certReqIds, boolean isIr) {
+        try {
+            CertResponse[] certResponses = new CertResponse[certReqIds.size()];
+            for (int i = 0; i < certResponses.length; i++) {
+                certResponses[i] = new CertResponse(new ASN1Integer(certReqIds.get(i)),
+                        new PKIStatusInfo(PKIStatus.waiting), null, null);
+            }
+            int bodyType = isIr ? PKIBody.TYPE_INIT_REP : PKIBody.TYPE_CERT_REP;
+            PKIBody body = new PKIBody(bodyType, new CertRepMessage(null, certResponses));
+            return new PKIMessage(responseHeader(request), body).getEncoded();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build waiting response", e);
+        }
+    }
+
+    public byte[] buildPollRepResponse(PKIMessage request, List<BigInteger> certReqIds, Duration checkAfter) {
+        try {
+            ASN1EncodableVector entries = new ASN1EncodableVector();
+            for (BigInteger certReqId : certReqIds) {
+                entries.add(new DERSequence(new ASN1Encodable[]{
+                        new ASN1Integer(certReqId), new ASN1Integer(checkAfter.toSeconds())}));
+            }
+            PKIBody body = new PKIBody(PKIBody.TYPE_POLL_REP, PollRepContent.getInstance(new DERSequence(entries)));
+            return new PKIMessage(responseHeader(request), body).getEncoded();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build PollRep response", e);
+        }
+    }
+
+    /**
+     * @param statuses one status per RevDetails, in request order
+     */
+    public byte[] buildRpResponse(PKIMessage request, List<PKIStatusInfo> statuses) {
         try {
             PKIHeader reqHeader = request.getHeader();
 
@@ -72,11 +107,9 @@ public class CmpMessageBuilder {
             headerBuilder.setTransactionID(reqHeader.getTransactionID());
             headerBuilder.setRecipNonce(reqHeader.getSenderNonce());
 
-            PKIStatusInfo statusInfo = new PKIStatusInfo(PKIStatus.granted);
-            ASN1EncodableVector v = new ASN1EncodableVector();
-            v.add(statusInfo);
-            RevRepContent revRepContent = RevRepContent.getInstance(new DERSequence(v));
-            PKIBody body = new PKIBody(PKIBody.TYPE_REVOCATION_REP, revRepContent);
+            RevRepContentBuilder revRepBuilder = new RevRepContentBuilder();
+            statuses.forEach(revRepBuilder::add);
+            PKIBody body = new PKIBody(PKIBody.TYPE_REVOCATION_REP, revRepBuilder.build());
 
             PKIMessage response = new PKIMessage(headerBuilder.build(), body);
             return response.getEncoded();
@@ -85,6 +118,14 @@ public class CmpMessageBuilder {
         }
     }
 
+    public static PKIStatusInfo granted() {
+        return new PKIStatusInfo(PKIStatus.granted);
+    }
+
+    public static PKIStatusInfo rejection(String text) {
+        return new PKIStatusInfo(PKIStatus.rejection, new PKIFreeText(new DERUTF8String(text)));
+    }
+
     public byte[] buildPkiConfResponse(PKIMessage request) {
         try {
             PKIHeader reqHeader = request.getHeader();
@@ -105,6 +146,29 @@ public class CmpMessageBuilder {
         }
     }
 
+    private static PKIHeader responseHeader(PKIMessage request) {
+        PKIHeader reqHeader = request.getHeader();
+        PKIHeaderBuilder headerBuilder = new PKIHeaderBuilder(
+                PKIHeader.CMP_2000,
+                reqHeader.getRecipient(),
+                reqHeader.getSender()
+        );
+        headerBuilder.setTransactionID(reqHeader.getTransactionID());
+        headerBuilder.setRecipNonce(reqHeader.getSenderNonce());
+        return headerBuilder.build();
+    }
+
+    private static CertResponse toCertResponse(CertReqOutcome outcome) throws Exception {
+        ASN1Integer certReqId = new ASN1Integer(outcome.certReqId());
+        if (!outcome.isGranted()) {
+            return new CertResponse(certReqId, rejection(outcome.failureText()), null, null);
+        }
+        X509Certificate x509Cert = outcome.certificate().getCertificate().toX509Certificate();
+        CMPCertificate cmpCert = CMPCertificate.getInstance(x509Cert.getEncoded());
+        CertifiedKeyPair ckp = new CertifiedKeyPair(new CertOrEncCert(cmpCert));
+        return new CertResponse(certReqId, granted(), ckp, null);
+    }
+
     public byte[] buildErrorResponse(PKIMessage request, String errorText) {
         try {
             PKIHeader reqHeader = request.getHeader();
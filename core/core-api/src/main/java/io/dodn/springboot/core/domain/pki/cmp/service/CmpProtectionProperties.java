@@ -0,0 +1,25 @@
+package io.dodn.springboot.core.domain.pki.cmp.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * @param required       reject messages without protection
+ * @param sharedSecrets  MAC shared secrets keyed by senderKID (as UTF-8)
+ * @param maxIterations  upper bound on the client-chosen PBKDF2 / OWF iteration count
+ * @param cacheTtl       lifetime of cached MAC keys and verified signer certificates
+ */
+@ConfigurationProperties(prefix = "pki.cmp.protection")
+public record CmpProtectionProperties(
+        @DefaultValue("false") boolean required,
+        Map<String, String> sharedSecrets,
+        @DefaultValue("100000") int maxIterations,
+        @DefaultValue("10m") Duration cacheTtl
+) {
+    public CmpProtectionProperties {
+        sharedSecrets = sharedSecrets != null ? Map.copyOf(sharedSecrets) : Map.of();
+    }
+}
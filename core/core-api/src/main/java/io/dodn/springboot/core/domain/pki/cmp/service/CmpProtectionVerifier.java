@@ -1,48 +1,294 @@
 package io.dodn.springboot.core.domain.pki.cmp.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateRevokedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.dodn.springboot.core.support.error.CoreException;
+import io.dodn.springboot.core.support.error.ErrorType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.cmp.CMPCertificate;
+import org.bouncycastle.asn1.cmp.CMPObjectIdentifiers;
+import org.bouncycastle.asn1.cmp.PBMParameter;
 import org.bouncycastle.asn1.cmp.PKIHeader;
 import org.bouncycastle.asn1.cmp.PKIMessage;
+import org.bouncycastle.asn1.cmp.ProtectedPart;
+import org.bouncycastle.asn1.pkcs.PBKDF2Params;
+import org.bouncycastle.asn1.pkcs.PBMAC1Params;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.util.DigestFactory;
+import org.bouncycastle.operator.ContentVerifier;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+
+/**
+ * Verifies PKIMessage protection: PasswordBasedMac (RFC 4210) and PBMAC1 (RFC 9481) with shared secrets looked up
+ * by senderKID, or a signature by the first extraCerts certificate, which must be issued by the addressed CA.
+ * <p>
+ * Derived MAC keys are cached in {@link CmpMacKeyCache}; signer certificates are cached by their SHA-256 once
+ * validated, until they expire, the cache entry ages out or they are revoked.
+ */
 @Service
 public class CmpProtectionVerifier {
 
+    private static final String CACHE_NAME = "pki.cmp.verified-signer";
+
+    private final CmpProtectionProperties properties;
+    private final CmpMacKeyCache macKeyCache;
+    private final IssuedCertificateRepository issuedCertificateRepository;
+    private final Cache<SignerKey, VerifiedSigner> verifiedSigners;
+
+    public CmpProtectionVerifier(CmpProtectionProperties properties,
+            CmpMacKeyCache macKeyCache,
+            IssuedCertificateRepository issuedCertificateRepository,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.macKeyCache = macKeyCache;
+        this.issuedCertificateRepository = issuedCertificateRepository;
+        this.verifiedSigners = Caffeine.newBuilder()
+                .expireAfterWrite(properties.cacheTtl())
+                .maximumSize(10_000)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedSigners, CACHE_NAME);
+    }
+
     /**
-     * Verifies the protection of a PKIMessage.
-     * Supports MAC-based (PBMAC1) and signature-based protection.
+     * Verifies the protection of a PKIMessage addressed to {@code ca}. Unprotected messages pass unless
+     * {@code pki.cmp.protection.required} is set.
      */
-    public void verify(PKIMessage pkiMessage, String sharedSecret) {
+    public void verify(PKIMessage pkiMessage, CertificateAuthority ca) {
         PKIHeader header = pkiMessage.getHeader();
         AlgorithmIdentifier protAlg = header.getProtectionAlg();
 
-        if (protAlg == null) {
-            throw new IllegalArgumentException("PKIMessage has no protection algorithm");
+        if (protAlg == null || pkiMessage.getProtection() == null) {
+            if (properties.required()) {
+                throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Message is not protected");
+            }
+            return;
         }
 
-        String algOid = protAlg.getAlgorithm().getId();
+        byte[] protectedPart;
+        try {
+            protectedPart = new ProtectedPart(header, pkiMessage.getBody()).getEncoded(ASN1Encoding.DER);
+        } catch (Exception e) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Unencodable protected part");
+        }
+        byte[] protection = pkiMessage.getProtection().getOctets();
 
-        // PBMAC1 OID: 1.2.840.113549.1.5.14
-        if ("1.2.840.113549.1.5.14".equals(algOid)) {
-            verifyMacProtection(pkiMessage, sharedSecret);
+        ASN1ObjectIdentifier algorithm = protAlg.getAlgorithm();
+        if (CMPObjectIdentifiers.passwordBasedMac.equals(algorithm)) {
+            verifyPasswordBasedMac(header, PBMParameter.getInstance(protAlg.getParameters()), protectedPart,
+                    protection);
+        } else if (PKCSObjectIdentifiers.id_PBMAC1.equals(algorithm)) {
+            verifyPbmac1(header, PBMAC1Params.getInstance(protAlg.getParameters()), protectedPart, protection);
         } else {
-            verifySignatureProtection(pkiMessage);
+            verifySignature(pkiMessage, protAlg, ca, protectedPart, protection);
+        }
+    }
+
+    @EventListener
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        verifiedSigners.asMap().entrySet().removeIf(entry -> entry.getKey().caId().equals(event.issuerId())
+                && entry.getValue().serialNumber().equals(event.serialNumber().value()));
+    }
+
+    private void verifyPasswordBasedMac(PKIHeader header, PBMParameter params, byte[] protectedPart,
+            byte[] protection) {
+        String senderKid = senderKid(header);
+        byte[] secret = sharedSecret(senderKid);
+        byte[] salt = params.getSalt().getOctets();
+        int iterations = checkIterations(params.getIterationCount().intValueExact());
+        AlgorithmIdentifier owf = params.getOwf();
+
+        byte[] key = macKeyCache.get(senderKid, secret, owf.getAlgorithm(), salt, iterations, 0, () -> {
+            try {
+                MessageDigest digest = MessageDigest.getInstance(owf.getAlgorithm().getId(), "BC");
+                digest.update(secret);
+                byte[] basekey = digest.digest(salt);
+                for (int i = 1; i < iterations; i++) {
+                    basekey = digest.digest(basekey);
+                }
+                return basekey;
+            } catch (Exception e) {
+                throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Unsupported OWF");
+            }
+        });
+        checkMac(params.getMac().getAlgorithm(), key, protectedPart, protection);
+    }
+
+    private void verifyPbmac1(PKIHeader header, PBMAC1Params params, byte[] protectedPart, byte[] protection) {
+        AlgorithmIdentifier kdf = params.getKeyDerivationFunc();
+        // BouncyCastle-based clients label the PBKDF2 parameters with the PBES2 OID.
+        if (!PKCSObjectIdentifiers.id_PBKDF2.equals(kdf.getAlgorithm())
+                && !PKCSObjectIdentifiers.id_PBES2.equals(kdf.getAlgorithm())) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "PBMAC1 requires PBKDF2");
+        }
+        PBKDF2Params pbkdf2 = PBKDF2Params.getInstance(kdf.getParameters());
+        String senderKid = senderKid(header);
+        byte[] secret = sharedSecret(senderKid);
+        byte[] salt = pbkdf2.getSalt();
+        int iterations = checkIterations(pbkdf2.getIterationCount().intValueExact());
+        AlgorithmIdentifier prf = pbkdf2.getPrf();
+        int keyLength = pbkdf2.getKeyLength() != null ? pbkdf2.getKeyLength().intValueExact() : 32;
+
+        byte[] key = macKeyCache.get(senderKid, secret, prf.getAlgorithm(), salt, iterations, keyLength, () -> {
+            PKCS5S2ParametersGenerator generator = new PKCS5S2ParametersGenerator(prfDigest(prf));
+            generator.init(secret, salt, iterations);
+            return ((KeyParameter) generator.generateDerivedParameters(keyLength * 8)).getKey();
+        });
+        checkMac(params.getMessageAuthScheme().getAlgorithm(), key, protectedPart, protection);
+    }
+
+    private void verifySignature(PKIMessage pkiMessage, AlgorithmIdentifier protAlg, CertificateAuthority ca,
+            byte[] protectedPart, byte[] protection) {
+        CMPCertificate[] extraCerts = pkiMessage.getExtraCerts();
+        if (extraCerts == null || extraCerts.length == 0 || !extraCerts[0].isX509v3PKCert()) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "No signer certificate in extraCerts");
+        }
+        byte[] signerDer;
+        try {
+            signerDer = extraCerts[0].getEncoded(ASN1Encoding.DER);
+        } catch (Exception e) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Unencodable signer certificate");
+        }
+
+        Instant now = Instant.now();
+        SignerKey key = new SignerKey(ca.getId(), sha256Hex(signerDer));
+        VerifiedSigner signer = verifiedSigners.getIfPresent(key);
+        if (signer == null || !now.isBefore(signer.notAfter())) {
+            signer = validateSigner(signerDer, ca, now);
+            verifiedSigners.put(key, signer);
+        }
+
+        try {
+            ContentVerifier verifier = new JcaContentVerifierProviderBuilder().setProvider("BC")
+                    .build(signer.publicKey()).get(protAlg);
+            try (OutputStream out = verifier.getOutputStream()) {
+                out.write(protectedPart);
+            }
+            if (verifier.verify(protection)) {
+                return;
+            }
+        } catch (Exception e) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Unsupported signature algorithm");
         }
+        throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Signature does not verify");
     }
 
-    private void verifyMacProtection(PKIMessage pkiMessage, String sharedSecret) {
-        // Full PBMAC1 verification would require extracting PBKDF2 parameters
-        // and computing the MAC over the DER-encoded PKIBody+PKIHeader.
-        // This is a structural placeholder — production implementations
-        // should use BouncyCastle's PKIMessageHelper or equivalent.
-        if (sharedSecret == null || sharedSecret.isBlank()) {
-            throw new IllegalArgumentException("Shared secret required for MAC-based CMP protection");
+    /** Full check on first sight: issued by the addressed CA, within validity, not revoked. */
+    private VerifiedSigner validateSigner(byte[] signerDer, CertificateAuthority ca, Instant now) {
+        X509Certificate signerCert;
+        try {
+            signerCert = (X509Certificate) CertificateFactory.getInstance("X.509", "BC")
+                    .generateCertificate(new ByteArrayInputStream(signerDer));
+            X509Certificate caCert = ca.getCertificate().toX509Certificate();
+            if (!signerCert.getIssuerX500Principal().equals(caCert.getSubjectX500Principal())) {
+                throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Signer not issued by this CA");
+            }
+            signerCert.verify(caCert.getPublicKey(), "BC");
+            signerCert.checkValidity(Date.from(now));
+        } catch (CoreException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Signer certificate is not valid");
         }
+
+        boolean revoked = issuedCertificateRepository
+                .findStatusBySerialNumber(SerialNumber.of(signerCert.getSerialNumber()))
+                .map(entry -> entry.status() == CertificateStatus.REVOKED)
+                .orElse(false);
+        if (revoked) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Signer certificate is revoked");
+        }
+        return new VerifiedSigner(signerCert.getPublicKey(), signerCert.getSerialNumber(),
+                signerCert.getNotAfter().toInstant());
+    }
+
+    private void checkMac(ASN1ObjectIdentifier macAlgorithm, byte[] key, byte[] protectedPart, byte[] protection) {
+        byte[] expected;
+        try {
+            Mac mac = Mac.getInstance(macAlgorithm.getId(), "BC");
+            mac.init(new SecretKeySpec(key, mac.getAlgorithm()));
+            expected = mac.doFinal(protectedPart);
+        } catch (Exception e) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Unsupported MAC algorithm");
+        }
+        if (!MessageDigest.isEqual(expected, protection)) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "MAC does not verify");
+        }
+    }
+
+    private String senderKid(PKIHeader header) {
+        ASN1OctetString senderKid = header.getSenderKID();
+        if (senderKid == null) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "senderKID required for MAC protection");
+        }
+        return new String(senderKid.getOctets(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] sharedSecret(String senderKid) {
+        String secret = properties.sharedSecrets().get(senderKid);
+        if (secret == null) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Unknown senderKID");
+        }
+        return secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private int checkIterations(int iterations) {
+        if (iterations < 1 || iterations > properties.maxIterations()) {
+            throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Iteration count out of range");
+        }
+        return iterations;
+    }
+
+    private static Digest prfDigest(AlgorithmIdentifier prf) {
+        ASN1ObjectIdentifier oid = prf.getAlgorithm();
+        if (PKCSObjectIdentifiers.id_hmacWithSHA1.equals(oid)) return DigestFactory.createSHA1();
+        if (PKCSObjectIdentifiers.id_hmacWithSHA256.equals(oid)) return DigestFactory.createSHA256();
+        if (PKCSObjectIdentifiers.id_hmacWithSHA384.equals(oid)) return DigestFactory.createSHA384();
+        if (PKCSObjectIdentifiers.id_hmacWithSHA512.equals(oid)) return DigestFactory.createSHA512();
+        throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Unsupported PBKDF2 PRF");
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private record SignerKey(CaId caId, String certificateHash) {
     }
 
-    private void verifySignatureProtection(PKIMessage pkiMessage) {
-        // Signature verification placeholder.
-        // Production code should extract the signing certificate from
-        // the extraCerts field and verify the signature.
+    private record VerifiedSigner(PublicKey publicKey, BigInteger serialNumber, Instant notAfter) {
     }
 }
@@ -0,0 +1,119 @@
+package io.dodn.springboot.core.domain.pki.cmp.service;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.support.error.CoreException;
+import io.dodn.springboot.core.support.error.ErrorType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.cmp.PKIHeader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rejects a CMP message whose (transactionID, senderNonce) pair was already seen for the same CA within the
+ * replay window, without a database round trip. Pairs are kept in two generations that rotate every window, so a
+ * pair is remembered for between one and two windows. A generation that reaches its size limit rotates early,
+ * which bounds memory at the cost of a shorter window under extreme load.
+ * <p>
+ * Messages whose messageTime lies outside the window are rejected too, since the cache cannot vouch for them.
+ * Callers record a message only after its protection was verified.
+ */
+@Component
+public class CmpReplayCache {
+
+    private final Duration window;
+    private final int maximumEntries;
+    private final Counter replays;
+    private volatile Set<ReplayKey> current = ConcurrentHashMap.newKeySet();
+    private volatile Set<ReplayKey> previous = ConcurrentHashMap.newKeySet();
+    private volatile Instant rotatedAt = Instant.now();
+
+    public CmpReplayCache(MeterRegistry meterRegistry,
+            @Value("${pki.cmp.replay.window:60s}") Duration window,
+            @Value("${pki.cmp.replay.maximum-entries:600000}") int maximumEntries) {
+        this.window = window;
+        this.maximumEntries = maximumEntries;
+        this.replays = Counter.builder("pki.cmp.replay.rejected").register(meterRegistry);
+        Gauge.builder("pki.cmp.replay.size", this, cache -> cache.current.size() + cache.previous.size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the message and throws {@link ErrorType#PKI_CMP_REPLAY_DETECTED} if it was seen before. A protected
+     * message must carry a senderNonce; unprotected messages without one cannot be told apart and are let through.
+     */
+    public void checkAndRecord(CaId caId, PKIHeader header, Instant now) {
+        ASN1OctetString senderNonce = header.getSenderNonce();
+        if (senderNonce == null) {
+            if (header.getProtectionAlg() != null) {
+                replays.increment();
+                throw new CoreException(ErrorType.PKI_CMP_PROTECTION_FAILED, "Protected message has no senderNonce");
+            }
+            return;
+        }
+        ASN1GeneralizedTime messageTime = header.getMessageTime();
+        if (messageTime != null && isOutsideWindow(messageTime, now)) {
+            replays.increment();
+            throw new CoreException(ErrorType.PKI_CMP_REPLAY_DETECTED, "messageTime outside replay window");
+        }
+
+        rotateIfDue(now);
+        ReplayKey key = ReplayKey.of(caId, header.getTransactionID(), senderNonce);
+        if (previous.contains(key) || !current.add(key)) {
+            replays.increment();
+            throw new CoreException(ErrorType.PKI_CMP_REPLAY_DETECTED, caId.value());
+        }
+    }
+
+    private boolean isOutsideWindow(ASN1GeneralizedTime messageTime, Instant now) {
+        try {
+            Instant sent = messageTime.getDate().toInstant();
+            return sent.isBefore(now.minus(window)) || sent.isAfter(now.plus(window));
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    private void rotateIfDue(Instant now) {
+        if (now.isBefore(rotatedAt.plus(window)) && current.size() < maximumEntries) {
+            return;
+        }
+        synchronized (this) {
+            if (now.isBefore(rotatedAt.plus(window)) && current.size() < maximumEntries) {
+                return;
+            }
+            previous = current;
+            current = ConcurrentHashMap.newKeySet();
+            rotatedAt = now;
+        }
+    }
+
+    /** 128 bits of SHA-256 over transactionID and senderNonce keep entries small and fixed in size. */
+    private record ReplayKey(long caId, long high, long low) {
+
+        static ReplayKey of(CaId caId, ASN1OctetString transactionId, ASN1OctetString senderNonce) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                if (transactionId != null) {
+                    digest.update(transactionId.getOctets());
+                }
+                digest.update((byte) 0);
+                digest.update(senderNonce.getOctets());
+                ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+                return new ReplayKey(caId.value(), hash.getLong(), hash.getLong());
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to compute CMP replay key", e);
+            }
+        }
+    }
+}
@@ -20,22 +20,37 @@ import io.dodn.springboot.core.enums.pki.CmpBodyType;
 import io.dodn.springboot.core.enums.pki.RevocationReason;
 import io.dodn.springboot.core.support.error.CoreException;
 import io.dodn.springboot.core.support.error.ErrorType;
+import org.bouncycastle.asn1.ASN1InputStream;
+import org.bouncycastle.asn1.ASN1Integer;
 import org.bouncycastle.asn1.ASN1OctetString;
 import org.bouncycastle.asn1.cmp.PKIBody;
 import org.bouncycastle.asn1.cmp.PKIMessage;
+import org.bouncycastle.asn1.cmp.PKIStatusInfo;
 import org.bouncycastle.asn1.cmp.RevDetails;
 import org.bouncycastle.asn1.cmp.RevReqContent;
 import org.bouncycastle.asn1.crmf.CertReqMessages;
 import org.bouncycastle.asn1.crmf.CertReqMsg;
+import org.bouncycastle.asn1.crmf.CertRequest;
 import org.bouncycastle.asn1.crmf.CertTemplate;
 import org.bouncycastle.asn1.pkcs.CertificationRequest;
 import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
 import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 public class CmpRequestProcessor {
@@ -46,19 +61,31 @@ public class CmpRequestProcessor {
     private final IssuedCertificateRepository issuedCertificateRepository;
     private final CmpMessageBuilder messageBuilder;
     private final CmpProtectionVerifier protectionVerifier;
+    private final CmpAsyncEnrollmentService asyncEnrollmentService;
+    private final CmpReplayCache replayCache;
+    private final CmpResponseProtector responseProtector;
+    private final int maxCertRequests;
 
     public CmpRequestProcessor(CaRepository caRepository,
             CmpTransactionRepository cmpTransactionRepository,
             CertificateIssuanceService certIssuanceService,
             IssuedCertificateRepository issuedCertificateRepository,
             CmpMessageBuilder messageBuilder,
-            CmpProtectionVerifier protectionVerifier) {
+            CmpProtectionVerifier protectionVerifier,
+            CmpAsyncEnrollmentService asyncEnrollmentService,
+            CmpReplayCache replayCache,
+            CmpResponseProtector responseProtector,
+            @Value("${pki.cmp.max-cert-requests:16}") int maxCertRequests) {
         this.caRepository = caRepository;
         this.cmpTransactionRepository = cmpTransactionRepository;
         this.certIssuanceService = certIssuanceService;
         this.issuedCertificateRepository = issuedCertificateRepository;
         this.messageBuilder = messageBuilder;
         this.protectionVerifier = protectionVerifier;
+        this.asyncEnrollmentService = asyncEnrollmentService;
+        this.replayCache = replayCache;
+        this.responseProtector = responseProtector;
+        this.maxCertRequests = maxCertRequests;
     }
 
     public byte[] process(byte[] derPkiMessage, String caAlias) {
@@ -68,56 +95,139 @@ public class CmpRequestProcessor {
         } catch (Exception e) {
             throw new CoreException(ErrorType.PKI_CMP_PARSE_ERROR, e.getMessage());
         }
+        return process(pkiMessage, caAlias);
+    }
 
+    /**
+     * Parses the DER message straight out of {@code derPkiMessage} (typically a pooled direct buffer), from its
+     * position up to its limit, without first copying it into an intermediate array.
+     */
+    public byte[] process(ByteBuffer derPkiMessage, String caAlias) {
+        PKIMessage pkiMessage;
+        try (ASN1InputStream in = new ASN1InputStream(new ByteBufferInputStream(derPkiMessage),
+                derPkiMessage.remaining())) {
+            pkiMessage = PKIMessage.getInstance(in.readObject());
+        } catch (Exception e) {
+            throw new CoreException(ErrorType.PKI_CMP_PARSE_ERROR, e.getMessage());
+        }
+        if (pkiMessage == null) {
+            throw new CoreException(ErrorType.PKI_CMP_PARSE_ERROR, "Empty message");
+        }
+        return process(pkiMessage, caAlias);
+    }
+
+    private byte[] process(PKIMessage pkiMessage, String caAlias) {
         CertificateAuthority ca = caRepository.findByAlias(CaAlias.of(caAlias))
                 .orElseThrow(() -> new CoreException(ErrorType.PKI_CA_NOT_FOUND, caAlias));
 
         PKIBody body = pkiMessage.getBody();
         int bodyType = body.getType();
 
+        byte[] response;
         try {
-            return switch (bodyType) {
-                case PKIBody.TYPE_INIT_REQ -> processIrCr(pkiMessage, ca, true);
-                case PKIBody.TYPE_CERT_REQ -> processIrCr(pkiMessage, ca, false);
-                case PKIBody.TYPE_P10_CERT_REQ -> processP10Cr(pkiMessage, ca);
+            // Only verified messages are recorded, so a forged copy cannot burn the nonce of a genuine one.
+            protectionVerifier.verify(pkiMessage, ca);
+            replayCache.checkAndRecord(ca.getId(), pkiMessage.getHeader(), Instant.now());
+            response = switch (bodyType) {
+                case PKIBody.TYPE_INIT_REQ -> enroll(pkiMessage, true, () -> issueIrCr(pkiMessage, ca));
+                case PKIBody.TYPE_CERT_REQ -> enroll(pkiMessage, false, () -> issueIrCr(pkiMessage, ca));
+                case PKIBody.TYPE_P10_CERT_REQ -> enroll(pkiMessage, false, () -> issueP10Cr(pkiMessage, ca));
+                case PKIBody.TYPE_POLL_REQ -> asyncEnrollmentService.poll(pkiMessage, extractTransactionId(pkiMessage));
                 case PKIBody.TYPE_REVOCATION_REQ -> processRr(pkiMessage, ca);
                 case PKIBody.TYPE_CERT_CONFIRM -> processCertConf(pkiMessage);
                 default -> messageBuilder.buildErrorResponse(pkiMessage, "Unsupported message type: " + bodyType);
             };
         } catch (CoreException e) {
-            return messageBuilder.buildErrorResponse(pkiMessage, e.getMessage());
+            response = messageBuilder.buildErrorResponse(pkiMessage, e.getMessage());
         } catch (Exception e) {
-            return messageBuilder.buildErrorResponse(pkiMessage, "Internal processing error");
+            response = messageBuilder.buildErrorResponse(pkiMessage, "Internal processing error");
+        }
+        return responseProtector.protect(pkiMessage, response, ca);
+    }
+
+    /**
+     * In asynchronous mode the issuance is queued and the client is answered with a {@code waiting} status to be
+     * followed by pollReq; messages without a transactionID cannot be polled for and are always served inline.
+     * A message carrying more than {@code pki.cmp.max-cert-requests} CertReqMsgs is rejected before anything is
+     * signed.
+     */
+    private byte[] enroll(PKIMessage pkiMessage, boolean isIr, Supplier<List<CertReqOutcome>> issuance) {
+        List<BigInteger> certReqIds = certReqIds(pkiMessage);
+        if (certReqIds.size() > maxCertRequests) {
+            return messageBuilder.buildErrorResponse(pkiMessage, "Too many certificate requests: "
+                    + certReqIds.size() + " (at most " + maxCertRequests + ")");
         }
+        ASN1OctetString txIdOctet = pkiMessage.getHeader().getTransactionID();
+        if (asyncEnrollmentService.isEnabled() && txIdOctet != null && txIdOctet.getOctets().length == 16) {
+            return asyncEnrollmentService.submit(pkiMessage, new CmpTransactionId(txIdOctet.getOctets()),
+                    certReqIds, isIr, issuance);
+        }
+        return messageBuilder.buildIpCpResponse(pkiMessage, issuance.get(), isIr);
+    }
+
+    private List<BigInteger> certReqIds(PKIMessage pkiMessage) {
+        if (pkiMessage.getBody().getType() == PKIBody.TYPE_P10_CERT_REQ) {
+            return List.of(BigInteger.ZERO);
+        }
+        return Arrays.stream(CertReqMessages.getInstance(pkiMessage.getBody().getContent()).toCertReqMsgArray())
+                .map(msg -> msg.getCertReq().getCertReqId().getValue())
+                .toList();
     }
 
-    private byte[] processIrCr(PKIMessage pkiMessage, CertificateAuthority ca, boolean isIr) {
+    /**
+     * Issues every CertReqMsg of the message in one batch. A request whose template cannot be used, e.g. one with
+     * no CN or an unreadable public key, is rejected on its own CertResponse without failing the others.
+     */
+    private List<CertReqOutcome> issueIrCr(PKIMessage pkiMessage, CertificateAuthority ca) {
         CertReqMessages certReqMessages = CertReqMessages.getInstance(pkiMessage.getBody().getContent());
-        CertReqMsg certReqMsg = certReqMessages.toCertReqMsgArray()[0];
-        CertTemplate template = certReqMsg.getCertReq().getCertTemplate();
+        CertReqMsg[] certReqMsgs = certReqMessages.toCertReqMsgArray();
+        CmpTransactionId txId = extractTransactionId(pkiMessage);
+
+        CertReqOutcome[] outcomes = new CertReqOutcome[certReqMsgs.length];
+        List<Integer> accepted = new ArrayList<>(certReqMsgs.length);
+        List<IssueCertificateCommand> commands = new ArrayList<>(certReqMsgs.length);
+        for (int i = 0; i < certReqMsgs.length; i++) {
+            CertRequest certReq = certReqMsgs[i].getCertReq();
+            try {
+                commands.add(toCommand(certReq.getCertTemplate(), txId));
+                accepted.add(i);
+            } catch (RuntimeException e) {
+                outcomes[i] = CertReqOutcome.rejected(certReq.getCertReqId().getValue(),
+                        e.getMessage() != null ? e.getMessage() : "Invalid certificate template");
+            }
+        }
+
+        if (!commands.isEmpty()) {
+            List<IssuedCertificate> issued = certIssuanceService.issueCertificates(commands, ca.getId());
+            for (int j = 0; j < issued.size(); j++) {
+                int i = accepted.get(j);
+                outcomes[i] = CertReqOutcome.granted(
+                        certReqMsgs[i].getCertReq().getCertReqId().getValue(), issued.get(j));
+            }
+            saveTransaction(pkiMessage,
+                    pkiMessage.getBody().getType() == PKIBody.TYPE_INIT_REQ ? CmpBodyType.IR : CmpBodyType.CR, txId);
+        }
+
+        return Arrays.asList(outcomes);
+    }
 
+    private IssueCertificateCommand toCommand(CertTemplate template, CmpTransactionId txId) {
         X500Name subject = template.getSubject();
         SubjectDN subjectDN = subject != null ? SubjectDN.parse(subject.toString()) :
                 new SubjectDN("Unknown", null, null, null, null, null);
 
         PublicKey publicKey = extractPublicKey(template);
-        CmpTransactionId txId = extractTransactionId(pkiMessage);
 
-        IssueCertificateCommand command = new IssueCertificateCommand(
+        return new IssueCertificateCommand(
                 subjectDN, publicKey,
                 new KeyUsageExtension(Set.of()),
                 new ExtKeyUsageExtension(Set.of()),
                 new SanExtension(java.util.List.of()),
                 txId
         );
-
-        IssuedCertificate cert = certIssuanceService.issueCertificate(command, ca.getId());
-        saveTransaction(pkiMessage, CmpBodyType.IR, txId);
-
-        return messageBuilder.buildIpCpResponse(pkiMessage, cert, isIr);
     }
 
-    private byte[] processP10Cr(PKIMessage pkiMessage, CertificateAuthority ca) {
+    private List<CertReqOutcome> issueP10Cr(PKIMessage pkiMessage, CertificateAuthority ca) {
         try {
             CertificationRequest cr = CertificationRequest.getInstance(pkiMessage.getBody().getContent());
             PKCS10CertificationRequest p10 = new PKCS10CertificationRequest(cr);
@@ -138,7 +248,7 @@ public class CmpRequestProcessor {
             IssuedCertificate cert = certIssuanceService.issueCertificate(command, ca.getId());
             saveTransaction(pkiMessage, CmpBodyType.P10CR, txId);
 
-            return messageBuilder.buildIpCpResponse(pkiMessage, cert, false);
+            return List.of(CertReqOutcome.granted(BigInteger.ZERO, cert));
         } catch (Exception e) {
             throw new IllegalStateException("Failed to process P10CR", e);
         }
@@ -146,30 +256,33 @@ public class CmpRequestProcessor {
 
     private byte[] processRr(PKIMessage pkiMessage, CertificateAuthority ca) {
         RevReqContent revReqContent = RevReqContent.getInstance(pkiMessage.getBody().getContent());
-        RevDetails revDetails = revReqContent.toRevDetailsArray()[0];
-        CertTemplate template = revDetails.getCertDetails();
+        RevDetails[] revDetailsArray = revReqContent.toRevDetailsArray();
 
-        BigInteger serial = template.getSerialNumber().getValue();
-        SerialNumber serialNumber = SerialNumber.of(serial);
-        RevocationReason reason = RevocationReason.UNSPECIFIED;
-        if (revDetails.getCrlEntryDetails() != null) {
-            // Extract reason from CRL entry details if present
+        List<PKIStatusInfo> statuses = new ArrayList<>(revDetailsArray.length);
+        for (RevDetails revDetails : revDetailsArray) {
+            ASN1Integer serial = revDetails.getCertDetails().getSerialNumber();
+            if (serial == null) {
+                statuses.add(CmpMessageBuilder.rejection("No serial number in certificate template"));
+                continue;
+            }
+            try {
+                certIssuanceService.revokeCertificate(SerialNumber.of(serial.getValue()), ca.getId(),
+                        extractRevocationReason(revDetails));
+                statuses.add(CmpMessageBuilder.granted());
+            } catch (CoreException | IllegalArgumentException e) {
+                statuses.add(CmpMessageBuilder.rejection(e.getMessage()));
+            }
         }
 
-        certIssuanceService.revokeCertificate(serialNumber, ca.getId(), reason);
-
         CmpTransactionId txId = extractTransactionId(pkiMessage);
         saveTransaction(pkiMessage, CmpBodyType.RR, txId);
 
-        return messageBuilder.buildRpResponse(pkiMessage);
+        return messageBuilder.buildRpResponse(pkiMessage, statuses);
     }
 
     private byte[] processCertConf(PKIMessage pkiMessage) {
         CmpTransactionId txId = extractTransactionId(pkiMessage);
-        cmpTransactionRepository.findByTransactionId(txId).ifPresent(tx -> {
-            tx.complete();
-            cmpTransactionRepository.save(tx);
-        });
+        cmpTransactionRepository.confirm(txId);
         return messageBuilder.buildPkiConfResponse(pkiMessage);
     }
 
@@ -181,6 +294,15 @@ public class CmpRequestProcessor {
         return CmpTransactionId.generate();
     }
 
+    private RevocationReason extractRevocationReason(RevDetails revDetails) {
+        Extensions crlEntryDetails = revDetails.getCrlEntryDetails();
+        Extension reasonCode = crlEntryDetails != null ? crlEntryDetails.getExtension(Extension.reasonCode) : null;
+        if (reasonCode == null) {
+            return RevocationReason.UNSPECIFIED;
+        }
+        return RevocationReason.fromCode(CRLReason.getInstance(reasonCode.getParsedValue()).getValue().intValue());
+    }
+
     private PublicKey extractPublicKey(CertTemplate template) {
         try {
             if (template.getPublicKey() != null) {
@@ -202,4 +324,28 @@ public class CmpRequestProcessor {
         tx.waitConfirm();
         cmpTransactionRepository.save(tx);
     }
+
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
 }
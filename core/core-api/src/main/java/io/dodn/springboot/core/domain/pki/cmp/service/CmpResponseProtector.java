@@ -0,0 +1,211 @@
+package io.dodn.springboot.core.domain.pki.cmp.service;
+
+import io.dodn.springboot.core.domain.pki.ca.CaRevokedEvent;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.service.DelegatedSignerService;
+import io.dodn.springboot.core.domain.pki.cmp.CmpResponseSigner;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
+import io.dodn.springboot.core.enums.pki.DelegatedSignerPurpose;
+import io.dodn.springboot.core.enums.pki.KeyAlgorithmType;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.cmp.CMPObjectIdentifiers;
+import org.bouncycastle.asn1.cmp.PKIHeader;
+import org.bouncycastle.asn1.cmp.PKIMessage;
+import org.bouncycastle.asn1.cmp.ProtectedPart;
+import org.bouncycastle.asn1.pkcs.PBKDF2Params;
+import org.bouncycastle.asn1.pkcs.PBMAC1Params;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.util.DigestFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies {@code pki.cmp.response-protection.mode} to outgoing PKIMessages.
+ * <ul>
+ *   <li>{@code NONE}: responses are sent unprotected.</li>
+ *   <li>{@code SIGNATURE}: responses are signed by a per-CA protection certificate (EKU id-kp-cmcRA) from
+ *   {@link DelegatedSignerService}, shared by all nodes and issued only when none is left or it is due for
+ *   renewal.</li>
+ *   <li>{@code MAC}: replies to MAC-protected requests from a known senderKID are protected with PBMAC1 under the
+ *   same shared secret; everything else is signed as above.</li>
+ * </ul>
+ * MAC responses use a salt fixed for the lifetime of the process, so each shared secret is run through PBKDF2
+ * once per {@link CmpMacKeyCache} entry instead of once per response.
+ */
+@Service
+public class CmpResponseProtector {
+
+    public enum Mode {
+        NONE, SIGNATURE, MAC
+    }
+
+    private static final AlgorithmIdentifier HMAC_SHA256 =
+            new AlgorithmIdentifier(PKCSObjectIdentifiers.id_hmacWithSHA256, DERNull.INSTANCE);
+    private static final int MAC_KEY_LENGTH = 32;
+
+    private final Map<CaId, CmpResponseSigner> signers = new ConcurrentHashMap<>();
+    private final Map<CaId, ReentrantLock> creationLocks = new ConcurrentHashMap<>();
+    private final DelegatedSignerService delegatedSignerService;
+    private final CmpProtectionProperties protectionProperties;
+    private final CmpMacKeyCache macKeyCache;
+    private final Mode mode;
+    private final KeyAlgorithm keyAlgorithm;
+    private final Duration validity;
+    private final Duration renewBefore;
+    private final int signerPoolSize;
+    private final byte[] macSalt;
+    private final int macIterations;
+    private final AlgorithmIdentifier macProtectionAlg;
+
+    public CmpResponseProtector(DelegatedSignerService delegatedSignerService,
+            CmpProtectionProperties protectionProperties,
+            CmpMacKeyCache macKeyCache,
+            @Value("${pki.cmp.response-protection.mode:NONE}") Mode mode,
+            @Value("${pki.cmp.response-protection.key-algorithm:EC_P256}") KeyAlgorithmType keyAlgorithm,
+            @Value("${pki.cmp.response-protection.validity:7d}") Duration validity,
+            @Value("${pki.cmp.response-protection.renew-before:1d}") Duration renewBefore,
+            @Value("${pki.cmp.response-protection.signer-pool-size:8}") int signerPoolSize,
+            @Value("${pki.cmp.response-protection.mac-iterations:10000}") int macIterations) {
+        this.delegatedSignerService = delegatedSignerService;
+        this.protectionProperties = protectionProperties;
+        this.macKeyCache = macKeyCache;
+        this.mode = mode;
+        this.keyAlgorithm = new KeyAlgorithm(keyAlgorithm);
+        this.validity = validity;
+        this.renewBefore = renewBefore;
+        this.signerPoolSize = signerPoolSize;
+        this.macSalt = new byte[16];
+        new SecureRandom().nextBytes(macSalt);
+        this.macIterations = macIterations;
+        this.macProtectionAlg = pbmac1(macSalt, macIterations);
+    }
+
+    /**
+     * @param request  the message being answered, which decides between MAC and signature in {@code MAC} mode
+     * @param response the DER-encoded unprotected response
+     */
+    public byte[] protect(PKIMessage request, byte[] response, CertificateAuthority ca) {
+        if (mode == Mode.NONE) {
+            return response;
+        }
+        PKIMessage message = PKIMessage.getInstance(response);
+        String macSenderKid = mode == Mode.MAC ? macSenderKid(request.getHeader()) : null;
+        PKIMessage protectedMessage = macSenderKid != null
+                ? protectWithMac(message, request.getHeader().getSenderKID(), macProtectionAlg, macKey(macSenderKid))
+                : signer(ca).protect(message);
+        try {
+            return protectedMessage.getEncoded();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode protected CMP response", e);
+        }
+    }
+
+    @EventListener
+    public void onCaRevoked(CaRevokedEvent event) {
+        signers.remove(event.caId());
+    }
+
+    /**
+     * Protects {@code response} with HMAC-SHA256 under {@code key}, as described by {@code protectionAlg}.
+     */
+    public static PKIMessage protectWithMac(PKIMessage response, ASN1OctetString senderKid,
+            AlgorithmIdentifier protectionAlg, byte[] key) {
+        PKIHeader header = CmpResponseSigner.protectionHeader(response.getHeader(), null, protectionAlg, senderKid);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, mac.getAlgorithm()));
+            byte[] protection = mac.doFinal(new ProtectedPart(header, response.getBody()).getEncoded(ASN1Encoding.DER));
+            return new PKIMessage(header, response.getBody(), new DERBitString(protection), response.getExtraCerts());
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to MAC-protect CMP response", e);
+        }
+    }
+
+    public static AlgorithmIdentifier pbmac1(byte[] salt, int iterations) {
+        PBKDF2Params pbkdf2 = new PBKDF2Params(salt, iterations, MAC_KEY_LENGTH, HMAC_SHA256);
+        return new AlgorithmIdentifier(PKCSObjectIdentifiers.id_PBMAC1, new PBMAC1Params(
+                new AlgorithmIdentifier(PKCSObjectIdentifiers.id_PBKDF2, pbkdf2), HMAC_SHA256));
+    }
+
+    private String macSenderKid(PKIHeader header) {
+        AlgorithmIdentifier protAlg = header.getProtectionAlg();
+        if (protAlg == null || header.getSenderKID() == null) {
+            return null;
+        }
+        ASN1ObjectIdentifier algorithm = protAlg.getAlgorithm();
+        if (!CMPObjectIdentifiers.passwordBasedMac.equals(algorithm)
+                && !PKCSObjectIdentifiers.id_PBMAC1.equals(algorithm)) {
+            return null;
+        }
+        String senderKid = new String(header.getSenderKID().getOctets(), StandardCharsets.UTF_8);
+        return protectionProperties.sharedSecrets().containsKey(senderKid) ? senderKid : null;
+    }
+
+    private byte[] macKey(String senderKid) {
+        byte[] secret = protectionProperties.sharedSecrets().get(senderKid).getBytes(StandardCharsets.UTF_8);
+        return macKeyCache.get(senderKid, secret, PKCSObjectIdentifiers.id_hmacWithSHA256, macSalt, macIterations,
+                MAC_KEY_LENGTH, () -> {
+                    PKCS5S2ParametersGenerator generator = new PKCS5S2ParametersGenerator(DigestFactory.createSHA256());
+                    generator.init(secret, macSalt, macIterations);
+                    return ((KeyParameter) generator.generateDerivedParameters(MAC_KEY_LENGTH * 8)).getKey();
+                });
+    }
+
+    /**
+     * Signers are created under a per-CA lock rather than inside the map's compute, since creating one may decrypt
+     * the CA key and issue a protection certificate. While one is being renewed, other requests keep using the
+     * current signer, whose certificate is still valid.
+     */
+    private CmpResponseSigner signer(CertificateAuthority ca) {
+        CmpResponseSigner signer = signers.get(ca.getId());
+        if (signer != null && !signer.needsRenewal(Instant.now(), renewBefore)) {
+            return signer;
+        }
+        ReentrantLock lock = creationLocks.computeIfAbsent(ca.getId(), caId -> new ReentrantLock());
+        if (signer != null && !lock.tryLock()) {
+            return signer;
+        }
+        if (signer == null) {
+            lock.lock();
+        }
+        try {
+            CmpResponseSigner current = signers.get(ca.getId());
+            if (current != null && !current.needsRenewal(Instant.now(), renewBefore)) {
+                return current;
+            }
+            CmpResponseSigner created = create(ca);
+            signers.put(ca.getId(), created);
+            return created;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private CmpResponseSigner create(CertificateAuthority ca) {
+        DelegatedSignerService.Credential protection = delegatedSignerService.obtain(ca, DelegatedSignerPurpose.CMP,
+                keyAlgorithm, validity, renewBefore);
+
+        return CmpResponseSigner.create(ca.getId(), ca.getCertificate().toX509Certificate(),
+                protection.certificate(), protection.privateKey(), keyAlgorithm.toSignatureAlgorithm(),
+                signerPoolSize);
+    }
+}
@@ -0,0 +1,34 @@
+package io.dodn.springboot.core.domain.pki.crl;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+
+import java.time.Instant;
+
+/**
+ * Persisted CRL numbering for one CA: the last number handed out (full and delta CRLs share the sequence, as
+ * RFC 5280 §5.2.3 requires) and the identity of the current base CRL that delta CRLs refer to.
+ */
+public record CrlState(CaId caId, long lastCrlNumber, Long baseCrlNumber, Instant baseThisUpdate,
+        Instant baseNextUpdate) {
+
+    /**
+     * CRL numbers used to be derived from the wall clock, so a new sequence starts from the current epoch
+     * milliseconds to stay above anything already published for the CA.
+     */
+    public static CrlState initial(CaId caId, Instant now) {
+        return new CrlState(caId, now.toEpochMilli(), null, null, null);
+    }
+
+    public boolean hasBase() {
+        return baseCrlNumber != null;
+    }
+
+    public CrlState nextNumber() {
+        return new CrlState(caId, lastCrlNumber + 1, baseCrlNumber, baseThisUpdate, baseNextUpdate);
+    }
+
+    public CrlState nextBase(Instant thisUpdate, Instant nextUpdate) {
+        long number = lastCrlNumber + 1;
+        return new CrlState(caId, number, number, thisUpdate, nextUpdate);
+    }
+}
@@ -0,0 +1,22 @@
+package io.dodn.springboot.core.domain.pki.crl;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface CrlStateRepository {
+
+    Optional<CrlState> findByCaId(CaId caId);
+
+    /** Reads the state row with a write lock held until the surrounding transaction ends. */
+    Optional<CrlState> findByCaIdForUpdate(CaId caId);
+
+    CrlState save(CrlState state);
+
+    /** Stores the signed base CRL in {@code file} as the CA's current base, replacing the previous one. */
+    void saveBaseCrl(CaId caId, long crlNumber, Path file);
+
+    /** Copies the stored base CRL with the given number to {@code target}; false when it is not the current base. */
+    boolean copyBaseCrl(CaId caId, long crlNumber, Path target);
+}
@@ -0,0 +1,29 @@
+package io.dodn.springboot.core.domain.pki.crl;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A signed CRL as served to relying parties, kept as a DER file on local disk. The CRL number doubles as the
+ * HTTP entity tag since every regeneration assigns a new one.
+ */
+public record PublishedCrl(CaId caId, Path file, long length, BigInteger crlNumber, Instant thisUpdate,
+        Instant nextUpdate) {
+
+    public String etag() {
+        return "\"" + crlNumber.toString(16) + "\"";
+    }
+
+    public Duration timeToNextUpdate(Instant now) {
+        Duration remaining = Duration.between(now, nextUpdate);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(nextUpdate);
+    }
+}
@@ -0,0 +1,60 @@
+package io.dodn.springboot.core.domain.pki.crl.adapter;
+
+import io.dodn.springboot.core.domain.pki.crl.CrlState;
+import io.dodn.springboot.core.domain.pki.crl.CrlStateRepository;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.storage.db.core.pki.CrlBaseJdbcRepository;
+import io.dodn.springboot.storage.db.core.pki.CrlStateJpaEntity;
+import io.dodn.springboot.storage.db.core.pki.CrlStateJpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Path;
+import java.util.Optional;
+
+@Repository
+public class CrlStateRepositoryAdapter implements CrlStateRepository {
+
+    private final CrlStateJpaRepository jpaRepository;
+    private final CrlBaseJdbcRepository crlBaseRepository;
+
+    public CrlStateRepositoryAdapter(CrlStateJpaRepository jpaRepository, CrlBaseJdbcRepository crlBaseRepository) {
+        this.jpaRepository = jpaRepository;
+        this.crlBaseRepository = crlBaseRepository;
+    }
+
+    @Override
+    public Optional<CrlState> findByCaId(CaId caId) {
+        return jpaRepository.findByIssuerId(caId.value()).map(this::toDomain);
+    }
+
+    @Override
+    public Optional<CrlState> findByCaIdForUpdate(CaId caId) {
+        return jpaRepository.findByIssuerIdForUpdate(caId.value()).map(this::toDomain);
+    }
+
+    @Override
+    public CrlState save(CrlState state) {
+        CrlStateJpaEntity entity = jpaRepository.findByIssuerId(state.caId().value())
+                .orElseGet(() -> new CrlStateJpaEntity(state.caId().value(), state.lastCrlNumber()));
+        entity.setLastCrlNumber(state.lastCrlNumber());
+        if (state.hasBase()) {
+            entity.setBase(state.baseCrlNumber(), state.baseThisUpdate(), state.baseNextUpdate());
+        }
+        return toDomain(jpaRepository.save(entity));
+    }
+
+    @Override
+    public void saveBaseCrl(CaId caId, long crlNumber, Path file) {
+        crlBaseRepository.save(caId.value(), crlNumber, file);
+    }
+
+    @Override
+    public boolean copyBaseCrl(CaId caId, long crlNumber, Path target) {
+        return crlBaseRepository.copyTo(caId.value(), crlNumber, target);
+    }
+
+    private CrlState toDomain(CrlStateJpaEntity e) {
+        return new CrlState(CaId.of(e.getIssuerId()), e.getLastCrlNumber(), e.getBaseCrlNumber(),
+                e.getBaseThisUpdate(), e.getBaseNextUpdate());
+    }
+}
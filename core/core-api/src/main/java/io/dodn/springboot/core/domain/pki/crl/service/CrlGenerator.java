@@ -0,0 +1,59 @@
+package io.dodn.springboot.core.domain.pki.crl.service;
+
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.certificate.RevokedCertificateEntry;
+import io.dodn.springboot.core.domain.pki.crl.CrlState;
+import io.dodn.springboot.core.domain.pki.crypto.CaKeyService;
+import io.dodn.springboot.core.domain.pki.crypto.CertificateBuilderService;
+import io.dodn.springboot.core.domain.pki.crypto.CrlBuilderService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Signs CRL files while revocation entries are streamed from the database, which needs an open read-only
+ * transaction for the lifetime of the cursor.
+ */
+@Service
+public class CrlGenerator {
+
+    private final IssuedCertificateRepository issuedCertificateRepository;
+    private final CaKeyService caKeyService;
+    private final CertificateBuilderService certBuilderService;
+    private final CrlBuilderService crlBuilderService;
+
+    public CrlGenerator(IssuedCertificateRepository issuedCertificateRepository,
+            CaKeyService caKeyService,
+            CertificateBuilderService certBuilderService,
+            CrlBuilderService crlBuilderService) {
+        this.issuedCertificateRepository = issuedCertificateRepository;
+        this.caKeyService = caKeyService;
+        this.certBuilderService = certBuilderService;
+        this.crlBuilderService = crlBuilderService;
+    }
+
+    @Transactional(readOnly = true)
+    public void writeFull(CertificateAuthority ca, CrlState base, Path target) {
+        try (Stream<RevokedCertificateEntry> entries = issuedCertificateRepository.streamRevokedByIssuerId(ca.getId())) {
+            crlBuilderService.writeCrl(certBuilderService.issuerContext(ca), entries.iterator(),
+                    caKeyService.decrypt(ca), base.baseThisUpdate(), base.baseNextUpdate(),
+                    BigInteger.valueOf(base.baseCrlNumber()), target);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeDelta(CertificateAuthority ca, CrlState state, Instant revokedSince, Instant thisUpdate,
+            Instant nextUpdate, Path target) {
+        try (Stream<RevokedCertificateEntry> entries =
+                issuedCertificateRepository.streamRevokedByIssuerIdSince(ca.getId(), revokedSince)) {
+            crlBuilderService.writeDeltaCrl(certBuilderService.issuerContext(ca), entries.iterator(),
+                    caKeyService.decrypt(ca), thisUpdate, nextUpdate, BigInteger.valueOf(state.lastCrlNumber()),
+                    BigInteger.valueOf(state.baseCrlNumber()), target);
+        }
+    }
+}
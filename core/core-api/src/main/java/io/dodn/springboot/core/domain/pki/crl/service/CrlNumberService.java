@@ -0,0 +1,61 @@
+package io.dodn.springboot.core.domain.pki.crl.service;
+
+import io.dodn.springboot.core.domain.pki.crl.CrlState;
+import io.dodn.springboot.core.domain.pki.crl.CrlStateRepository;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+/**
+ * Hands out CRL numbers from the per-CA sequence in {@code crl_state}. Every allocation runs under a row lock, so
+ * nodes publishing CRLs for the same CA never reuse or reorder numbers.
+ */
+@Service
+public class CrlNumberService {
+
+    private final CrlStateRepository crlStateRepository;
+
+    public CrlNumberService(CrlStateRepository crlStateRepository) {
+        this.crlStateRepository = crlStateRepository;
+    }
+
+    /**
+     * Starts a new base CRL unless another node already started one within {@code minAge} that is still valid,
+     * in which case that base is returned so every node serves the same CRL. A new base is signed by
+     * {@code signer} and stored while the row lock is held, so exactly one node signs each base CRL number and
+     * the others copy its bytes with {@link #copyBaseCrl}.
+     */
+    @Transactional
+    public CrlState advanceBase(CaId caId, Instant thisUpdate, Instant nextUpdate, Duration minAge,
+            Function<CrlState, Path> signer) {
+        CrlState state = lockOrCreate(caId, thisUpdate);
+        if (state.hasBase() && state.baseThisUpdate().isAfter(thisUpdate.minus(minAge))
+                && state.baseNextUpdate().isAfter(thisUpdate)) {
+            return state;
+        }
+        CrlState next = crlStateRepository.save(state.nextBase(thisUpdate, nextUpdate));
+        crlStateRepository.saveBaseCrl(caId, next.baseCrlNumber(), signer.apply(next));
+        return next;
+    }
+
+    public boolean copyBaseCrl(CaId caId, long baseCrlNumber, Path target) {
+        return crlStateRepository.copyBaseCrl(caId, baseCrlNumber, target);
+    }
+
+    @Transactional
+    public CrlState nextDeltaNumber(CaId caId) {
+        CrlState state = crlStateRepository.findByCaIdForUpdate(caId)
+                .orElseThrow(() -> new IllegalStateException("No base CRL published for CA: " + caId.value()));
+        return crlStateRepository.save(state.nextNumber());
+    }
+
+    private CrlState lockOrCreate(CaId caId, Instant now) {
+        return crlStateRepository.findByCaIdForUpdate(caId)
+                .orElseGet(() -> crlStateRepository.save(CrlState.initial(caId, now)));
+    }
+}
@@ -0,0 +1,312 @@
+package io.dodn.springboot.core.domain.pki.crl.service;
+
+import io.dodn.springboot.core.domain.pki.ca.CaAlias;
+import io.dodn.springboot.core.domain.pki.ca.CaRepository;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateRevokedEvent;
+import io.dodn.springboot.core.domain.pki.crl.CrlState;
+import io.dodn.springboot.core.domain.pki.crl.PublishedCrl;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.support.error.CoreException;
+import io.dodn.springboot.core.support.error.ErrorType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a pre-signed full CRL and delta CRL per CA as files under {@code pki.crl.directory}. Full CRLs are regenerated by a scheduler ahead of
+ * their nextUpdate; delta CRLs are regenerated on their own schedule and immediately after a revocation, and only
+ * read the revocations recorded since the base CRL, so GET requests never touch the CA key or the revocation table.
+ */
+@Service
+public class CrlPublicationService {
+
+    /**
+     * Delta CRLs re-list revocations from slightly before the base thisUpdate, covering rows whose revocation
+     * time was taken before the base was built but that committed after it.
+     */
+    private static final Duration DELTA_OVERLAP = Duration.ofMinutes(5);
+    private static final String FULL = "-full";
+    private static final String DELTA = "-delta";
+    private static final String PENDING = ".pending";
+    private static final String STALE_FILES = "{*.crl,*" + PENDING + ",crl-*.entries,crl-*.partial}";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Map<CaId, PublishedCrl> fullCrls = new ConcurrentHashMap<>();
+    private final Map<CaId, PublishedCrl> deltaCrls = new ConcurrentHashMap<>();
+    private final Map<String, Path> retiredFiles = new ConcurrentHashMap<>();
+    private final Map<CaId, ReentrantLock> publishLocks = new ConcurrentHashMap<>();
+    private final Set<CaId> pendingDeltas = ConcurrentHashMap.newKeySet();
+    private final CaRepository caRepository;
+    private final CrlGenerator crlGenerator;
+    private final CrlNumberService crlNumberService;
+    private final Path directory;
+    private final Duration validity;
+    private final Duration refreshInterval;
+    private final Duration deltaValidity;
+
+    public CrlPublicationService(CaRepository caRepository,
+            CrlGenerator crlGenerator,
+            CrlNumberService crlNumberService,
+            @Value("${pki.crl.directory:${user.home}/.meteor-pki/crl}") Path directory,
+            @Value("${pki.crl.validity:1d}") Duration validity,
+            @Value("${pki.crl.refresh-interval:1h}") Duration refreshInterval,
+            @Value("${pki.crl.delta-validity:1h}") Duration deltaValidity) {
+        this.caRepository = caRepository;
+        this.crlGenerator = crlGenerator;
+        this.crlNumberService = crlNumberService;
+        this.directory = directory;
+        this.validity = validity;
+        this.refreshInterval = refreshInterval;
+        this.deltaValidity = deltaValidity;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create CRL directory: " + directory, e);
+        }
+        sweepStaleFiles();
+    }
+
+    public PublishedCrl getCrl(CaId caId) {
+        PublishedCrl crl = fullCrls.get(caId);
+        if (crl != null && !crl.isExpired(Instant.now())) {
+            return crl;
+        }
+        return publishFull(findById(caId));
+    }
+
+    public PublishedCrl getCrl(CaAlias alias) {
+        CertificateAuthority ca = findByAlias(alias);
+        PublishedCrl crl = fullCrls.get(ca.getId());
+        if (crl != null && !crl.isExpired(Instant.now())) {
+            return crl;
+        }
+        return publishFull(ca);
+    }
+
+    public PublishedCrl getDeltaCrl(CaId caId) {
+        PublishedCrl crl = deltaCrls.get(caId);
+        if (crl != null && !crl.isExpired(Instant.now())) {
+            return crl;
+        }
+        return publishDelta(findById(caId));
+    }
+
+    public PublishedCrl getDeltaCrl(CaAlias alias) {
+        CertificateAuthority ca = findByAlias(alias);
+        PublishedCrl crl = deltaCrls.get(ca.getId());
+        if (crl != null && !crl.isExpired(Instant.now())) {
+            return crl;
+        }
+        return publishDelta(ca);
+    }
+
+    @Scheduled(fixedDelayString = "${pki.crl.refresh-interval:1h}", initialDelayString = "${pki.crl.initial-delay:10s}")
+    public void refreshAll() {
+        for (CertificateAuthority ca : caRepository.findAll()) {
+            try {
+                publishFull(ca);
+                publishDelta(ca);
+            } catch (Exception e) {
+                log.warn("CRL regeneration failed for CA {}", ca.getAlias().value(), e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pki.crl.delta-interval:15m}", initialDelayString = "${pki.crl.delta-interval:15m}")
+    public void refreshDeltas() {
+        for (CertificateAuthority ca : caRepository.findAll()) {
+            try {
+                publishDelta(ca);
+            } catch (Exception e) {
+                log.warn("Delta CRL regeneration failed for CA {}", ca.getAlias().value(), e);
+            }
+        }
+    }
+
+    /**
+     * Revocations are coalesced per CA: while a delta regeneration is queued, further revocations only rely on it,
+     * since it reads the revocation table when it starts. A storm of revocations therefore costs one regeneration
+     * in flight plus one queued, not one per revocation. Runs after the revoking transaction commits so the
+     * regeneration sees the new row.
+     */
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        CaId caId = event.issuerId();
+        if (!pendingDeltas.add(caId)) {
+            return;
+        }
+        ReentrantLock lock = publishLock(caId);
+        lock.lock();
+        try {
+            pendingDeltas.remove(caId);
+            publishDelta(findById(caId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void evict(CaId caId) {
+        fullCrls.remove(caId);
+        deltaCrls.remove(caId);
+    }
+
+    /**
+     * Publication for one CA is serialized on a per-CA lock rather than inside the map's compute, so signing and
+     * writing a large CRL never blocks readers or other CAs that hash to the same bin.
+     */
+    private PublishedCrl publishFull(CertificateAuthority ca) {
+        CaId caId = ca.getId();
+        ReentrantLock lock = publishLock(caId);
+        lock.lock();
+        try {
+            PublishedCrl previous = fullCrls.get(caId);
+            Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            Path pending = directory.resolve(caId.value() + FULL + PENDING);
+            CrlState state;
+            try {
+                state = crlNumberService.advanceBase(caId, thisUpdate, thisUpdate.plus(validity),
+                        refreshInterval.dividedBy(2), base -> {
+                            crlGenerator.writeFull(ca, base, pending);
+                            return pending;
+                        });
+            } catch (RuntimeException e) {
+                deleteQuietly(pending);
+                throw e;
+            }
+            BigInteger crlNumber = BigInteger.valueOf(state.baseCrlNumber());
+            if (previous != null && previous.crlNumber().equals(crlNumber) && Files.exists(previous.file())) {
+                return previous;
+            }
+            Path file = directory.resolve(fileName(caId, FULL, crlNumber));
+            if (!Files.exists(pending) && !Files.exists(file)
+                    && !crlNumberService.copyBaseCrl(caId, state.baseCrlNumber(), pending)) {
+                throw new IllegalStateException("Base CRL " + crlNumber.toString(16) + " of CA " + caId.value()
+                        + " was superseded before it could be copied");
+            }
+            if (Files.exists(pending)) {
+                move(pending, file);
+            }
+            PublishedCrl current = new PublishedCrl(caId, file, size(file), crlNumber, state.baseThisUpdate(),
+                    state.baseNextUpdate());
+            fullCrls.put(caId, current);
+            retire(caId.value() + FULL, previous);
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PublishedCrl publishDelta(CertificateAuthority ca) {
+        CaId caId = ca.getId();
+        ReentrantLock lock = publishLock(caId);
+        lock.lock();
+        try {
+            if (!fullCrls.containsKey(caId)) {
+                publishFull(ca);
+            }
+            PublishedCrl previous = deltaCrls.get(caId);
+            CrlState state = crlNumberService.nextDeltaNumber(caId);
+            Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            Instant nextUpdate = thisUpdate.plus(deltaValidity);
+            BigInteger crlNumber = BigInteger.valueOf(state.lastCrlNumber());
+            Path file = directory.resolve(fileName(caId, DELTA, crlNumber));
+            crlGenerator.writeDelta(ca, state, state.baseThisUpdate().minus(DELTA_OVERLAP), thisUpdate, nextUpdate,
+                    file);
+            PublishedCrl current = new PublishedCrl(caId, file, size(file), crlNumber, thisUpdate, nextUpdate);
+            deltaCrls.put(caId, current);
+            retire(caId.value() + DELTA, previous);
+            return current;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock publishLock(CaId caId) {
+        return publishLocks.computeIfAbsent(caId, id -> new ReentrantLock());
+    }
+
+    /**
+     * The replaced file is kept for one more generation so responses already streaming it can finish; the one
+     * retired before it is deleted.
+     */
+    private void retire(String key, PublishedCrl previous) {
+        if (previous != null) {
+            deleteQuietly(retiredFiles.put(key, previous.file()));
+        }
+    }
+
+    /**
+     * Nothing on disk is referenced after a restart: CRLs are re-signed or copied from {@code crl_base} on first
+     * use, so files left by the previous run, including spool and pending files of interrupted writes, are removed.
+     */
+    private void sweepStaleFiles() {
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, STALE_FILES)) {
+            for (Path file : stale) {
+                deleteQuietly(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to sweep CRL directory {}", directory, e);
+        }
+    }
+
+    private static String fileName(CaId caId, String kind, BigInteger crlNumber) {
+        return caId.value() + kind + "-" + crlNumber.toString(16) + ".crl";
+    }
+
+    private static void move(Path source, Path target) {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to publish CRL file: " + target, e);
+        }
+    }
+
+    private static long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete CRL file {}", file, e);
+        }
+    }
+
+    private CertificateAuthority findById(CaId caId) {
+        return caRepository.findById(caId)
+                .orElseThrow(() -> new CoreException(ErrorType.PKI_CA_NOT_FOUND, caId));
+    }
+
+    private CertificateAuthority findByAlias(CaAlias alias) {
+        return caRepository.findByAlias(alias)
+                .orElseThrow(() -> new CoreException(ErrorType.PKI_CA_NOT_FOUND, alias.value()));
+    }
+}
@@ -1,21 +1,25 @@
 package io.dodn.springboot.core.domain.pki.crypto;
 
+import io.dodn.springboot.core.domain.pki.ca.CaRevokedEvent;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
 import io.dodn.springboot.core.domain.pki.vo.EncryptedPrivateKey;
 import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
 import org.bouncycastle.jce.ECNamedCurveTable;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.SecureRandom;
-import java.security.spec.ECGenParameterSpec;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Arrays;
 
@@ -28,30 +32,74 @@ public class CaKeyService {
     private static final int SALT_LENGTH = 16;
     private static final int PBKDF2_ITERATIONS = 310_000;
     private static final int KEY_LENGTH = 256;
+    private static final int DATA_KEY_LENGTH = KEY_LENGTH / 8;
+    private static final int WRAPPED_DATA_KEY_LENGTH = DATA_KEY_LENGTH + GCM_TAG_LENGTH / 8;
 
     private final String keyEncryptionSecret;
+    private final KeyWrappingMode wrappingMode;
+    private final String kekSalt;
+    private volatile SecretKey keyEncryptionKey;
+    private final CaPrivateKeyCache privateKeyCache;
+    private final KeyPairPool keyPairPool;
     private final SecureRandom secureRandom = new SecureRandom();
 
-    public CaKeyService(@Value("${pki.key-encryption-secret}") String keyEncryptionSecret) {
+    public CaKeyService(@Value("${pki.key-encryption-secret}") String keyEncryptionSecret,
+            @Value("${pki.key-wrapping.mode:PBKDF2}") KeyWrappingMode wrappingMode,
+            @Value("${pki.key-wrapping.kek-salt:}") String kekSalt,
+            CaPrivateKeyCache privateKeyCache,
+            KeyPairPool keyPairPool) {
+        if (wrappingMode == KeyWrappingMode.ENVELOPE && (kekSalt == null || kekSalt.isBlank())) {
+            throw new IllegalStateException("pki.key-wrapping.kek-salt must be set in ENVELOPE mode");
+        }
         this.keyEncryptionSecret = keyEncryptionSecret;
+        this.wrappingMode = wrappingMode;
+        this.kekSalt = kekSalt;
+        this.privateKeyCache = privateKeyCache;
+        this.keyPairPool = keyPairPool;
     }
 
     public KeyPair generateKeyPair(KeyAlgorithm algorithm) {
+        return keyPairPool.take(algorithm);
+    }
+
+    public EncryptedPrivateKey encrypt(PrivateKey privateKey, String alias) {
+        return switch (wrappingMode) {
+            case PBKDF2 -> encryptWithDerivedKey(privateKey, alias);
+            case ENVELOPE -> encryptWithEnvelope(privateKey, alias);
+        };
+    }
+
+    public PrivateKey decrypt(EncryptedPrivateKey encryptedPrivateKey, String alias, String jcaAlgorithm) {
         try {
-            KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.getJcaAlgorithm(), "BC");
-            if ("RSA".equals(algorithm.getJcaAlgorithm())) {
-                generator.initialize(algorithm.getKeySize(), secureRandom);
-            } else {
-                ECGenParameterSpec ecSpec = new ECGenParameterSpec(algorithm.getCurveName());
-                generator.initialize(ecSpec, secureRandom);
-            }
-            return generator.generateKeyPair();
+            byte[] plaintext = encryptedPrivateKey.formatVersion() == EncryptedPrivateKey.FORMAT_ENVELOPE
+                    ? decryptEnvelope(encryptedPrivateKey.payload(), alias)
+                    : decryptWithDerivedKey(encryptedPrivateKey.payload(), alias);
+            PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(plaintext);
+            java.security.KeyFactory keyFactory = java.security.KeyFactory.getInstance(jcaAlgorithm, "BC");
+            return keyFactory.generatePrivate(keySpec);
         } catch (Exception e) {
-            throw new IllegalStateException("Failed to generate key pair for algorithm: " + algorithm.type(), e);
+            throw new IllegalStateException("Failed to decrypt private key", e);
         }
     }
 
-    public EncryptedPrivateKey encrypt(PrivateKey privateKey, String alias) {
+    /**
+     * Re-encrypts a stored key in the configured wrapping mode. Returns the input unchanged when it is already
+     * in that format.
+     */
+    public EncryptedPrivateKey rewrap(EncryptedPrivateKey encryptedPrivateKey, String alias, String jcaAlgorithm) {
+        if (!needsRewrap(encryptedPrivateKey)) {
+            return encryptedPrivateKey;
+        }
+        return encrypt(decrypt(encryptedPrivateKey, alias, jcaAlgorithm), alias);
+    }
+
+    public boolean needsRewrap(EncryptedPrivateKey encryptedPrivateKey) {
+        int targetFormat = wrappingMode == KeyWrappingMode.ENVELOPE ? EncryptedPrivateKey.FORMAT_ENVELOPE
+                : EncryptedPrivateKey.FORMAT_PBKDF2;
+        return encryptedPrivateKey.formatVersion() != targetFormat;
+    }
+
+    private EncryptedPrivateKey encryptWithDerivedKey(PrivateKey privateKey, String alias) {
         try {
             byte[] salt = new byte[SALT_LENGTH];
             secureRandom.nextBytes(salt);
@@ -76,23 +124,120 @@ public class CaKeyService {
         }
     }
 
-    public PrivateKey decrypt(EncryptedPrivateKey encryptedPrivateKey, String alias, String jcaAlgorithm) {
+    private byte[] decryptWithDerivedKey(byte[] data, String alias) throws Exception {
+        byte[] salt = Arrays.copyOfRange(data, 0, SALT_LENGTH);
+        byte[] iv = Arrays.copyOfRange(data, SALT_LENGTH, SALT_LENGTH + GCM_IV_LENGTH);
+        byte[] ciphertext = Arrays.copyOfRange(data, SALT_LENGTH + GCM_IV_LENGTH, data.length);
+
+        byte[] aesKey = deriveKey(alias, salt);
+        Cipher cipher = Cipher.getInstance(AES_GCM);
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(aesKey, "AES"), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+        return cipher.doFinal(ciphertext);
+    }
+
+    private EncryptedPrivateKey encryptWithEnvelope(PrivateKey privateKey, String alias) {
         try {
-            byte[] data = encryptedPrivateKey.data();
-            byte[] salt = Arrays.copyOfRange(data, 0, SALT_LENGTH);
-            byte[] iv = Arrays.copyOfRange(data, SALT_LENGTH, SALT_LENGTH + GCM_IV_LENGTH);
-            byte[] ciphertext = Arrays.copyOfRange(data, SALT_LENGTH + GCM_IV_LENGTH, data.length);
+            byte[] aad = alias.getBytes(StandardCharsets.UTF_8);
+            byte[] dataKey = new byte[DATA_KEY_LENGTH];
+            secureRandom.nextBytes(dataKey);
 
-            byte[] aesKey = deriveKey(alias, salt);
+            byte[] dataKeyIv = new byte[GCM_IV_LENGTH];
+            secureRandom.nextBytes(dataKeyIv);
+            Cipher wrapCipher = Cipher.getInstance(AES_GCM);
+            wrapCipher.init(Cipher.ENCRYPT_MODE, keyEncryptionKey(), new GCMParameterSpec(GCM_TAG_LENGTH, dataKeyIv));
+            wrapCipher.updateAAD(aad);
+            byte[] wrappedDataKey = wrapCipher.doFinal(dataKey);
+
+            byte[] iv = new byte[GCM_IV_LENGTH];
+            secureRandom.nextBytes(iv);
             Cipher cipher = Cipher.getInstance(AES_GCM);
-            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(aesKey, "AES"), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
-            byte[] plaintext = cipher.doFinal(ciphertext);
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(dataKey, "AES"), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+            cipher.updateAAD(aad);
+            byte[] ciphertext = cipher.doFinal(privateKey.getEncoded());
+            Arrays.fill(dataKey, (byte) 0);
 
-            PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(plaintext);
-            java.security.KeyFactory keyFactory = java.security.KeyFactory.getInstance(jcaAlgorithm, "BC");
-            return keyFactory.generatePrivate(keySpec);
+            // Format: header + [dataKeyIv(12)] + [wrappedDataKey(48)] + [iv(12)] + [ciphertext]
+            byte[] payload = new byte[GCM_IV_LENGTH + WRAPPED_DATA_KEY_LENGTH + GCM_IV_LENGTH + ciphertext.length];
+            int offset = 0;
+            System.arraycopy(dataKeyIv, 0, payload, offset, GCM_IV_LENGTH);
+            offset += GCM_IV_LENGTH;
+            System.arraycopy(wrappedDataKey, 0, payload, offset, WRAPPED_DATA_KEY_LENGTH);
+            offset += WRAPPED_DATA_KEY_LENGTH;
+            System.arraycopy(iv, 0, payload, offset, GCM_IV_LENGTH);
+            offset += GCM_IV_LENGTH;
+            System.arraycopy(ciphertext, 0, payload, offset, ciphertext.length);
+            return EncryptedPrivateKey.withHeader(EncryptedPrivateKey.FORMAT_ENVELOPE, payload);
         } catch (Exception e) {
-            throw new IllegalStateException("Failed to decrypt private key", e);
+            throw new IllegalStateException("Failed to encrypt private key", e);
+        }
+    }
+
+    private byte[] decryptEnvelope(byte[] payload, String alias) throws Exception {
+        byte[] aad = alias.getBytes(StandardCharsets.UTF_8);
+        int offset = 0;
+        byte[] dataKeyIv = Arrays.copyOfRange(payload, offset, offset + GCM_IV_LENGTH);
+        offset += GCM_IV_LENGTH;
+        byte[] wrappedDataKey = Arrays.copyOfRange(payload, offset, offset + WRAPPED_DATA_KEY_LENGTH);
+        offset += WRAPPED_DATA_KEY_LENGTH;
+        byte[] iv = Arrays.copyOfRange(payload, offset, offset + GCM_IV_LENGTH);
+        offset += GCM_IV_LENGTH;
+        byte[] ciphertext = Arrays.copyOfRange(payload, offset, payload.length);
+
+        Cipher unwrapCipher = Cipher.getInstance(AES_GCM);
+        unwrapCipher.init(Cipher.DECRYPT_MODE, keyEncryptionKey(), new GCMParameterSpec(GCM_TAG_LENGTH, dataKeyIv));
+        unwrapCipher.updateAAD(aad);
+        byte[] dataKey = unwrapCipher.doFinal(wrappedDataKey);
+
+        Cipher cipher = Cipher.getInstance(AES_GCM);
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(dataKey, "AES"), new GCMParameterSpec(GCM_TAG_LENGTH, iv));
+        cipher.updateAAD(aad);
+        byte[] plaintext = cipher.doFinal(ciphertext);
+        Arrays.fill(dataKey, (byte) 0);
+        return plaintext;
+    }
+
+    public PrivateKey decrypt(CertificateAuthority ca) {
+        return privateKeyCache.get(ca.getId(), ca.getPrivateKey(), () -> decrypt(ca.getPrivateKey(),
+                ca.getAlias().value(), ca.getKeyAlgorithm().getJcaAlgorithm()));
+    }
+
+    public void evict(CaId caId) {
+        privateKeyCache.evict(caId);
+    }
+
+    @EventListener
+    public void onCaRevoked(CaRevokedEvent event) {
+        evict(event.caId());
+    }
+
+    /**
+     * Derived on first envelope use, so PBKDF2-mode nodes that never see an envelope key skip the derivation.
+     */
+    private SecretKey keyEncryptionKey() {
+        SecretKey key = keyEncryptionKey;
+        if (key == null) {
+            synchronized (this) {
+                key = keyEncryptionKey;
+                if (key == null) {
+                    if (kekSalt == null || kekSalt.isBlank()) {
+                        throw new IllegalStateException("pki.key-wrapping.kek-salt is not set");
+                    }
+                    key = deriveKeyEncryptionKey(keyEncryptionSecret, kekSalt);
+                    keyEncryptionKey = key;
+                }
+            }
+        }
+        return key;
+    }
+
+    private static SecretKey deriveKeyEncryptionKey(String secret, String kekSalt) {
+        try {
+            PBEKeySpec spec = new PBEKeySpec(secret.toCharArray(), kekSalt.getBytes(StandardCharsets.UTF_8),
+                    PBKDF2_ITERATIONS, KEY_LENGTH);
+            SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+            return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to derive key-encryption key", e);
         }
     }
 
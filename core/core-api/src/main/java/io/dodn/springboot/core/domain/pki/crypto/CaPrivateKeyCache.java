@@ -0,0 +1,48 @@
+package io.dodn.springboot.core.domain.pki.crypto;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.EncryptedPrivateKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, time-expiring cache of unwrapped CA signing keys.
+ * Entries are keyed by CA id and the encrypted key blob, so a re-keyed CA never hits a stale entry.
+ */
+@Component
+public class CaPrivateKeyCache {
+
+    private static final String CACHE_NAME = "pki.ca.private-key";
+
+    private final Cache<CacheKey, PrivateKey> cache;
+
+    public CaPrivateKeyCache(MeterRegistry meterRegistry,
+            @Value("${pki.key-cache.ttl:10m}") Duration ttl,
+            @Value("${pki.key-cache.maximum-size:100}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public PrivateKey get(CaId caId, EncryptedPrivateKey keyVersion, Supplier<PrivateKey> loader) {
+        return cache.get(new CacheKey(caId, keyVersion), key -> loader.get());
+    }
+
+    public void evict(CaId caId) {
+        cache.asMap().keySet().removeIf(key -> key.caId().equals(caId));
+    }
+
+    private record CacheKey(CaId caId, EncryptedPrivateKey keyVersion) {
+    }
+}
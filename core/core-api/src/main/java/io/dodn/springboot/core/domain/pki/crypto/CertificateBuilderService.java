@@ -1,5 +1,6 @@
 package io.dodn.springboot.core.domain.pki.crypto;
 
+import io.dodn.springboot.core.domain.pki.ca.CaRevokedEvent;
 import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
 import io.dodn.springboot.core.domain.pki.vo.CaChainDepth;
 import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
@@ -12,22 +13,22 @@ import io.dodn.springboot.core.domain.pki.vo.SanValue;
 import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
 import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
 import io.dodn.springboot.core.enums.pki.KeyUsageFlag;
-import org.bouncycastle.asn1.x509.AccessDescription;
-import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.DERNull;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
 import org.bouncycastle.asn1.x509.BasicConstraints;
-import org.bouncycastle.asn1.x509.CRLDistPoint;
-import org.bouncycastle.asn1.x509.DistributionPoint;
-import org.bouncycastle.asn1.x509.DistributionPointName;
 import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.asn1.x509.GeneralName;
 import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
 import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.asn1.x509.KeyUsage;
 import org.bouncycastle.cert.X509v3CertificateBuilder;
 import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
 import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
 import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
 import org.bouncycastle.operator.ContentSigner;
 import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import java.math.BigInteger;
@@ -41,6 +42,22 @@ import java.util.Set;
 @Service
 public class CertificateBuilderService {
 
+    private static final ThreadLocal<JcaX509ExtensionUtils> EXTENSION_UTILS = ThreadLocal.withInitial(() -> {
+        try {
+            return new JcaX509ExtensionUtils();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialize X509 extension utils", e);
+        }
+    });
+    private static final JcaX509CertificateConverter CERTIFICATE_CONVERTER =
+            new JcaX509CertificateConverter().setProvider("BC");
+
+    private final IssuerContextCache issuerContextCache;
+
+    public CertificateBuilderService(IssuerContextCache issuerContextCache) {
+        this.issuerContextCache = issuerContextCache;
+    }
+
     public CertificatePem buildRootCaCertificate(SubjectDN subjectDN, SerialNumber serialNumber,
             CertificateValidity validity, PublicKey publicKey, PrivateKey privateKey,
             CrlDistributionPoint crlDp, String signatureAlgorithm) {
@@ -72,16 +89,21 @@ public class CertificateBuilderService {
         }
     }
 
+    public IssuerContext issuerContext(CertificateAuthority issuer) {
+        return issuerContextCache.get(issuer);
+    }
+
+    @EventListener
+    public void onCaRevoked(CaRevokedEvent event) {
+        issuerContextCache.evict(event.caId());
+    }
+
     public CertificatePem buildSubCaCertificate(SubjectDN subjectDN, SerialNumber serialNumber,
             CertificateValidity validity, PublicKey publicKey, CaChainDepth chainDepth,
-            CertificateAuthority issuer, PrivateKey issuerPrivateKey,
-            CrlDistributionPoint crlDp, String aiaUrl) {
+            IssuerContext issuer, PrivateKey issuerPrivateKey, CrlDistributionPoint crlDp) {
         try {
-            JcaX509ExtensionUtils extUtils = new JcaX509ExtensionUtils();
-            X509Certificate issuerCert = issuer.getCertificate().toX509Certificate();
-
             X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
-                    issuer.getSubjectDN().toX500Name(),
+                    issuer.getIssuerName(),
                     serialNumber.value(),
                     Date.from(validity.notBefore()),
                     Date.from(validity.notAfter()),
@@ -95,17 +117,16 @@ public class CertificateBuilderService {
                     new org.bouncycastle.asn1.x509.KeyUsage(
                             org.bouncycastle.asn1.x509.KeyUsage.keyCertSign |
                             org.bouncycastle.asn1.x509.KeyUsage.cRLSign));
-            builder.addExtension(Extension.subjectKeyIdentifier, false, extUtils.createSubjectKeyIdentifier(publicKey));
-            builder.addExtension(Extension.authorityKeyIdentifier, false, extUtils.createAuthorityKeyIdentifier(issuerCert));
+            builder.addExtension(Extension.subjectKeyIdentifier, false,
+                    EXTENSION_UTILS.get().createSubjectKeyIdentifier(publicKey));
+            builder.addExtension(issuer.getAuthorityKeyIdentifier());
             addCdpExtension(builder, crlDp);
-            if (aiaUrl != null && !aiaUrl.isBlank()) {
-                addAiaExtension(builder, aiaUrl);
+            if (issuer.getAuthorityInfoAccess() != null) {
+                builder.addExtension(issuer.getAuthorityInfoAccess());
             }
 
-            ContentSigner signer = new JcaContentSignerBuilder(issuer.getKeyAlgorithm().toSignatureAlgorithm())
-                    .setProvider("BC").build(issuerPrivateKey);
-            X509Certificate cert = new JcaX509CertificateConverter().setProvider("BC").getCertificate(builder.build(signer));
-            return CertificatePem.fromX509(cert);
+            ContentSigner signer = issuer.newSigner(issuerPrivateKey);
+            return CertificatePem.fromX509(CERTIFICATE_CONVERTER.getCertificate(builder.build(signer)));
         } catch (Exception e) {
             throw new IllegalStateException("Failed to build Sub CA certificate", e);
         }
@@ -113,14 +134,11 @@ public class CertificateBuilderService {
 
     public CertificatePem buildEndEntityCertificate(SubjectDN subjectDN, SerialNumber serialNumber,
             CertificateValidity validity, PublicKey publicKey, KeyUsageExtension keyUsage,
-            ExtKeyUsageExtension extKeyUsage, SanExtension san, CertificateAuthority issuer,
-            PrivateKey issuerPrivateKey, CrlDistributionPoint crlDp, String aiaUrl) {
+            ExtKeyUsageExtension extKeyUsage, SanExtension san, IssuerContext issuer,
+            PrivateKey issuerPrivateKey) {
         try {
-            JcaX509ExtensionUtils extUtils = new JcaX509ExtensionUtils();
-            X509Certificate issuerCert = issuer.getCertificate().toX509Certificate();
-
             X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
-                    issuer.getSubjectDN().toX500Name(),
+                    issuer.getIssuerName(),
                     serialNumber.value(),
                     Date.from(validity.notBefore()),
                     Date.from(validity.notAfter()),
@@ -138,37 +156,90 @@ public class CertificateBuilderService {
                 builder.addExtension(Extension.extendedKeyUsage, false,
                         new org.bouncycastle.asn1.x509.ExtendedKeyUsage(oids));
             }
-            builder.addExtension(Extension.subjectKeyIdentifier, false, extUtils.createSubjectKeyIdentifier(publicKey));
-            builder.addExtension(Extension.authorityKeyIdentifier, false, extUtils.createAuthorityKeyIdentifier(issuerCert));
-            addCdpExtension(builder, crlDp);
-            if (aiaUrl != null && !aiaUrl.isBlank()) {
-                addAiaExtension(builder, aiaUrl);
+            builder.addExtension(Extension.subjectKeyIdentifier, false,
+                    EXTENSION_UTILS.get().createSubjectKeyIdentifier(publicKey));
+            builder.addExtension(issuer.getAuthorityKeyIdentifier());
+            if (issuer.getCrlDistributionPoints() != null) {
+                builder.addExtension(issuer.getCrlDistributionPoints());
+                builder.addExtension(issuer.getFreshestCrl());
+            }
+            if (issuer.getAuthorityInfoAccess() != null) {
+                builder.addExtension(issuer.getAuthorityInfoAccess());
             }
             if (!san.isEmpty()) {
                 addSanExtension(builder, san);
             }
 
-            ContentSigner signer = new JcaContentSignerBuilder(issuer.getKeyAlgorithm().toSignatureAlgorithm())
-                    .setProvider("BC").build(issuerPrivateKey);
-            X509Certificate cert = new JcaX509CertificateConverter().setProvider("BC").getCertificate(builder.build(signer));
-            return CertificatePem.fromX509(cert);
+            ContentSigner signer = issuer.newSigner(issuerPrivateKey);
+            return CertificatePem.fromX509(CERTIFICATE_CONVERTER.getCertificate(builder.build(signer)));
         } catch (Exception e) {
             throw new IllegalStateException("Failed to build end-entity certificate", e);
         }
     }
 
-    private void addCdpExtension(X509v3CertificateBuilder builder, CrlDistributionPoint crlDp) throws Exception {
-        if (crlDp == null) return;
-        GeneralName gn = new GeneralName(GeneralName.uniformResourceIdentifier, crlDp.url());
-        DistributionPointName dpName = new DistributionPointName(new GeneralNames(gn));
-        DistributionPoint dp = new DistributionPoint(dpName, null, null);
-        builder.addExtension(Extension.cRLDistributionPoints, false, new CRLDistPoint(new DistributionPoint[]{dp}));
+    /**
+     * Delegated OCSP signing certificate (RFC 6960 §4.2.2.2). It carries id-pkix-ocsp-nocheck, so relying parties
+     * do not check its own revocation status, and should therefore be short-lived.
+     */
+    public CertificatePem buildOcspResponderCertificate(SubjectDN subjectDN, SerialNumber serialNumber,
+            CertificateValidity validity, PublicKey publicKey, IssuerContext issuer, PrivateKey issuerPrivateKey) {
+        try {
+            X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+                    issuer.getIssuerName(),
+                    serialNumber.value(),
+                    Date.from(validity.notBefore()),
+                    Date.from(validity.notAfter()),
+                    subjectDN.toX500Name(),
+                    publicKey
+            );
+
+            builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(false));
+            builder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature));
+            builder.addExtension(Extension.extendedKeyUsage, false, new ExtendedKeyUsage(KeyPurposeId.id_kp_OCSPSigning));
+            builder.addExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nocheck, false, DERNull.INSTANCE);
+            builder.addExtension(Extension.subjectKeyIdentifier, false,
+                    EXTENSION_UTILS.get().createSubjectKeyIdentifier(publicKey));
+            builder.addExtension(issuer.getAuthorityKeyIdentifier());
+
+            ContentSigner signer = issuer.newSigner(issuerPrivateKey);
+            return CertificatePem.fromX509(CERTIFICATE_CONVERTER.getCertificate(builder.build(signer)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build OCSP responder certificate", e);
+        }
+    }
+
+    public CertificatePem buildCmpProtectionCertificate(SubjectDN subjectDN, SerialNumber serialNumber,
+            CertificateValidity validity, PublicKey publicKey, IssuerContext issuer, PrivateKey issuerPrivateKey) {
+        try {
+            X509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+                    issuer.getIssuerName(),
+                    serialNumber.value(),
+                    Date.from(validity.notBefore()),
+                    Date.from(validity.notAfter()),
+                    subjectDN.toX500Name(),
+                    publicKey
+            );
+
+            builder.addExtension(Extension.basicConstraints, true, new BasicConstraints(false));
+            builder.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.digitalSignature));
+            builder.addExtension(Extension.extendedKeyUsage, false, new ExtendedKeyUsage(KeyPurposeId.id_kp_cmcRA));
+            builder.addExtension(Extension.subjectKeyIdentifier, false,
+                    EXTENSION_UTILS.get().createSubjectKeyIdentifier(publicKey));
+            builder.addExtension(issuer.getAuthorityKeyIdentifier());
+
+            ContentSigner signer = issuer.newSigner(issuerPrivateKey);
+            return CertificatePem.fromX509(CERTIFICATE_CONVERTER.getCertificate(builder.build(signer)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build CMP protection certificate", e);
+        }
     }
 
-    private void addAiaExtension(X509v3CertificateBuilder builder, String aiaUrl) throws Exception {
-        GeneralName gn = new GeneralName(GeneralName.uniformResourceIdentifier, aiaUrl);
-        AccessDescription ad = new AccessDescription(AccessDescription.id_ad_caIssuers, gn);
-        builder.addExtension(Extension.authorityInfoAccess, false, new AuthorityInformationAccess(ad));
+    private void addCdpExtension(X509v3CertificateBuilder builder, CrlDistributionPoint crlDp) throws Exception {
+        Extension cdp = IssuerContext.cdpExtension(crlDp);
+        if (cdp != null) {
+            builder.addExtension(cdp);
+            builder.addExtension(IssuerContext.freshestCrlExtension(crlDp));
+        }
     }
 
     private void addSanExtension(X509v3CertificateBuilder builder, SanExtension san) throws Exception {
@@ -1,58 +1,61 @@
 package io.dodn.springboot.core.domain.pki.crypto;
 
-import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
-import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificate;
-import org.bouncycastle.cert.X509v2CRLBuilder;
-import org.bouncycastle.cert.jcajce.JcaX509CRLConverter;
-import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
-import org.bouncycastle.cert.jcajce.JcaX509v2CRLBuilder;
-import org.bouncycastle.operator.ContentSigner;
-import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import io.dodn.springboot.core.domain.pki.certificate.RevokedCertificateEntry;
+import org.bouncycastle.asn1.x509.CRLNumber;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
 import org.springframework.stereotype.Service;
 
+import java.math.BigInteger;
+import java.nio.file.Path;
 import java.security.PrivateKey;
-import java.security.cert.X509CRL;
-import java.util.Date;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 @Service
 public class CrlBuilderService {
 
-    private static final long CRL_VALIDITY_DAYS = 1;
-
-    public byte[] buildCrl(CertificateAuthority ca, List<IssuedCertificate> revokedCerts,
-            PrivateKey caPrivateKey) {
+    public void writeCrl(IssuerContext issuer, Iterator<RevokedCertificateEntry> revokedCerts,
+            PrivateKey caPrivateKey, Instant thisUpdate, Instant nextUpdate, BigInteger crlNumber, Path target) {
         try {
-            JcaX509ExtensionUtils extUtils = new JcaX509ExtensionUtils();
-            Date thisUpdate = new Date();
-            Date nextUpdate = new Date(thisUpdate.getTime() + CRL_VALIDITY_DAYS * 24 * 60 * 60 * 1000L);
-
-            X509v2CRLBuilder crlBuilder = new JcaX509v2CRLBuilder(ca.getCertificate().toX509Certificate(), thisUpdate);
-            crlBuilder.setNextUpdate(nextUpdate);
-            crlBuilder.addExtension(
-                    org.bouncycastle.asn1.x509.Extension.authorityKeyIdentifier,
-                    false,
-                    extUtils.createAuthorityKeyIdentifier(ca.getCertificate().toX509Certificate()));
-            crlBuilder.addExtension(
-                    org.bouncycastle.asn1.x509.Extension.cRLNumber,
-                    false,
-                    new org.bouncycastle.asn1.x509.CRLNumber(
-                            java.math.BigInteger.valueOf(System.currentTimeMillis())));
-
-            for (IssuedCertificate cert : revokedCerts) {
-                crlBuilder.addCRLEntry(
-                        cert.getSerialNumber().value(),
-                        Date.from(cert.getRevokedAt()),
-                        cert.getRevocationReason().getCode()
-                );
+            List<Extension> extensions = baseExtensions(issuer, crlNumber);
+            if (issuer.getFreshestCrl() != null) {
+                extensions.add(issuer.getFreshestCrl());
             }
-
-            ContentSigner signer = new JcaContentSignerBuilder(ca.getKeyAlgorithm().toSignatureAlgorithm())
-                    .setProvider("BC").build(caPrivateKey);
-            X509CRL crl = new JcaX509CRLConverter().setProvider("BC").getCRL(crlBuilder.build(signer));
-            return crl.getEncoded();
+            new StreamingCrlWriter(issuer.getIssuerName(), thisUpdate, nextUpdate, toExtensions(extensions))
+                    .write(revokedCerts, issuer.newSigner(caPrivateKey), target);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to build CRL", e);
         }
     }
+
+    /**
+     * Writes a delta CRL (RFC 5280 §5.2.4) listing only the given revocations, to be applied on top of the
+     * complete CRL numbered {@code baseCrlNumber}.
+     */
+    public void writeDeltaCrl(IssuerContext issuer, Iterator<RevokedCertificateEntry> revokedSinceBase,
+            PrivateKey caPrivateKey, Instant thisUpdate, Instant nextUpdate, BigInteger crlNumber,
+            BigInteger baseCrlNumber, Path target) {
+        try {
+            List<Extension> extensions = baseExtensions(issuer, crlNumber);
+            extensions.add(new Extension(Extension.deltaCRLIndicator, true, new CRLNumber(baseCrlNumber).getEncoded()));
+            new StreamingCrlWriter(issuer.getIssuerName(), thisUpdate, nextUpdate, toExtensions(extensions))
+                    .write(revokedSinceBase, issuer.newSigner(caPrivateKey), target);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build delta CRL", e);
+        }
+    }
+
+    private List<Extension> baseExtensions(IssuerContext issuer, BigInteger crlNumber) throws Exception {
+        List<Extension> extensions = new ArrayList<>();
+        extensions.add(issuer.getAuthorityKeyIdentifier());
+        extensions.add(new Extension(Extension.cRLNumber, false, new CRLNumber(crlNumber).getEncoded()));
+        return extensions;
+    }
+
+    private Extensions toExtensions(List<Extension> extensions) {
+        return new Extensions(extensions.toArray(new Extension[0]));
+    }
 }
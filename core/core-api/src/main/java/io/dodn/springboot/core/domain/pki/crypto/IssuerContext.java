@@ -0,0 +1,118 @@
+package io.dodn.springboot.core.domain.pki.crypto;
+
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
+import io.dodn.springboot.core.domain.pki.vo.CrlDistributionPoint;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AccessDescription;
+import org.bouncycastle.asn1.x509.AuthorityInformationAccess;
+import org.bouncycastle.asn1.x509.CRLDistPoint;
+import org.bouncycastle.asn1.x509.DistributionPoint;
+import org.bouncycastle.asn1.x509.DistributionPointName;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509ExtensionUtils;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Issuer-side material that is identical for every certificate a CA signs: the issuer name, the encoded
+ * AKI/CDP/freshestCRL/AIA extensions and a configured signer factory. Built once per CA certificate.
+ */
+public final class IssuerContext {
+
+    private final CaId caId;
+    private final CertificatePem certificate;
+    private final X500Name issuerName;
+    private final Extension authorityKeyIdentifier;
+    private final Extension crlDistributionPoints;
+    private final Extension freshestCrl;
+    private final Extension authorityInfoAccess;
+    private final JcaContentSignerBuilder signerBuilder;
+
+    private IssuerContext(CaId caId, CertificatePem certificate, X500Name issuerName,
+            Extension authorityKeyIdentifier, Extension crlDistributionPoints, Extension freshestCrl,
+            Extension authorityInfoAccess, JcaContentSignerBuilder signerBuilder) {
+        this.caId = caId;
+        this.certificate = certificate;
+        this.issuerName = issuerName;
+        this.authorityKeyIdentifier = authorityKeyIdentifier;
+        this.crlDistributionPoints = crlDistributionPoints;
+        this.freshestCrl = freshestCrl;
+        this.authorityInfoAccess = authorityInfoAccess;
+        this.signerBuilder = signerBuilder;
+    }
+
+    public static IssuerContext create(CertificateAuthority issuer, String aiaUrl, String ocspUrl) {
+        try {
+            X509Certificate issuerCert = issuer.getCertificate().toX509Certificate();
+            JcaX509ExtensionUtils extUtils = new JcaX509ExtensionUtils();
+            Extension aki = new Extension(Extension.authorityKeyIdentifier, false,
+                    extUtils.createAuthorityKeyIdentifier(issuerCert).getEncoded());
+            List<AccessDescription> accessDescriptions = new ArrayList<>();
+            if (ocspUrl != null && !ocspUrl.isBlank()) {
+                accessDescriptions.add(new AccessDescription(AccessDescription.id_ad_ocsp,
+                        new GeneralName(GeneralName.uniformResourceIdentifier, ocspUrl)));
+            }
+            if (aiaUrl != null && !aiaUrl.isBlank()) {
+                accessDescriptions.add(new AccessDescription(AccessDescription.id_ad_caIssuers,
+                        new GeneralName(GeneralName.uniformResourceIdentifier, aiaUrl)));
+            }
+            Extension aia = accessDescriptions.isEmpty() ? null : new Extension(Extension.authorityInfoAccess, false,
+                    new AuthorityInformationAccess(accessDescriptions.toArray(new AccessDescription[0])).getEncoded());
+            return new IssuerContext(
+                    issuer.getId(),
+                    issuer.getCertificate(),
+                    new JcaX509CertificateHolder(issuerCert).getSubject(),
+                    aki,
+                    cdpExtension(issuer.getCrlDp()),
+                    freshestCrlExtension(issuer.getCrlDp()),
+                    aia,
+                    new JcaContentSignerBuilder(issuer.getKeyAlgorithm().toSignatureAlgorithm()).setProvider("BC")
+            );
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to build issuer context for CA: " + issuer.getAlias().value(), e);
+        }
+    }
+
+    static Extension cdpExtension(CrlDistributionPoint crlDp) throws Exception {
+        if (crlDp == null) return null;
+        return distributionPointExtension(Extension.cRLDistributionPoints, crlDp.url());
+    }
+
+    static Extension freshestCrlExtension(CrlDistributionPoint crlDp) throws Exception {
+        if (crlDp == null) return null;
+        return distributionPointExtension(Extension.freshestCRL, crlDp.deltaUrl());
+    }
+
+    private static Extension distributionPointExtension(ASN1ObjectIdentifier oid, String url) throws Exception {
+        GeneralName gn = new GeneralName(GeneralName.uniformResourceIdentifier, url);
+        DistributionPointName dpName = new DistributionPointName(new GeneralNames(gn));
+        DistributionPoint dp = new DistributionPoint(dpName, null, null);
+        return new Extension(oid, false, new CRLDistPoint(new DistributionPoint[]{dp}).getEncoded());
+    }
+
+    public boolean isCurrentFor(CertificateAuthority ca) {
+        return caId.equals(ca.getId()) && certificate.equals(ca.getCertificate());
+    }
+
+    public ContentSigner newSigner(PrivateKey privateKey) throws Exception {
+        return signerBuilder.build(privateKey);
+    }
+
+    public CaId getCaId() { return caId; }
+    public X500Name getIssuerName() { return issuerName; }
+    public Extension getAuthorityKeyIdentifier() { return authorityKeyIdentifier; }
+    public Extension getCrlDistributionPoints() { return crlDistributionPoints; }
+    public Extension getFreshestCrl() { return freshestCrl; }
+    public Extension getAuthorityInfoAccess() { return authorityInfoAccess; }
+}
@@ -0,0 +1,41 @@
+package io.dodn.springboot.core.domain.pki.crypto;
+
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class IssuerContextCache {
+
+    private final Map<CaId, IssuerContext> contexts = new ConcurrentHashMap<>();
+    private final String baseUrl;
+
+    public IssuerContextCache(@Value("${pki.crl-distribution-base-url}") String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    public IssuerContext get(CertificateAuthority issuer) {
+        IssuerContext context = contexts.get(issuer.getId());
+        if (context == null || !context.isCurrentFor(issuer)) {
+            context = IssuerContext.create(issuer, aiaUrl(issuer.getId()), ocspUrl(issuer));
+            contexts.put(issuer.getId(), context);
+        }
+        return context;
+    }
+
+    public void evict(CaId caId) {
+        contexts.remove(caId);
+    }
+
+    private String aiaUrl(CaId caId) {
+        return baseUrl + "/api/v1/pki/ca/" + caId.value() + "/chain.p7c";
+    }
+
+    private String ocspUrl(CertificateAuthority issuer) {
+        return baseUrl + "/pki/" + issuer.getAlias().value() + "/ocsp";
+    }
+}
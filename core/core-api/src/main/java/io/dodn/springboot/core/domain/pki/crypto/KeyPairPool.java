@@ -0,0 +1,150 @@
+package io.dodn.springboot.core.domain.pki.crypto;
+
+import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
+import io.dodn.springboot.core.enums.pki.KeyAlgorithmType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.spec.ECGenParameterSpec;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background-filled pool of pre-generated key pairs per {@link KeyAlgorithmType}.
+ * A pool is refilled up to the high watermark once its depth drops to the low watermark;
+ * callers fall back to inline generation when it is empty.
+ */
+@Component
+public class KeyPairPool {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Executor executor;
+    private final boolean enabled;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Map<KeyAlgorithmType, Pool> pools = new EnumMap<>(KeyAlgorithmType.class);
+
+    public KeyPairPool(@Qualifier("keyPairPoolExecutor") Executor executor,
+            MeterRegistry meterRegistry,
+            @Value("${pki.key-pool.enabled:true}") boolean enabled,
+            @Value("${pki.key-pool.low-watermark:2}") int lowWatermark,
+            @Value("${pki.key-pool.high-watermark:5}") int highWatermark,
+            @Value("${pki.key-pool.algorithms:RSA_2048,RSA_4096,EC_P256,EC_P384}") List<KeyAlgorithmType> algorithms) {
+        if (lowWatermark < 0 || highWatermark < lowWatermark) {
+            throw new IllegalArgumentException("Key pool watermarks must satisfy 0 <= low <= high");
+        }
+        this.executor = executor;
+        this.enabled = enabled;
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        if (enabled) {
+            for (KeyAlgorithmType type : algorithms) {
+                Pool pool = new Pool(new KeyAlgorithm(type),
+                        Timer.builder("pki.key.pool.refill")
+                                .description("Time taken to refill a key pair pool up to its high watermark")
+                                .tag("algorithm", type.name())
+                                .register(meterRegistry));
+                Gauge.builder("pki.key.pool.depth", pool.size, AtomicInteger::get)
+                        .description("Pre-generated key pairs available")
+                        .tag("algorithm", type.name())
+                        .register(meterRegistry);
+                pools.put(type, pool);
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void fillOnStartup() {
+        pools.values().forEach(this::refillIfLow);
+    }
+
+    public KeyPair take(KeyAlgorithm algorithm) {
+        Pool pool = enabled ? pools.get(algorithm.type()) : null;
+        if (pool != null) {
+            KeyPair keyPair = pool.queue.poll();
+            if (keyPair != null) {
+                pool.size.decrementAndGet();
+            }
+            refillIfLow(pool);
+            if (keyPair != null) {
+                return keyPair;
+            }
+        }
+        return generate(algorithm);
+    }
+
+    private void refillIfLow(Pool pool) {
+        if (pool.size.get() > lowWatermark || !pool.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> refill(pool));
+        } catch (TaskRejectedException e) {
+            pool.refilling.set(false);
+            log.warn("Key pair pool refill rejected for {} : {}", pool.algorithm.type(), e.getMessage());
+        }
+    }
+
+    private void refill(Pool pool) {
+        try {
+            pool.refillTimer.record(() -> {
+                while (pool.size.get() < highWatermark) {
+                    pool.queue.add(generate(pool.algorithm));
+                    pool.size.incrementAndGet();
+                }
+            });
+        } catch (Exception e) {
+            log.error("Key pair pool refill failed for {} : {}", pool.algorithm.type(), e.getMessage(), e);
+        } finally {
+            pool.refilling.set(false);
+        }
+    }
+
+    private KeyPair generate(KeyAlgorithm algorithm) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.getJcaAlgorithm(), "BC");
+            if ("RSA".equals(algorithm.getJcaAlgorithm())) {
+                generator.initialize(algorithm.getKeySize(), secureRandom);
+            } else {
+                ECGenParameterSpec ecSpec = new ECGenParameterSpec(algorithm.getCurveName());
+                generator.initialize(ecSpec, secureRandom);
+            }
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to generate key pair for algorithm: " + algorithm.type(), e);
+        }
+    }
+
+    private static final class Pool {
+
+        private final KeyAlgorithm algorithm;
+        private final Timer refillTimer;
+        private final ConcurrentLinkedQueue<KeyPair> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        private Pool(KeyAlgorithm algorithm, Timer refillTimer) {
+            this.algorithm = algorithm;
+            this.refillTimer = refillTimer;
+        }
+    }
+}
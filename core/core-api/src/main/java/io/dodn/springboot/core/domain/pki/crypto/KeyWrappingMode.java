@@ -0,0 +1,6 @@
+package io.dodn.springboot.core.domain.pki.crypto;
+
+public enum KeyWrappingMode {
+    PBKDF2,
+    ENVELOPE
+}
@@ -0,0 +1,146 @@
+package io.dodn.springboot.core.domain.pki.crypto;
+
+import io.dodn.springboot.core.domain.pki.certificate.RevokedCertificateEntry;
+import org.bouncycastle.asn1.ASN1Encodable;
+import org.bouncycastle.asn1.ASN1EncodableVector;
+import org.bouncycastle.asn1.ASN1Encoding;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.DERSequence;
+import org.bouncycastle.asn1.DERTaggedObject;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLReason;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.Time;
+import org.bouncycastle.operator.ContentSigner;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Iterator;
+
+/**
+ * DER-encodes a CRL without holding its revokedCertificates sequence in memory. Entries are encoded one at a time
+ * into a spool file next to the target, whose size then gives the definite lengths of the enclosing structures.
+ * The spool is streamed once through the signer and once into the final file, so peak heap use does not depend
+ * on the number of entries.
+ */
+final class StreamingCrlWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SEQUENCE_TAG = 0x30;
+    private static final ASN1Integer VERSION_2 = new ASN1Integer(1);
+
+    private final X500Name issuer;
+    private final Instant thisUpdate;
+    private final Instant nextUpdate;
+    private final Extensions crlExtensions;
+
+    StreamingCrlWriter(X500Name issuer, Instant thisUpdate, Instant nextUpdate, Extensions crlExtensions) {
+        this.issuer = issuer;
+        this.thisUpdate = thisUpdate;
+        this.nextUpdate = nextUpdate;
+        this.crlExtensions = crlExtensions;
+    }
+
+    void write(Iterator<RevokedCertificateEntry> entries, ContentSigner signer, Path target) throws IOException {
+        Path spool = Files.createTempFile(target.toAbsolutePath().getParent(), "crl-", ".entries");
+        Path partial = Files.createTempFile(target.toAbsolutePath().getParent(), "crl-", ".partial");
+        try {
+            long entriesLength = spoolEntries(entries, spool);
+
+            byte[] headBytes = encodeContents(VERSION_2, signer.getAlgorithmIdentifier(), issuer,
+                    new Time(Date.from(thisUpdate)), new Time(Date.from(nextUpdate)));
+            byte[] entriesHeader = entriesLength > 0 ? header(SEQUENCE_TAG, entriesLength) : new byte[0];
+            byte[] tailBytes = new DERTaggedObject(true, 0, crlExtensions).getEncoded(ASN1Encoding.DER);
+            long tbsLength = headBytes.length + entriesHeader.length + entriesLength + tailBytes.length;
+            byte[] tbsHeader = header(SEQUENCE_TAG, tbsLength);
+
+            try (OutputStream sigOut = signer.getOutputStream()) {
+                writeTbs(sigOut, tbsHeader, headBytes, entriesHeader, spool, tailBytes);
+            }
+            byte[] signatureAlgorithm = signer.getAlgorithmIdentifier().getEncoded(ASN1Encoding.DER);
+            byte[] signatureValue = new DERBitString(signer.getSignature()).getEncoded(ASN1Encoding.DER);
+
+            long certListLength = tbsHeader.length + tbsLength + signatureAlgorithm.length + signatureValue.length;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), BUFFER_SIZE)) {
+                out.write(header(SEQUENCE_TAG, certListLength));
+                writeTbs(out, tbsHeader, headBytes, entriesHeader, spool, tailBytes);
+                out.write(signatureAlgorithm);
+                out.write(signatureValue);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(spool);
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    private long spoolEntries(Iterator<RevokedCertificateEntry> entries, Path spool) throws IOException {
+        long length = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(spool), BUFFER_SIZE)) {
+            while (entries.hasNext()) {
+                byte[] entry = encodeEntry(entries.next());
+                out.write(entry);
+                length += entry.length;
+            }
+        }
+        return length;
+    }
+
+    private static byte[] encodeEntry(RevokedCertificateEntry entry) throws IOException {
+        ASN1EncodableVector v = new ASN1EncodableVector(3);
+        v.add(new ASN1Integer(entry.serialNumber().value()));
+        v.add(new Time(Date.from(entry.revokedAt())));
+        int reasonCode = entry.reason().getCode();
+        if (reasonCode != CRLReason.unspecified) {
+            Extension reason = new Extension(Extension.reasonCode, false,
+                    CRLReason.lookup(reasonCode).getEncoded(ASN1Encoding.DER));
+            v.add(new Extensions(reason));
+        }
+        return new DERSequence(v).getEncoded(ASN1Encoding.DER);
+    }
+
+    private static void writeTbs(OutputStream out, byte[] tbsHeader, byte[] headBytes, byte[] entriesHeader,
+            Path spool, byte[] tailBytes) throws IOException {
+        out.write(tbsHeader);
+        out.write(headBytes);
+        out.write(entriesHeader);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(spool), BUFFER_SIZE)) {
+            in.transferTo(out);
+        }
+        out.write(tailBytes);
+    }
+
+    private static byte[] encodeContents(ASN1Encodable... elements) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (ASN1Encodable element : elements) {
+            out.write(element.toASN1Primitive().getEncoded(ASN1Encoding.DER));
+        }
+        return out.toByteArray();
+    }
+
+    /** Tag followed by a DER definite-form length. */
+    private static byte[] header(int tag, long length) {
+        if (length < 0x80) {
+            return new byte[]{(byte) tag, (byte) length};
+        }
+        int size = (Long.SIZE - Long.numberOfLeadingZeros(length) + 7) / 8;
+        byte[] header = new byte[2 + size];
+        header[0] = (byte) tag;
+        header[1] = (byte) (0x80 | size);
+        for (int i = 0; i < size; i++) {
+            header[2 + i] = (byte) (length >>> (8 * (size - 1 - i)));
+        }
+        return header;
+    }
+}
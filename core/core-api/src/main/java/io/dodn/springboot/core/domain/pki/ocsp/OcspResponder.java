@@ -0,0 +1,284 @@
+package io.dodn.springboot.core.domain.pki.ocsp;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import org.bouncycastle.asn1.ASN1Integer;
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.nist.NISTObjectIdentifiers;
+import org.bouncycastle.asn1.ocsp.CertID;
+import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateHolder;
+import org.bouncycastle.cert.ocsp.BasicOCSPResp;
+import org.bouncycastle.cert.ocsp.BasicOCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.CertificateID;
+import org.bouncycastle.cert.ocsp.CertificateStatus;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.bouncycastle.cert.ocsp.Req;
+import org.bouncycastle.cert.ocsp.RespID;
+import org.bouncycastle.cert.ocsp.RevokedStatus;
+import org.bouncycastle.cert.ocsp.UnknownStatus;
+import org.bouncycastle.operator.DigestCalculatorProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaDigestCalculatorProviderBuilder;
+
+import java.math.BigInteger;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * RFC 6960 responder for one CA. Statuses come from the CA's {@link RevocationIndex} and responses are signed
+ * with a delegated responder key, so answering a request touches neither the database nor the CA key.
+ * <p>
+ * In pre-produce mode, single-certificate requests without a nonce (the RFC 5019 profile used for stapling) are
+ * answered from signed responses cached per CertID hash algorithm and serial number, which are refreshed ahead
+ * of their nextUpdate and re-signed as soon as the certificate is revoked. At most {@code maxPreProduced}
+ * responses are cached, and none for expired certificates.
+ */
+public final class OcspResponder {
+
+    private static final AlgorithmIdentifier SHA256 = new AlgorithmIdentifier(NISTObjectIdentifiers.id_sha256);
+    private static final AlgorithmIdentifier[] SUPPORTED_HASHES = {CertificateID.HASH_SHA1, SHA256};
+
+    private final CaId caId;
+    private final RevocationIndex index;
+    private final Map<ASN1ObjectIdentifier, IssuerHashes> issuerHashes;
+    private final RespID responderId;
+    private final X509CertificateHolder[] responderChain;
+    private final PrivateKey responderKey;
+    private final JcaContentSignerBuilder signerBuilder;
+    private final Instant notAfter;
+    private final Duration responseValidity;
+    private final boolean preProduce;
+    private final int maxPreProduced;
+    private final Map<CacheKey, PreProducedResponse> preProduced = new ConcurrentHashMap<>();
+
+    private OcspResponder(CaId caId, RevocationIndex index, Map<ASN1ObjectIdentifier, IssuerHashes> issuerHashes,
+            RespID responderId, X509CertificateHolder responderCert, PrivateKey responderKey,
+            JcaContentSignerBuilder signerBuilder, Duration responseValidity, boolean preProduce, int maxPreProduced) {
+        this.caId = caId;
+        this.index = index;
+        this.issuerHashes = issuerHashes;
+        this.responderId = responderId;
+        this.responderChain = new X509CertificateHolder[]{responderCert};
+        this.responderKey = responderKey;
+        this.signerBuilder = signerBuilder;
+        this.notAfter = responderCert.getNotAfter().toInstant();
+        this.responseValidity = responseValidity;
+        this.preProduce = preProduce;
+        this.maxPreProduced = maxPreProduced;
+    }
+
+    public static OcspResponder create(CaId caId, X509Certificate caCertificate, X509Certificate responderCertificate,
+            PrivateKey responderKey, String signatureAlgorithm, RevocationIndex index, Duration responseValidity,
+            boolean preProduce, int maxPreProduced) {
+        try {
+            DigestCalculatorProvider digests = new JcaDigestCalculatorProviderBuilder().setProvider("BC").build();
+            X509CertificateHolder caHolder = new JcaX509CertificateHolder(caCertificate);
+            Map<ASN1ObjectIdentifier, IssuerHashes> hashes = new HashMap<>();
+            for (AlgorithmIdentifier hash : SUPPORTED_HASHES) {
+                CertificateID template = new CertificateID(digests.get(hash), caHolder, BigInteger.ONE);
+                hashes.put(hash.getAlgorithm(),
+                        new IssuerHashes(hash, template.getIssuerNameHash(), template.getIssuerKeyHash()));
+            }
+            X509CertificateHolder responderHolder = new JcaX509CertificateHolder(responderCertificate);
+            RespID responderId = new RespID(responderHolder.getSubjectPublicKeyInfo(),
+                    digests.get(CertificateID.HASH_SHA1));
+            return new OcspResponder(caId, index, Map.copyOf(hashes), responderId, responderHolder, responderKey,
+                    new JcaContentSignerBuilder(signatureAlgorithm).setProvider("BC"), responseValidity, preProduce,
+                    maxPreProduced);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialize OCSP responder for CA: " + caId.value(), e);
+        }
+    }
+
+    public byte[] respond(OCSPReq request, Instant now) throws Exception {
+        Req[] requests = request.getRequestList();
+        Extension nonce = request.getExtension(OCSPObjectIdentifiers.id_pkix_ocsp_nonce);
+        if (preProduce && requests.length == 1 && nonce == null) {
+            byte[] cached = preProduced(requests[0].getCertID(), now);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        CertificateID[] certIds = new CertificateID[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            certIds[i] = requests[i].getCertID();
+        }
+        return sign(certIds, nonce, now).encoded();
+    }
+
+    /**
+     * Re-signs cached responses whose nextUpdate is within {@code refreshAhead} and drops those of expired
+     * certificates, then signs a response for every valid, unexpired serial in the index that has none yet (by
+     * SHA-1 CertID, the form stapling clients send) until {@code maxPreProduced} responses are cached.
+     *
+     * @return the number of responses signed
+     */
+    public int refreshPreProduced(Instant now, Duration refreshAhead) throws Exception {
+        Instant threshold = now.plus(refreshAhead);
+        int signed = 0;
+        for (Map.Entry<CacheKey, PreProducedResponse> entry : preProduced.entrySet()) {
+            RevocationIndex.Entry status = index.lookup(entry.getKey().serialNumber());
+            if (status == null || status.isExpired(now)) {
+                preProduced.remove(entry.getKey(), entry.getValue());
+            } else if (!entry.getValue().nextUpdate().isAfter(threshold)) {
+                store(entry.getKey(), now);
+                signed++;
+            }
+        }
+        IssuerHashes sha1 = issuerHashes.get(CertificateID.HASH_SHA1.getAlgorithm());
+        for (BigInteger serial : index.serialNumbers()) {
+            if (preProduced.size() >= maxPreProduced) {
+                break;
+            }
+            RevocationIndex.Entry status = index.lookup(serial);
+            if (status == null || status.isRevoked() || status.isExpired(now)) {
+                continue;
+            }
+            CacheKey key = new CacheKey(sha1.algorithm().getAlgorithm(), serial);
+            if (!preProduced.containsKey(key)) {
+                store(key, now);
+                signed++;
+            }
+        }
+        return signed;
+    }
+
+    /** Re-signs the cached responses for one serial, e.g. right after it was revoked. */
+    public void reproduce(BigInteger serialNumber, Instant now) throws Exception {
+        for (IssuerHashes hashes : issuerHashes.values()) {
+            CacheKey key = new CacheKey(hashes.algorithm().getAlgorithm(), serialNumber);
+            if (preProduced.containsKey(key)) {
+                store(key, now);
+            }
+        }
+    }
+
+    /** Serials requested for this CA that the index does not know. */
+    public List<BigInteger> unknownSerials(OCSPReq request) {
+        List<BigInteger> unknown = new ArrayList<>();
+        for (Req req : request.getRequestList()) {
+            CertificateID certId = req.getCertID();
+            IssuerHashes hashes = issuerHashes.get(certId.getHashAlgOID());
+            if (hashes != null && hashes.matches(certId) && index.lookup(certId.getSerialNumber()) == null) {
+                unknown.add(certId.getSerialNumber());
+            }
+        }
+        return unknown;
+    }
+
+    public boolean needsRenewal(Instant now, Duration renewBefore) {
+        return !now.plus(renewBefore).isBefore(notAfter);
+    }
+
+    public boolean isPreProducing() {
+        return preProduce;
+    }
+
+    public int preProducedCount() {
+        return preProduced.size();
+    }
+
+    private byte[] preProduced(CertificateID certId, Instant now) throws Exception {
+        IssuerHashes hashes = issuerHashes.get(certId.getHashAlgOID());
+        if (hashes == null || !hashes.matches(certId)) {
+            return null;
+        }
+        RevocationIndex.Entry status = index.lookup(certId.getSerialNumber());
+        if (status == null || status.isExpired(now)) {
+            return null;
+        }
+        CacheKey key = new CacheKey(certId.getHashAlgOID(), certId.getSerialNumber());
+        PreProducedResponse cached = preProduced.get(key);
+        if (cached != null && now.isBefore(cached.nextUpdate())) {
+            return cached.encoded();
+        }
+        if (cached == null && preProduced.size() >= maxPreProduced) {
+            return null;
+        }
+        PreProducedResponse stored = store(key, now);
+        return stored != null && now.isBefore(stored.nextUpdate()) ? stored.encoded() : null;
+    }
+
+    /**
+     * Signs a response for the key and caches it only if the serial's index entry is still the one it was signed
+     * from, so a response signed before a concurrent revocation never replaces one signed after it. Returns what
+     * the cache holds afterwards.
+     */
+    private PreProducedResponse store(CacheKey key, Instant now) throws Exception {
+        RevocationIndex.Entry signedFrom = index.lookup(key.serialNumber());
+        IssuerHashes hashes = issuerHashes.get(key.hashAlgorithm());
+        PreProducedResponse fresh = sign(new CertificateID[]{hashes.certificateId(key.serialNumber())}, null, now);
+        return preProduced.compute(key,
+                (k, existing) -> index.lookup(k.serialNumber()) == signedFrom ? fresh : existing);
+    }
+
+    private PreProducedResponse sign(CertificateID[] certIds, Extension nonce, Instant now) throws Exception {
+        Instant thisUpdate = now.truncatedTo(ChronoUnit.SECONDS);
+        Instant nextUpdate = thisUpdate.plus(responseValidity);
+        Date thisUpdateDate = Date.from(thisUpdate);
+        Date nextUpdateDate = Date.from(nextUpdate);
+
+        BasicOCSPRespBuilder builder = new BasicOCSPRespBuilder(responderId);
+        for (CertificateID certId : certIds) {
+            builder.addResponse(certId, status(certId), thisUpdateDate, nextUpdateDate, null);
+        }
+        if (nonce != null) {
+            builder.setResponseExtensions(new Extensions(nonce));
+        }
+        BasicOCSPResp basic = builder.build(signerBuilder.build(responderKey), responderChain, thisUpdateDate);
+        byte[] encoded = new OCSPRespBuilder().build(OCSPRespBuilder.SUCCESSFUL, basic).getEncoded();
+        return new PreProducedResponse(encoded, nextUpdate);
+    }
+
+    private CertificateStatus status(CertificateID certId) {
+        IssuerHashes hashes = issuerHashes.get(certId.getHashAlgOID());
+        if (hashes == null || !hashes.matches(certId)) {
+            return new UnknownStatus();
+        }
+        RevocationIndex.Entry entry = index.lookup(certId.getSerialNumber());
+        if (entry == null) {
+            return new UnknownStatus();
+        }
+        if (entry.isRevoked()) {
+            return new RevokedStatus(Date.from(entry.revokedAt()), entry.reason().getCode());
+        }
+        return CertificateStatus.GOOD;
+    }
+
+    public CaId getCaId() { return caId; }
+
+    private record IssuerHashes(AlgorithmIdentifier algorithm, byte[] nameHash, byte[] keyHash) {
+
+        boolean matches(CertificateID certId) {
+            return Arrays.equals(nameHash, certId.getIssuerNameHash())
+                    && Arrays.equals(keyHash, certId.getIssuerKeyHash());
+        }
+
+        CertificateID certificateId(BigInteger serialNumber) {
+            return new CertificateID(new CertID(algorithm, new DEROctetString(nameHash), new DEROctetString(keyHash),
+                    new ASN1Integer(serialNumber)));
+        }
+    }
+
+    private record CacheKey(ASN1ObjectIdentifier hashAlgorithm, BigInteger serialNumber) {
+    }
+
+    private record PreProducedResponse(byte[] encoded, Instant nextUpdate) {
+    }
+}
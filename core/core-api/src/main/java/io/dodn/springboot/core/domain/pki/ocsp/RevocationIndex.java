@@ -0,0 +1,76 @@
+package io.dodn.springboot.core.domain.pki.ocsp;
+
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serial number to revocation status of every certificate one CA has issued. Updates may arrive while the index
+ * is still being loaded from the database, so a revocation always wins over a concurrent "issued" record.
+ * {@link #syncedAt()} is the start of the last load or sync from the database; changes made on other nodes
+ * after it are not reflected yet.
+ */
+public final class RevocationIndex {
+
+    private final Map<BigInteger, Entry> entries = new ConcurrentHashMap<>();
+    private volatile Instant syncedAt = Instant.EPOCH;
+
+    public void markIssued(SerialNumber serialNumber, Instant notAfter) {
+        entries.putIfAbsent(serialNumber.value(), new Entry(null, null, notAfter));
+    }
+
+    /**
+     * Returns {@code true} if the serial was not known as revoked before. An entry already revoked is kept as is,
+     * so re-applying a revocation does not replace it.
+     */
+    public boolean markRevoked(SerialNumber serialNumber, Instant revokedAt, RevocationReason reason) {
+        boolean[] changed = {false};
+        entries.compute(serialNumber.value(), (serial, previous) -> {
+            if (previous != null && previous.isRevoked()) {
+                return previous;
+            }
+            changed[0] = true;
+            return new Entry(revokedAt, reason, previous != null ? previous.notAfter() : null);
+        });
+        return changed[0];
+    }
+
+    /** Returns {@code null} for serial numbers this CA never issued. */
+    public Entry lookup(BigInteger serialNumber) {
+        return entries.get(serialNumber);
+    }
+
+    public Set<BigInteger> serialNumbers() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Instant syncedAt() {
+        return syncedAt;
+    }
+
+    public void markSynced(Instant startedAt) {
+        syncedAt = startedAt;
+    }
+
+    /** {@code notAfter} is null for serials revoked before their issuance was seen. */
+    public record Entry(Instant revokedAt, RevocationReason reason, Instant notAfter) {
+
+        public boolean isRevoked() {
+            return revokedAt != null;
+        }
+
+        public boolean isExpired(Instant now) {
+            return notAfter != null && !now.isBefore(notAfter);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package io.dodn.springboot.core.domain.pki.ocsp.service;
+
+import io.dodn.springboot.core.domain.pki.ca.CaAlias;
+import io.dodn.springboot.core.domain.pki.ca.CaRepository;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.ca.CaRevokedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateRevokedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.service.DelegatedSignerService;
+import io.dodn.springboot.core.domain.pki.ocsp.OcspResponder;
+import io.dodn.springboot.core.domain.pki.ocsp.RevocationIndex;
+import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.DelegatedSignerPurpose;
+import io.dodn.springboot.core.enums.pki.KeyAlgorithmType;
+import io.dodn.springboot.core.support.error.CoreException;
+import io.dodn.springboot.core.support.error.ErrorType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bouncycastle.cert.ocsp.OCSPReq;
+import org.bouncycastle.cert.ocsp.OCSPRespBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Entry point of the OCSP responder. Each CA signs through a delegated responder certificate from
+ * {@link DelegatedSignerService}, shared by all nodes and issued only when none is left or it is due for renewal.
+ * With {@code pki.ocsp.pre-produce.enabled}, responses for every known serial are signed in the background.
+ * <p>
+ * Each CA's revocation index is synced with the database every {@code pki.ocsp.index-sync.interval}, so
+ * revocations made on other nodes are served; a request that finds its index older than
+ * {@code pki.ocsp.index-sync.max-staleness} syncs it before it is answered.
+ */
+@Service
+public class OcspResponderService {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Map<String, OcspResponder> responders = new ConcurrentHashMap<>();
+    private final Map<String, ReentrantLock> creationLocks = new ConcurrentHashMap<>();
+    private final CaRepository caRepository;
+    private final DelegatedSignerService delegatedSignerService;
+    private final RevocationIndexRegistry indexRegistry;
+    private final KeyAlgorithm responderKeyAlgorithm;
+    private final Duration responderValidity;
+    private final Duration renewBefore;
+    private final Duration responseValidity;
+    private final boolean preload;
+    private final boolean preProduce;
+    private final Duration preProduceRefreshAhead;
+    private final int maxPreProduced;
+    private final Duration indexMaxStaleness;
+
+    public OcspResponderService(CaRepository caRepository,
+            DelegatedSignerService delegatedSignerService,
+            RevocationIndexRegistry indexRegistry,
+            @Value("${pki.ocsp.responder-key-algorithm:EC_P256}") KeyAlgorithmType responderKeyAlgorithm,
+            @Value("${pki.ocsp.responder-validity:7d}") Duration responderValidity,
+            @Value("${pki.ocsp.renew-before:1d}") Duration renewBefore,
+            @Value("${pki.ocsp.response-validity:1h}") Duration responseValidity,
+            @Value("${pki.ocsp.preload:true}") boolean preload,
+            @Value("${pki.ocsp.pre-produce.enabled:false}") boolean preProduce,
+            @Value("${pki.ocsp.pre-produce.refresh-ahead:15m}") Duration preProduceRefreshAhead,
+            @Value("${pki.ocsp.pre-produce.max-responses:100000}") int maxPreProduced,
+            @Value("${pki.ocsp.index-sync.max-staleness:1m}") Duration indexMaxStaleness,
+            MeterRegistry meterRegistry) {
+        this.caRepository = caRepository;
+        this.delegatedSignerService = delegatedSignerService;
+        this.indexRegistry = indexRegistry;
+        this.responderKeyAlgorithm = new KeyAlgorithm(responderKeyAlgorithm);
+        this.responderValidity = responderValidity;
+        this.renewBefore = renewBefore;
+        this.responseValidity = responseValidity;
+        this.preload = preload;
+        this.preProduce = preProduce;
+        this.preProduceRefreshAhead = preProduceRefreshAhead;
+        this.maxPreProduced = maxPreProduced;
+        this.indexMaxStaleness = indexMaxStaleness;
+        Gauge.builder("pki.ocsp.pre-produced.size", responders,
+                        map -> map.values().stream().mapToInt(OcspResponder::preProducedCount).sum())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Always returns a DER-encoded OCSPResponse; failures are reported through its responseStatus as RFC 6960
+     * requires rather than as HTTP errors.
+     */
+    public byte[] respond(String caAlias, byte[] requestDer) {
+        OCSPReq request;
+        try {
+            request = new OCSPReq(requestDer);
+        } catch (Exception e) {
+            return errorResponse(OCSPRespBuilder.MALFORMED_REQUEST);
+        }
+        OcspResponder responder;
+        try {
+            responder = responder(caAlias);
+        } catch (CoreException e) {
+            return errorResponse(OCSPRespBuilder.UNAUTHORIZED);
+        }
+        try {
+            Instant now = Instant.now();
+            if (indexRegistry.isSyncDue(responder.getCaId(), now, indexMaxStaleness)) {
+                syncIndex(responder);
+            }
+            for (BigInteger serialNumber : responder.unknownSerials(request)) {
+                indexRegistry.resolveUnknown(responder.getCaId(), serialNumber);
+            }
+            return responder.respond(request, now);
+        } catch (Exception e) {
+            log.error("Failed to build OCSP response for CA {}", caAlias, e);
+            return errorResponse(OCSPRespBuilder.INTERNAL_ERROR);
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadOnStartup() {
+        if (!preload) {
+            return;
+        }
+        for (CertificateAuthority ca : caRepository.findAll()) {
+            try {
+                OcspResponder responder = responder(ca.getAlias().value());
+                if (preProduce) {
+                    responder.refreshPreProduced(Instant.now(), preProduceRefreshAhead);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to preload OCSP responder for CA {}", ca.getAlias().value(), e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pki.ocsp.pre-produce.refresh-interval:5m}",
+            initialDelayString = "${pki.ocsp.pre-produce.refresh-interval:5m}")
+    public void refreshPreProduced() {
+        if (!preProduce) {
+            return;
+        }
+        for (OcspResponder responder : responders.values()) {
+            try {
+                int signed = responder.refreshPreProduced(Instant.now(), preProduceRefreshAhead);
+                log.debug("Pre-produced {} OCSP responses for CA {}", signed, responder.getCaId().value());
+            } catch (Exception e) {
+                log.warn("Failed to refresh pre-produced OCSP responses for CA {}", responder.getCaId().value(), e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${pki.ocsp.index-sync.interval:30s}",
+            initialDelayString = "${pki.ocsp.index-sync.interval:30s}")
+    public void syncIndexes() {
+        for (OcspResponder responder : responders.values()) {
+            try {
+                syncIndex(responder);
+            } catch (Exception e) {
+                log.warn("Failed to sync OCSP revocation index for CA {}", responder.getCaId().value(), e);
+            }
+        }
+    }
+
+    /**
+     * Runs after {@link RevocationIndexRegistry} has applied the revocation, so the re-signed response carries
+     * the new status instead of a cached "good" one being served until the next refresh.
+     */
+    @EventListener
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        for (OcspResponder responder : responders.values()) {
+            if (responder.isPreProducing() && responder.getCaId().equals(event.issuerId())) {
+                try {
+                    responder.reproduce(event.serialNumber().value(), Instant.now());
+                } catch (Exception e) {
+                    log.error("Failed to re-sign OCSP response for {}", event.serialNumber().toHex(), e);
+                }
+            }
+        }
+    }
+
+    @EventListener
+    public void onCaRevoked(CaRevokedEvent event) {
+        responders.values().removeIf(responder -> responder.getCaId().equals(event.caId()));
+        indexRegistry.evict(event.caId());
+    }
+
+    private void syncIndex(OcspResponder responder) throws Exception {
+        List<SerialNumber> revoked = indexRegistry.sync(responder.getCaId());
+        if (responder.isPreProducing()) {
+            for (SerialNumber serialNumber : revoked) {
+                responder.reproduce(serialNumber.value(), Instant.now());
+            }
+        }
+    }
+
+    /**
+     * Responders are created under a per-alias lock rather than inside the map's compute, since creating one loads
+     * the CA's index and may issue a responder certificate. While one is being renewed, other requests keep using
+     * the current responder, whose certificate is still valid.
+     */
+    private OcspResponder responder(String caAlias) {
+        OcspResponder responder = responders.get(caAlias);
+        if (responder != null && !responder.needsRenewal(Instant.now(), renewBefore)) {
+            return responder;
+        }
+        ReentrantLock lock = creationLocks.computeIfAbsent(caAlias, alias -> new ReentrantLock());
+        if (responder != null && !lock.tryLock()) {
+            return responder;
+        }
+        if (responder == null) {
+            lock.lock();
+        }
+        try {
+            OcspResponder current = responders.get(caAlias);
+            if (current != null && !current.needsRenewal(Instant.now(), renewBefore)) {
+                return current;
+            }
+            OcspResponder created = create(caAlias);
+            responders.put(caAlias, created);
+            return created;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private OcspResponder create(String caAlias) {
+        CertificateAuthority ca = caRepository.findByAlias(CaAlias.of(caAlias))
+                .orElseThrow(() -> new CoreException(ErrorType.PKI_CA_NOT_FOUND, caAlias));
+        RevocationIndex index = indexRegistry.getOrLoad(ca.getId());
+
+        DelegatedSignerService.Credential responder = delegatedSignerService.obtain(ca, DelegatedSignerPurpose.OCSP,
+                responderKeyAlgorithm, responderValidity, renewBefore);
+
+        return OcspResponder.create(ca.getId(), ca.getCertificate().toX509Certificate(), responder.certificate(),
+                responder.privateKey(), responderKeyAlgorithm.toSignatureAlgorithm(), index, responseValidity,
+                preProduce, maxPreProduced);
+    }
+
+    private static byte[] errorResponse(int status) {
+        try {
+            return new OCSPRespBuilder().build(status, null).getEncoded();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode OCSP error response", e);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package io.dodn.springboot.core.domain.pki.ocsp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateIssuedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateRevokedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateStatusEntry;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.certificate.RevokedCertificateEntry;
+import io.dodn.springboot.core.domain.pki.ocsp.RevocationIndex;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Owns the per-CA {@link RevocationIndex}. Each CA is loaded at most once at a time, by the first caller; others
+ * asking for the same CA wait on its load future, while loads of other CAs proceed independently. An index is
+ * published only once its load has finished. Issuance and revocation events that arrive during the load are
+ * applied to the index being loaded, so they are part of it when it is published rather than lost.
+ * <p>
+ * Events only cover this node. Revocations made on other nodes are picked up by {@link #sync}, which re-reads
+ * revocations recorded since the index was last synced, and certificates issued elsewhere are looked up one by one
+ * through {@link #resolveUnknown} the first time they are asked for. Serials not found are remembered for
+ * {@code pki.ocsp.index-sync.unknown-ttl} so repeated queries for them do not reach the database.
+ */
+@Service
+public class RevocationIndexRegistry {
+
+    private static final String UNKNOWN_CACHE_NAME = "pki.ocsp.unknown-serial";
+
+    private final Map<CaId, RevocationIndex> indexes = new ConcurrentHashMap<>();
+    private final Map<CaId, Loading> loads = new ConcurrentHashMap<>();
+    private final Cache<UnknownSerial, Boolean> unknownSerials;
+    private final IssuedCertificateRepository issuedCertificateRepository;
+    private final Duration overlap;
+
+    public RevocationIndexRegistry(IssuedCertificateRepository issuedCertificateRepository,
+            @Value("${pki.ocsp.index-sync.overlap:1m}") Duration overlap,
+            @Value("${pki.ocsp.index-sync.unknown-ttl:30s}") Duration unknownTtl,
+            @Value("${pki.ocsp.index-sync.unknown-maximum-size:100000}") long unknownMaximumSize,
+            MeterRegistry meterRegistry) {
+        this.issuedCertificateRepository = issuedCertificateRepository;
+        this.overlap = overlap;
+        this.unknownSerials = Caffeine.newBuilder()
+                .expireAfterWrite(unknownTtl)
+                .maximumSize(unknownMaximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownSerials, UNKNOWN_CACHE_NAME);
+        Gauge.builder("pki.ocsp.index.size", indexes,
+                        map -> map.values().stream().mapToInt(RevocationIndex::size).sum())
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public RevocationIndex getOrLoad(CaId caId) {
+        RevocationIndex index = indexes.get(caId);
+        if (index != null) {
+            return index;
+        }
+        Loading loading = new Loading(new RevocationIndex(), new CompletableFuture<>());
+        Loading inFlight = loads.putIfAbsent(caId, loading);
+        if (inFlight != null) {
+            return await(inFlight.future());
+        }
+        try {
+            // A load that finished between the lookup above and registering this one has already published.
+            index = indexes.get(caId);
+            if (index == null) {
+                load(caId, loading.index());
+                index = loading.index();
+                indexes.put(caId, index);
+            }
+            loading.future().complete(index);
+            return index;
+        } catch (RuntimeException e) {
+            loading.future().completeExceptionally(e);
+            throw e;
+        } finally {
+            if (!loads.remove(caId, loading)) {
+                // Evicted while loading.
+                indexes.remove(caId, loading.index());
+            }
+        }
+    }
+
+    /**
+     * Applies revocations recorded since the index was last synced, re-reading {@code pki.ocsp.index-sync.overlap}
+     * before that to cover rows committed late and clock skew between nodes. Returns the serials that became revoked.
+     */
+    @Transactional(readOnly = true)
+    public List<SerialNumber> sync(CaId caId) {
+        RevocationIndex index = indexes.get(caId);
+        if (index == null) {
+            return List.of();
+        }
+        synchronized (index) {
+            Instant startedAt = Instant.now();
+            List<SerialNumber> revoked = new ArrayList<>();
+            try (Stream<RevokedCertificateEntry> entries = issuedCertificateRepository
+                    .streamRevokedByIssuerIdSince(caId, index.syncedAt().minus(overlap))) {
+                entries.forEach(entry -> {
+                    if (index.markRevoked(entry.serialNumber(), entry.revokedAt(), entry.reason())) {
+                        revoked.add(entry.serialNumber());
+                    }
+                });
+            }
+            index.markSynced(startedAt);
+            return revoked;
+        }
+    }
+
+    public boolean isSyncDue(CaId caId, Instant now, Duration maxStaleness) {
+        RevocationIndex index = indexes.get(caId);
+        return index != null && !now.isBefore(index.syncedAt().plus(maxStaleness));
+    }
+
+    /**
+     * Looks up a serial the index does not know, e.g. one issued on another node since the index was loaded, and
+     * adds it. Returns {@code false} if the CA never issued it.
+     */
+    public boolean resolveUnknown(CaId caId, BigInteger serialNumber) {
+        RevocationIndex index = indexes.get(caId);
+        if (index == null) {
+            return false;
+        }
+        if (index.lookup(serialNumber) != null) {
+            return true;
+        }
+        UnknownSerial key = new UnknownSerial(caId, serialNumber);
+        if (unknownSerials.getIfPresent(key) != null) {
+            return false;
+        }
+        Optional<CertificateStatusEntry> status =
+                issuedCertificateRepository.findStatusBySerialNumber(SerialNumber.of(serialNumber), caId);
+        if (status.isEmpty()) {
+            unknownSerials.put(key, Boolean.TRUE);
+            return false;
+        }
+        apply(index, status.get());
+        return true;
+    }
+
+    /** Applied once the issuing transaction commits, so a rolled-back batch never shows up as good. */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCertificateIssued(CertificateIssuedEvent event) {
+        apply(event.issuerId(), index -> index.markIssued(event.serialNumber(), event.notAfter()));
+        unknownSerials.invalidate(new UnknownSerial(event.issuerId(), event.serialNumber().value()));
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onCertificateRevoked(CertificateRevokedEvent event) {
+        apply(event.issuerId(), index -> index.markRevoked(event.serialNumber(), event.revokedAt(), event.reason()));
+    }
+
+    public void evict(CaId caId) {
+        loads.remove(caId);
+        indexes.remove(caId);
+        unknownSerials.asMap().keySet().removeIf(key -> key.caId().equals(caId));
+    }
+
+    /**
+     * Applies an event to the index being loaded, if any, and to the published one. The load is looked up first:
+     * a load publishes its index before deregistering, so an event that misses the load finds the published index.
+     */
+    private void apply(CaId caId, Consumer<RevocationIndex> update) {
+        Loading loading = loads.get(caId);
+        if (loading != null) {
+            update.accept(loading.index());
+        }
+        RevocationIndex index = indexes.get(caId);
+        if (index != null && (loading == null || index != loading.index())) {
+            update.accept(index);
+        }
+    }
+
+    private static RevocationIndex await(CompletableFuture<RevocationIndex> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void load(CaId caId, RevocationIndex index) {
+        Instant startedAt = Instant.now();
+        try (Stream<CertificateStatusEntry> entries = issuedCertificateRepository.streamStatusesByIssuerId(caId)) {
+            entries.forEach(entry -> apply(index, entry));
+        }
+        index.markSynced(startedAt);
+    }
+
+    private static void apply(RevocationIndex index, CertificateStatusEntry entry) {
+        if (entry.status() == CertificateStatus.REVOKED) {
+            index.markRevoked(entry.serialNumber(), entry.revokedAt(), entry.reason());
+        } else {
+            index.markIssued(entry.serialNumber(), entry.notAfter());
+        }
+    }
+
+    private record Loading(RevocationIndex index, CompletableFuture<RevocationIndex> future) {
+    }
+
+    private record UnknownSerial(CaId caId, BigInteger serialNumber) {
+    }
+}
@@ -9,55 +9,123 @@ import java.io.StringReader;
 import java.io.StringWriter;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
-import java.util.Base64;
+import java.util.Arrays;
 
-public record CertificatePem(String pem) {
+/**
+ * X.509 certificate held as PEM or DER. Whichever representation the instance was created from is kept as is; the
+ * other one and the parsed {@link X509Certificate} are derived lazily on first access and kept, so certificates
+ * loaded from DER storage only pay for PEM encoding when a caller actually asks for {@link #pem()}.
+ */
+public final class CertificatePem {
 
-    public CertificatePem {
+    private volatile String pem;
+    private volatile byte[] der;
+    private volatile X509Certificate certificate;
+
+    public CertificatePem(String pem) {
         if (pem == null || pem.isBlank()) {
             throw new IllegalArgumentException("PEM string must not be blank");
         }
+        this.pem = pem;
+    }
+
+    private CertificatePem(byte[] der, X509Certificate certificate) {
+        if (der == null || der.length == 0) {
+            throw new IllegalArgumentException("DER bytes must not be empty");
+        }
+        this.der = der;
+        this.certificate = certificate;
+    }
+
+    public String pem() {
+        String text = pem;
+        if (text == null) {
+            text = encodePem(der);
+            pem = text;
+        }
+        return text;
     }
 
     public X509Certificate toX509Certificate() {
-        try {
-            PemReader reader = new PemReader(new StringReader(pem));
-            PemObject pemObject = reader.readPemObject();
-            byte[] der = pemObject.getContent();
-            CertificateFactory cf = CertificateFactory.getInstance("X.509");
-            return (X509Certificate) cf.generateCertificate(new ByteArrayInputStream(der));
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to parse PEM certificate", e);
+        X509Certificate cert = certificate;
+        if (cert == null) {
+            try {
+                CertificateFactory cf = CertificateFactory.getInstance("X.509");
+                cert = (X509Certificate) cf.generateCertificate(new ByteArrayInputStream(derBytes()));
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to parse PEM certificate", e);
+            }
+            certificate = cert;
         }
+        return cert;
     }
 
     public byte[] toDer() {
+        return derBytes().clone();
+    }
+
+    private byte[] derBytes() {
+        byte[] bytes = der;
+        if (bytes == null) {
+            try {
+                PemReader reader = new PemReader(new StringReader(pem));
+                PemObject pemObject = reader.readPemObject();
+                bytes = pemObject.getContent();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to extract DER from PEM", e);
+            }
+            der = bytes;
+        }
+        return bytes;
+    }
+
+    public static CertificatePem fromDer(byte[] der) {
+        return new CertificatePem(der.clone(), null);
+    }
+
+    /**
+     * Dual read for the PEM-to-DER storage migration: rows written before the {@code certificate_der} column existed
+     * only carry the legacy PEM text. Returns null when neither is present.
+     */
+    public static CertificatePem fromStored(byte[] der, String legacyPem) {
+        if (der != null) return fromDer(der);
+        return legacyPem != null ? new CertificatePem(legacyPem) : null;
+    }
+
+    public static CertificatePem fromX509(X509Certificate cert) {
         try {
-            PemReader reader = new PemReader(new StringReader(pem));
-            PemObject pemObject = reader.readPemObject();
-            return pemObject.getContent();
+            return new CertificatePem(cert.getEncoded(), cert);
         } catch (Exception e) {
-            throw new IllegalStateException("Failed to extract DER from PEM", e);
+            throw new IllegalStateException("Failed to encode X509Certificate to PEM", e);
         }
     }
 
-    public static CertificatePem fromDer(byte[] der) {
+    private static String encodePem(byte[] der) {
         try {
             StringWriter sw = new StringWriter();
             PemWriter pw = new PemWriter(sw);
             pw.writeObject(new PemObject("CERTIFICATE", der));
             pw.close();
-            return new CertificatePem(sw.toString());
+            return sw.toString();
         } catch (Exception e) {
             throw new IllegalStateException("Failed to encode DER to PEM", e);
         }
     }
 
-    public static CertificatePem fromX509(X509Certificate cert) {
-        try {
-            return fromDer(cert.getEncoded());
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to encode X509Certificate to PEM", e);
-        }
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CertificatePem that)) return false;
+        return Arrays.equals(derBytes(), that.derBytes());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(derBytes());
+    }
+
+    @Override
+    public String toString() {
+        return "CertificatePem[pem=" + pem() + "]";
     }
 }
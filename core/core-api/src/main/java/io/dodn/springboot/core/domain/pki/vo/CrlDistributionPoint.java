@@ -10,6 +10,11 @@ public record CrlDistributionPoint(String url) {
         }
     }
 
+    /** Location of the delta CRL published next to the full CRL, advertised through freshestCRL. */
+    public String deltaUrl() {
+        return url + "/delta";
+    }
+
     public void validate() {
         try {
             URI uri = URI.create(url);
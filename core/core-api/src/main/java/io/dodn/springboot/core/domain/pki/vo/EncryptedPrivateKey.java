@@ -5,6 +5,12 @@ import java.util.Base64;
 
 public record EncryptedPrivateKey(byte[] data) {
 
+    public static final int FORMAT_PBKDF2 = 1;
+    public static final int FORMAT_ENVELOPE = 2;
+
+    private static final byte[] HEADER_MAGIC = {'M', 'P', 'K'};
+    private static final int HEADER_LENGTH = HEADER_MAGIC.length + 1;
+
     public EncryptedPrivateKey {
         if (data == null || data.length == 0) {
             throw new IllegalArgumentException("EncryptedPrivateKey data must not be empty");
@@ -12,6 +18,33 @@ public record EncryptedPrivateKey(byte[] data) {
         data = Arrays.copyOf(data, data.length);
     }
 
+    public static EncryptedPrivateKey withHeader(int formatVersion, byte[] payload) {
+        byte[] result = new byte[HEADER_LENGTH + payload.length];
+        System.arraycopy(HEADER_MAGIC, 0, result, 0, HEADER_MAGIC.length);
+        result[HEADER_MAGIC.length] = (byte) formatVersion;
+        System.arraycopy(payload, 0, result, HEADER_LENGTH, payload.length);
+        return new EncryptedPrivateKey(result);
+    }
+
+    /**
+     * Legacy PBKDF2 blobs carry no header; anything without the magic prefix is treated as {@link #FORMAT_PBKDF2}.
+     */
+    public int formatVersion() {
+        if (data.length > HEADER_LENGTH
+                && Arrays.equals(data, 0, HEADER_MAGIC.length, HEADER_MAGIC, 0, HEADER_MAGIC.length)
+                && data[HEADER_MAGIC.length] == FORMAT_ENVELOPE) {
+            return FORMAT_ENVELOPE;
+        }
+        return FORMAT_PBKDF2;
+    }
+
+    public byte[] payload() {
+        if (formatVersion() == FORMAT_PBKDF2) {
+            return data();
+        }
+        return Arrays.copyOfRange(data, HEADER_LENGTH, data.length);
+    }
+
     public String toBase64() {
         return Base64.getEncoder().encodeToString(data);
     }
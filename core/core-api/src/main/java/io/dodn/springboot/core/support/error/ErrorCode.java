@@ -4,6 +4,7 @@ public enum ErrorCode {
 
     E500,
     E400,
+    E401,
     E404,
     E409,
     E422
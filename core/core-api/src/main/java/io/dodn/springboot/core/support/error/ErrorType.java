@@ -13,7 +13,10 @@ public enum ErrorType {
     PKI_CA_NOT_ACTIVE(HttpStatus.UNPROCESSABLE_ENTITY, ErrorCode.E422, "CA is not active.", LogLevel.WARN),
     PKI_CERT_NOT_FOUND(HttpStatus.NOT_FOUND, ErrorCode.E404, "Certificate not found.", LogLevel.WARN),
     PKI_CERT_ALREADY_REVOKED(HttpStatus.CONFLICT, ErrorCode.E409, "Certificate is already revoked.", LogLevel.WARN),
-    PKI_CMP_PARSE_ERROR(HttpStatus.BAD_REQUEST, ErrorCode.E400, "Failed to parse CMP message.", LogLevel.WARN);
+    PKI_CMP_PARSE_ERROR(HttpStatus.BAD_REQUEST, ErrorCode.E400, "Failed to parse CMP message.", LogLevel.WARN),
+    PKI_CMP_REPLAY_DETECTED(HttpStatus.CONFLICT, ErrorCode.E409, "CMP message replay detected.", LogLevel.WARN),
+    PKI_CMP_PROTECTION_FAILED(HttpStatus.UNAUTHORIZED, ErrorCode.E401, "CMP message protection is invalid.",
+            LogLevel.WARN);
 
     private final HttpStatus status;
 
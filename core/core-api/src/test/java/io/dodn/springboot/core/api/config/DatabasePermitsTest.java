@@ -0,0 +1,66 @@
+package io.dodn.springboot.core.api.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DatabasePermitsTest {
+
+    private final DatabasePermits permits = new DatabasePermits(1);
+    private final SimpleAsyncTaskExecutor executor = AsyncConfig.virtualThreadExecutor("test-", permits.bounded(1));
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void submittingWhilePermitsAreHeldDoesNotBlock() throws Exception {
+        assertThat(permits.tryAcquire(0, TimeUnit.SECONDS)).isTrue();
+        CountDownLatch ran = new CountDownLatch(1);
+
+        executor.execute(ran::countDown);
+        assertThat(ran.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        permits.release();
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void submissionsBeyondTheQueueAreRejected() throws Exception {
+        assertThat(permits.tryAcquire(0, TimeUnit.SECONDS)).isTrue();
+        executor.execute(() -> {});
+
+        assertThatThrownBy(() -> executor.execute(() -> {})).isInstanceOf(TaskRejectedException.class);
+        permits.release();
+    }
+
+    @Test
+    public void backgroundTasksHoldPermitsRequestsWaitFor() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(permits.inFlight()).isEqualTo(1);
+        assertThat(permits.tryAcquire(100, TimeUnit.MILLISECONDS)).isFalse();
+
+        release.countDown();
+        assertThat(permits.tryAcquire(5, TimeUnit.SECONDS)).isTrue();
+        permits.release();
+    }
+}
@@ -0,0 +1,236 @@
+package io.dodn.springboot.core.api.controller.v1;
+
+import io.dodn.springboot.core.domain.pki.ca.CaAlias;
+import io.dodn.springboot.core.domain.pki.ca.CaRepository;
+import io.dodn.springboot.core.domain.pki.ca.CertificateAuthority;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.certificate.service.BulkIssuanceService;
+import io.dodn.springboot.core.domain.pki.crypto.CaKeyService;
+import io.dodn.springboot.core.domain.pki.crypto.CertificateBuilderService;
+import io.dodn.springboot.core.domain.pki.crypto.IssuerContextCache;
+import io.dodn.springboot.core.domain.pki.vo.CaChainDepth;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.CertificatePem;
+import io.dodn.springboot.core.domain.pki.vo.CertificateValidity;
+import io.dodn.springboot.core.domain.pki.vo.CrlDistributionPoint;
+import io.dodn.springboot.core.domain.pki.vo.KeyAlgorithm;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.domain.pki.vo.SubjectDN;
+import io.dodn.springboot.core.enums.pki.CaStatus;
+import io.dodn.springboot.core.enums.pki.CaType;
+import io.dodn.springboot.core.enums.pki.KeyAlgorithmType;
+import jakarta.servlet.http.HttpServletRequest;
+import org.bouncycastle.asn1.DEROctetString;
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.asn1.x509.GeneralNames;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.security.cert.X509Certificate;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BulkIssuanceControllerTest {
+
+    private static final CaId CA_ID = CaId.of(1L);
+    private static final int BATCH_SIZE = 2;
+
+    private static KeyPair caKeyPair;
+    private static CertificateBuilderService certBuilderService;
+    private static CertificateAuthority activeCa;
+    private static CertificateAuthority revokedCa;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final CaRepository caRepository = mock(CaRepository.class);
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+    private final BulkIssuanceController controller;
+
+    public BulkIssuanceControllerTest() {
+        IssuedCertificateRepository issuedCertificateRepository = mock(IssuedCertificateRepository.class);
+        when(issuedCertificateRepository.insertAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        CaKeyService caKeyService = mock(CaKeyService.class);
+        when(caKeyService.decrypt(any(CertificateAuthority.class))).thenReturn(caKeyPair.getPrivate());
+        when(caRepository.findById(CA_ID)).thenReturn(Optional.of(activeCa));
+
+        BulkIssuanceService service = new BulkIssuanceService(caRepository, issuedCertificateRepository,
+                caKeyService, certBuilderService, mock(ApplicationEventPublisher.class), pool, BATCH_SIZE, 365);
+        controller = new BulkIssuanceController(service, jsonMapper, Duration.ofMinutes(30));
+    }
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        caKeyPair = ecKeyPair();
+        certBuilderService = new CertificateBuilderService(new IssuerContextCache("http://localhost:8080"));
+        activeCa = ca(CaStatus.ACTIVE);
+        revokedCa = ca(CaStatus.REVOKED);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void malformedLineIsAnsweredInPlace() throws Exception {
+        String body = publicKeyLine("a", "device-a") + "\n{not json\n\n" + publicKeyLine("c", "device-c") + "\n";
+
+        List<JsonNode> results = results(run(body));
+
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0).get("ref").asString()).isEqualTo("a");
+        assertThat(results.get(0).get("serialNumber").isNull()).isFalse();
+        assertThat(results.get(1).get("ref").asString()).isEqualTo("2");
+        assertThat(results.get(1).get("error").asString()).isEqualTo("Malformed JSON");
+        assertThat(results.get(2).get("ref").asString()).isEqualTo("c");
+        assertThat(results.get(2).get("serialNumber").isNull()).isFalse();
+    }
+
+    @Test
+    public void csrWithInvalidSignatureIsRejected() throws Exception {
+        KeyPair subjectKey = ecKeyPair();
+        KeyPair otherKey = ecKeyPair();
+        byte[] csr = new JcaPKCS10CertificationRequestBuilder(new X500Name("CN=forged"), subjectKey.getPublic())
+                .build(new JcaContentSignerBuilder("SHA256withECDSA").build(otherKey.getPrivate()))
+                .getEncoded();
+
+        List<JsonNode> results = results(run(csrLine("forged", csr) + "\n"));
+
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).get("error").asString()).isEqualTo("PKCS#10 signature is invalid");
+    }
+
+    @Test
+    public void csrSubjectAltNamesAreCopied() throws Exception {
+        KeyPair subjectKey = ecKeyPair();
+        ExtensionsGenerator extensions = new ExtensionsGenerator();
+        extensions.addExtension(Extension.subjectAlternativeName, false, new GeneralNames(new GeneralName[]{
+                new GeneralName(GeneralName.dNSName, "device.example.com"),
+                new GeneralName(GeneralName.iPAddress, new DEROctetString(new byte[]{10, 0, 0, 1})),
+                new GeneralName(GeneralName.rfc822Name, "ops@example.com")}));
+        byte[] csr = new JcaPKCS10CertificationRequestBuilder(new X500Name("CN=device"), subjectKey.getPublic())
+                .addAttribute(PKCSObjectIdentifiers.pkcs_9_at_extensionRequest, extensions.generate())
+                .build(new JcaContentSignerBuilder("SHA256withECDSA").build(subjectKey.getPrivate()))
+                .getEncoded();
+
+        List<JsonNode> results = results(run(csrLine("device", csr) + "\n"));
+
+        X509Certificate certificate = new CertificatePem(results.get(0).get("certificate").asString())
+                .toX509Certificate();
+        List<String> names = certificate.getSubjectAlternativeNames().stream()
+                .map(name -> (String) name.get(1))
+                .toList();
+        assertThat(names).containsExactlyInAnyOrder("device.example.com", "10.0.0.1", "ops@example.com");
+    }
+
+    @Test
+    public void eachChunkIsFlushedWhenDone() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            body.append(publicKeyLine("d" + i, "device-" + i)).append('\n');
+        }
+
+        FlushRecordingStream out = run(body.toString());
+
+        assertThat(out.linesAtFlush).containsExactly(2, 4, 5);
+    }
+
+    @Test
+    public void caRevokedBetweenChunksStopsIssuance() throws Exception {
+        when(caRepository.findById(CA_ID)).thenReturn(Optional.of(activeCa), Optional.of(activeCa),
+                Optional.of(revokedCa));
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            body.append(publicKeyLine("d" + i, "device-" + i)).append('\n');
+        }
+
+        List<JsonNode> results = results(run(body.toString()));
+
+        assertThat(results).hasSize(4);
+        assertThat(results.subList(0, 2)).allSatisfy(result -> assertThat(result.get("error").isNull()).isTrue());
+        assertThat(results.subList(2, 4)).allSatisfy(result -> {
+            assertThat(result.get("serialNumber").isNull()).isTrue();
+            assertThat(result.get("error").asString()).isNotBlank();
+        });
+    }
+
+    private FlushRecordingStream run(String ndjson) throws Exception {
+        StreamingResponseBody stream = controller.bulkIssue(CA_ID.value(),
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), mock(HttpServletRequest.class))
+                .getBody();
+        FlushRecordingStream out = new FlushRecordingStream();
+        stream.writeTo(out);
+        return out;
+    }
+
+    private List<JsonNode> results(FlushRecordingStream out) {
+        return out.toString(StandardCharsets.UTF_8).lines().map(jsonMapper::readTree).toList();
+    }
+
+    private static String publicKeyLine(String ref, String cn) throws Exception {
+        String publicKey = Base64.getEncoder().encodeToString(ecKeyPair().getPublic().getEncoded());
+        return "{\"ref\":\"" + ref + "\",\"cn\":\"" + cn + "\",\"publicKey\":\"" + publicKey + "\"}";
+    }
+
+    private static String csrLine(String ref, byte[] csr) {
+        return "{\"ref\":\"" + ref + "\",\"csr\":\"" + Base64.getEncoder().encodeToString(csr) + "\"}";
+    }
+
+    private static KeyPair ecKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", "BC");
+        generator.initialize(new ECGenParameterSpec("P-256"));
+        return generator.generateKeyPair();
+    }
+
+    private static CertificateAuthority ca(CaStatus status) {
+        SubjectDN subject = new SubjectDN("Test Root", null, null, null, null, null);
+        SerialNumber serialNumber = SerialNumber.generate();
+        CertificateValidity validity = CertificateValidity.forDays(30);
+        CrlDistributionPoint crlDp = new CrlDistributionPoint("http://localhost:8080/pki/root/crl");
+        KeyAlgorithm keyAlgorithm = new KeyAlgorithm(KeyAlgorithmType.EC_P256);
+        CertificateAuthority ca = new CertificateAuthority(CA_ID, CaAlias.of("root"), subject, CaType.ROOT,
+                keyAlgorithm, null, null, null, serialNumber, validity, status, crlDp, CaChainDepth.unlimited());
+        ca.setCertificate(certBuilderService.buildRootCaCertificate(subject, serialNumber, validity,
+                caKeyPair.getPublic(), caKeyPair.getPrivate(), crlDp, keyAlgorithm.toSignatureAlgorithm()));
+        return ca;
+    }
+
+    /** Records how many result lines had been written at each flush. */
+    private static final class FlushRecordingStream extends ByteArrayOutputStream {
+
+        private final List<Integer> linesAtFlush = new ArrayList<>();
+
+        @Override
+        public void flush() {
+            linesAtFlush.add((int) toString(StandardCharsets.UTF_8).lines().count());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.dodn.springboot.core.domain.pki.cmp.service;
+
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.support.error.CoreException;
+import io.dodn.springboot.core.support.error.ErrorType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.asn1.ASN1GeneralizedTime;
+import org.bouncycastle.asn1.cmp.CMPObjectIdentifiers;
+import org.bouncycastle.asn1.cmp.PKIHeader;
+import org.bouncycastle.asn1.cmp.PKIHeaderBuilder;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.asn1.x509.GeneralName;
+import org.assertj.core.api.ThrowableAssert.ThrowingCallable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CmpReplayCacheTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(60);
+    private static final CaId CA = CaId.of(1L);
+
+    /** Just after the cache under test is created, which starts its first generation at the wall clock. */
+    private final Instant now = Instant.now().plusSeconds(5);
+
+    @Test
+    public void duplicateIsRejected() {
+        CmpReplayCache cache = cache(1000);
+        PKIHeader header = header(1, 1, null, false);
+
+        cache.checkAndRecord(CA, header, now);
+
+        assertReplay(() -> cache.checkAndRecord(CA, header, now.plusSeconds(1)));
+    }
+
+    @Test
+    public void otherNonceTransactionOrCaIsAccepted() {
+        CmpReplayCache cache = cache(1000);
+        cache.checkAndRecord(CA, header(1, 1, null, false), now);
+
+        assertThatCode(() -> {
+            cache.checkAndRecord(CA, header(1, 2, null, false), now);
+            cache.checkAndRecord(CA, header(2, 1, null, false), now);
+            cache.checkAndRecord(CaId.of(2L), header(1, 1, null, false), now);
+        }).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void duplicateIsRememberedAcrossOneRotation() {
+        CmpReplayCache cache = cache(1000);
+        PKIHeader header = header(1, 1, null, false);
+        cache.checkAndRecord(CA, header, now);
+
+        cache.checkAndRecord(CA, header(2, 2, null, false), now.plus(WINDOW));
+
+        assertReplay(() -> cache.checkAndRecord(CA, header, now.plus(WINDOW).plusSeconds(1)));
+    }
+
+    @Test
+    public void entryIsForgottenAfterTwoRotations() {
+        CmpReplayCache cache = cache(1000);
+        PKIHeader header = header(1, 1, null, false);
+        cache.checkAndRecord(CA, header, now);
+
+        cache.checkAndRecord(CA, header(2, 2, null, false), now.plus(WINDOW));
+        cache.checkAndRecord(CA, header(3, 3, null, false), now.plus(WINDOW.multipliedBy(2)));
+
+        assertThatCode(() -> cache.checkAndRecord(CA, header, now.plus(WINDOW.multipliedBy(2))))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    public void fullGenerationRotatesEarly() {
+        CmpReplayCache cache = cache(2);
+        PKIHeader first = header(1, 1, null, false);
+        cache.checkAndRecord(CA, first, now);
+        cache.checkAndRecord(CA, header(2, 2, null, false), now);
+        cache.checkAndRecord(CA, header(3, 3, null, false), now);
+
+        assertReplay(() -> cache.checkAndRecord(CA, first, now));
+
+        cache.checkAndRecord(CA, header(4, 4, null, false), now);
+        cache.checkAndRecord(CA, header(5, 5, null, false), now);
+
+        assertThatCode(() -> cache.checkAndRecord(CA, first, now)).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void messageTimeOutsideWindowIsRejected() {
+        CmpReplayCache cache = cache(1000);
+
+        assertReplay(() -> cache.checkAndRecord(CA, header(1, 1, now.minus(WINDOW).minusSeconds(1), false), now));
+        assertReplay(() -> cache.checkAndRecord(CA, header(2, 2, now.plus(WINDOW).plusSeconds(1), false), now));
+        assertThatCode(() -> cache.checkAndRecord(CA, header(3, 3, now.minusSeconds(30), false), now))
+                .doesNotThrowAnyException();
+    }
+
+    @Test
+    public void protectedMessageWithoutSenderNonceIsRejected() {
+        CmpReplayCache cache = cache(1000);
+
+        assertThatThrownBy(() -> cache.checkAndRecord(CA, header(1, -1, null, true), now))
+                .isInstanceOfSatisfying(CoreException.class,
+                        e -> assertThat(e.getErrorType()).isEqualTo(ErrorType.PKI_CMP_PROTECTION_FAILED));
+    }
+
+    @Test
+    public void unprotectedMessageWithoutSenderNonceIsAccepted() {
+        CmpReplayCache cache = cache(1000);
+        PKIHeader header = header(1, -1, null, false);
+
+        assertThatCode(() -> {
+            cache.checkAndRecord(CA, header, now);
+            cache.checkAndRecord(CA, header, now);
+        }).doesNotThrowAnyException();
+    }
+
+    private static CmpReplayCache cache(int maximumEntries) {
+        return new CmpReplayCache(new SimpleMeterRegistry(), WINDOW, maximumEntries);
+    }
+
+    private static void assertReplay(ThrowingCallable call) {
+        assertThatThrownBy(call).isInstanceOfSatisfying(CoreException.class,
+                e -> assertThat(e.getErrorType()).isEqualTo(ErrorType.PKI_CMP_REPLAY_DETECTED));
+    }
+
+    /** A negative {@code nonce} leaves the senderNonce out. */
+    private static PKIHeader header(int transaction, int nonce, Instant messageTime, boolean isProtected) {
+        PKIHeaderBuilder builder = new PKIHeaderBuilder(PKIHeader.CMP_2000,
+                new GeneralName(new X500Name("CN=client")), new GeneralName(new X500Name("CN=ca")));
+        builder.setTransactionID(bytes(transaction));
+        if (nonce >= 0) {
+            builder.setSenderNonce(bytes(nonce));
+        }
+        if (messageTime != null) {
+            builder.setMessageTime(new ASN1GeneralizedTime(Date.from(messageTime)));
+        }
+        if (isProtected) {
+            builder.setProtectionAlg(new AlgorithmIdentifier(CMPObjectIdentifiers.passwordBasedMac));
+        }
+        return builder.build();
+    }
+
+    private static byte[] bytes(int value) {
+        byte[] bytes = new byte[16];
+        bytes[15] = (byte) value;
+        return bytes;
+    }
+}
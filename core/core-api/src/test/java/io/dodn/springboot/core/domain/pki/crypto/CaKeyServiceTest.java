@@ -0,0 +1,106 @@
+package io.dodn.springboot.core.domain.pki.crypto;
+
+import io.dodn.springboot.core.domain.pki.vo.EncryptedPrivateKey;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.security.spec.ECGenParameterSpec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CaKeyServiceTest {
+
+    private static final String SECRET = "test-secret";
+    private static final String SALT = "test-kek-salt";
+    private static final String ALIAS = "root-ca";
+
+    private static PrivateKey privateKey;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC", "BC");
+        generator.initialize(new ECGenParameterSpec("P-256"));
+        privateKey = generator.generateKeyPair().getPrivate();
+    }
+
+    @Test
+    public void pbkdf2RoundTrip() {
+        CaKeyService service = service(KeyWrappingMode.PBKDF2, "");
+
+        EncryptedPrivateKey encrypted = service.encrypt(privateKey, ALIAS);
+
+        assertThat(encrypted.formatVersion()).isEqualTo(EncryptedPrivateKey.FORMAT_PBKDF2);
+        assertThat(service.decrypt(encrypted, ALIAS, "EC").getEncoded()).isEqualTo(privateKey.getEncoded());
+    }
+
+    @Test
+    public void envelopeRoundTrip() {
+        CaKeyService service = service(KeyWrappingMode.ENVELOPE, SALT);
+
+        EncryptedPrivateKey encrypted = service.encrypt(privateKey, ALIAS);
+
+        assertThat(encrypted.formatVersion()).isEqualTo(EncryptedPrivateKey.FORMAT_ENVELOPE);
+        assertThat(EncryptedPrivateKey.fromBase64(encrypted.toBase64())).isEqualTo(encrypted);
+        assertThat(service.decrypt(encrypted, ALIAS, "EC").getEncoded()).isEqualTo(privateKey.getEncoded());
+    }
+
+    @Test
+    public void envelopeKeyIsBoundToAlias() {
+        CaKeyService service = service(KeyWrappingMode.ENVELOPE, SALT);
+
+        EncryptedPrivateKey encrypted = service.encrypt(privateKey, ALIAS);
+
+        assertThatThrownBy(() -> service.decrypt(encrypted, "other-ca", "EC"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void envelopeModeReadsAndRewrapsLegacyKeys() {
+        EncryptedPrivateKey legacy = service(KeyWrappingMode.PBKDF2, "").encrypt(privateKey, ALIAS);
+        CaKeyService service = service(KeyWrappingMode.ENVELOPE, SALT);
+
+        assertThat(service.needsRewrap(legacy)).isTrue();
+        assertThat(service.decrypt(legacy, ALIAS, "EC").getEncoded()).isEqualTo(privateKey.getEncoded());
+
+        EncryptedPrivateKey rewrapped = service.rewrap(legacy, ALIAS, "EC");
+
+        assertThat(rewrapped.formatVersion()).isEqualTo(EncryptedPrivateKey.FORMAT_ENVELOPE);
+        assertThat(service.needsRewrap(rewrapped)).isFalse();
+        assertThat(service.rewrap(rewrapped, ALIAS, "EC")).isSameAs(rewrapped);
+        assertThat(service.decrypt(rewrapped, ALIAS, "EC").getEncoded()).isEqualTo(privateKey.getEncoded());
+    }
+
+    @Test
+    public void pbkdf2ModeStillReadsEnvelopeKeys() {
+        EncryptedPrivateKey envelope = service(KeyWrappingMode.ENVELOPE, SALT).encrypt(privateKey, ALIAS);
+        CaKeyService service = service(KeyWrappingMode.PBKDF2, SALT);
+
+        assertThat(service.needsRewrap(envelope)).isTrue();
+        assertThat(service.decrypt(envelope, ALIAS, "EC").getEncoded()).isEqualTo(privateKey.getEncoded());
+    }
+
+    @Test
+    public void envelopeModeRequiresSalt() {
+        assertThatThrownBy(() -> service(KeyWrappingMode.ENVELOPE, ""))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("kek-salt");
+    }
+
+    @Test
+    public void envelopeKeyDependsOnSalt() {
+        EncryptedPrivateKey encrypted = service(KeyWrappingMode.ENVELOPE, SALT).encrypt(privateKey, ALIAS);
+
+        assertThatThrownBy(() -> service(KeyWrappingMode.ENVELOPE, "other-salt").decrypt(encrypted, ALIAS, "EC"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static CaKeyService service(KeyWrappingMode mode, String kekSalt) {
+        return new CaKeyService(SECRET, mode, kekSalt, null, null);
+    }
+}
@@ -0,0 +1,119 @@
+package io.dodn.springboot.core.domain.pki.crypto;
+
+import io.dodn.springboot.core.domain.pki.certificate.RevokedCertificateEntry;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.CRLNumber;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.cert.X509CRLHolder;
+import org.bouncycastle.cert.X509v2CRLBuilder;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Security;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StreamingCrlWriterTest {
+
+    private static final X500Name ISSUER = new X500Name("CN=Test CA,O=Meteor,C=KR");
+    private static final RevocationReason[] REASONS = RevocationReason.values();
+
+    private static KeyPair keyPair;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA", "BC");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    public void emptyCrlMatchesX509v2CrlBuilder() throws Exception {
+        assertMatchesX509v2CrlBuilder(0);
+    }
+
+    @Test
+    public void singleEntryMatchesX509v2CrlBuilder() throws Exception {
+        assertMatchesX509v2CrlBuilder(1);
+    }
+
+    /** 128 entries need a multi-byte length for the revokedCertificates sequence. */
+    @Test
+    public void longFormLengthMatchesX509v2CrlBuilder() throws Exception {
+        assertMatchesX509v2CrlBuilder(128);
+    }
+
+    /** 3000 entries push the sequence past the two-byte length form. */
+    @Test
+    public void largeCrlMatchesX509v2CrlBuilder() throws Exception {
+        assertMatchesX509v2CrlBuilder(3000);
+    }
+
+    /**
+     * RSA PKCS#1 v1.5 signatures are deterministic, so the streamed CRL must match BouncyCastle's byte for byte.
+     */
+    private void assertMatchesX509v2CrlBuilder(int entryCount) throws Exception {
+        Instant thisUpdate = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        Instant nextUpdate = thisUpdate.plus(1, ChronoUnit.DAYS);
+        Extensions extensions = new Extensions(
+                new Extension(Extension.cRLNumber, false, new CRLNumber(BigInteger.valueOf(42)).getEncoded()));
+        List<RevokedCertificateEntry> entries = entries(entryCount, thisUpdate);
+
+        Path target = directory.resolve("streamed.crl");
+        new StreamingCrlWriter(ISSUER, thisUpdate, nextUpdate, extensions)
+                .write(entries.iterator(), signer(), target);
+
+        X509v2CRLBuilder builder = new X509v2CRLBuilder(ISSUER, Date.from(thisUpdate));
+        builder.setNextUpdate(Date.from(nextUpdate));
+        for (RevokedCertificateEntry entry : entries) {
+            builder.addCRLEntry(entry.serialNumber().value(), Date.from(entry.revokedAt()), entry.reason().getCode());
+        }
+        builder.addExtension(extensions.getExtension(Extension.cRLNumber));
+        byte[] expected = builder.build(signer()).getEncoded();
+
+        byte[] streamed = Files.readAllBytes(target);
+        assertThat(streamed).isEqualTo(expected);
+        X509CRLHolder crl = new X509CRLHolder(streamed);
+        assertThat(crl.getRevokedCertificates()).hasSize(entryCount);
+        assertThat(crl.isSignatureValid(new JcaContentVerifierProviderBuilder().setProvider("BC")
+                .build(keyPair.getPublic()))).isTrue();
+        try (var leftovers = Files.list(directory)) {
+            assertThat(leftovers).containsExactly(target);
+        }
+    }
+
+    private static List<RevokedCertificateEntry> entries(int count, Instant now) {
+        List<RevokedCertificateEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new RevokedCertificateEntry(SerialNumber.of(BigInteger.valueOf(1_000_003L * (i + 1))),
+                    now.minusSeconds(60L * i), REASONS[i % REASONS.length]));
+        }
+        return entries;
+    }
+
+    private static ContentSigner signer() throws Exception {
+        return new JcaContentSignerBuilder("SHA256withRSA").setProvider("BC").build(keyPair.getPrivate());
+    }
+}
@@ -0,0 +1,107 @@
+package io.dodn.springboot.core.domain.pki.ocsp.service;
+
+import io.dodn.springboot.core.domain.pki.certificate.CertificateIssuedEvent;
+import io.dodn.springboot.core.domain.pki.certificate.CertificateStatusEntry;
+import io.dodn.springboot.core.domain.pki.certificate.IssuedCertificateRepository;
+import io.dodn.springboot.core.domain.pki.ocsp.RevocationIndex;
+import io.dodn.springboot.core.domain.pki.vo.CaId;
+import io.dodn.springboot.core.domain.pki.vo.SerialNumber;
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RevocationIndexRegistryTest {
+
+    private static final CaId SLOW_CA = CaId.of(1L);
+    private static final CaId OTHER_CA = CaId.of(2L);
+    private static final Instant NOT_AFTER = Instant.now().plus(Duration.ofDays(30));
+
+    private final IssuedCertificateRepository repository = mock(IssuedCertificateRepository.class);
+    private final RevocationIndexRegistry registry = new RevocationIndexRegistry(repository, Duration.ofMinutes(1),
+            Duration.ofSeconds(30), 1000, new SimpleMeterRegistry());
+    private final CountDownLatch loadStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseLoad = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    public void tearDown() {
+        releaseLoad.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void loadingOneCaDoesNotBlockAnother() throws Exception {
+        blockLoadOf(SLOW_CA, 1);
+        when(repository.streamStatusesByIssuerId(OTHER_CA)).thenReturn(Stream.of(valid(2)));
+
+        Future<RevocationIndex> slow = executor.submit(() -> registry.getOrLoad(SLOW_CA));
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<RevocationIndex> other = executor.submit(() -> registry.getOrLoad(OTHER_CA));
+        assertThat(other.get(5, TimeUnit.SECONDS).lookup(BigInteger.TWO)).isNotNull();
+        assertThat(slow.isDone()).isFalse();
+
+        releaseLoad.countDown();
+        assertThat(slow.get(5, TimeUnit.SECONDS).lookup(BigInteger.ONE)).isNotNull();
+    }
+
+    @Test
+    public void indexIsPublishedOnlyOnceLoadedAndKeepsEventsFromTheLoad() throws Exception {
+        blockLoadOf(SLOW_CA, 1);
+
+        Future<RevocationIndex> slow = executor.submit(() -> registry.getOrLoad(SLOW_CA));
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        registry.onCertificateIssued(new CertificateIssuedEvent(SLOW_CA, SerialNumber.of(BigInteger.TEN), NOT_AFTER));
+        assertThat(registry.isSyncDue(SLOW_CA, Instant.now(), Duration.ZERO)).isFalse();
+
+        releaseLoad.countDown();
+        RevocationIndex index = slow.get(5, TimeUnit.SECONDS);
+        assertThat(index.lookup(BigInteger.ONE)).isNotNull();
+        assertThat(index.lookup(BigInteger.TEN)).isNotNull();
+        assertThat(registry.isSyncDue(SLOW_CA, Instant.now(), Duration.ZERO)).isTrue();
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        blockLoadOf(SLOW_CA, 1);
+
+        Future<RevocationIndex> first = executor.submit(() -> registry.getOrLoad(SLOW_CA));
+        assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<RevocationIndex> second = executor.submit(() -> registry.getOrLoad(SLOW_CA));
+
+        releaseLoad.countDown();
+        assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(first.get(5, TimeUnit.SECONDS));
+        verify(repository, times(1)).streamStatusesByIssuerId(SLOW_CA);
+    }
+
+    private void blockLoadOf(CaId caId, long serialNumber) {
+        when(repository.streamStatusesByIssuerId(caId)).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await(5, TimeUnit.SECONDS);
+            return Stream.of(valid(serialNumber));
+        });
+    }
+
+    private static CertificateStatusEntry valid(long serialNumber) {
+        return new CertificateStatusEntry(SerialNumber.of(BigInteger.valueOf(serialNumber)), CertificateStatus.VALID,
+                null, null, NOT_AFTER);
+    }
+}
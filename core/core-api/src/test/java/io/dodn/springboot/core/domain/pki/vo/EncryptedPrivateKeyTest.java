@@ -0,0 +1,59 @@
+package io.dodn.springboot.core.domain.pki.vo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EncryptedPrivateKeyTest {
+
+    @Test
+    public void headerlessDataIsLegacyPbkdf2() {
+        byte[] legacy = {1, 2, 3, 4, 5, 6, 7, 8};
+
+        EncryptedPrivateKey key = new EncryptedPrivateKey(legacy);
+
+        assertThat(key.formatVersion()).isEqualTo(EncryptedPrivateKey.FORMAT_PBKDF2);
+        assertThat(key.payload()).isEqualTo(legacy);
+    }
+
+    @Test
+    public void envelopeHeaderIsDetectedAndStripped() {
+        byte[] payload = {9, 8, 7};
+
+        EncryptedPrivateKey key = EncryptedPrivateKey.withHeader(EncryptedPrivateKey.FORMAT_ENVELOPE, payload);
+
+        assertThat(key.data()).startsWith('M', 'P', 'K', EncryptedPrivateKey.FORMAT_ENVELOPE);
+        assertThat(key.formatVersion()).isEqualTo(EncryptedPrivateKey.FORMAT_ENVELOPE);
+        assertThat(key.payload()).isEqualTo(payload);
+    }
+
+    @Test
+    public void magicWithUnknownVersionIsLegacy() {
+        byte[] data = {'M', 'P', 'K', 7, 1, 2};
+
+        EncryptedPrivateKey key = new EncryptedPrivateKey(data);
+
+        assertThat(key.formatVersion()).isEqualTo(EncryptedPrivateKey.FORMAT_PBKDF2);
+        assertThat(key.payload()).isEqualTo(data);
+    }
+
+    @Test
+    public void headerOnlyIsLegacy() {
+        EncryptedPrivateKey key = new EncryptedPrivateKey(new byte[] {'M', 'P', 'K', EncryptedPrivateKey.FORMAT_ENVELOPE});
+
+        assertThat(key.formatVersion()).isEqualTo(EncryptedPrivateKey.FORMAT_PBKDF2);
+    }
+
+    @Test
+    public void base64RoundTripKeepsFormat() {
+        EncryptedPrivateKey key = EncryptedPrivateKey.withHeader(EncryptedPrivateKey.FORMAT_ENVELOPE, new byte[] {1, 2});
+
+        EncryptedPrivateKey decoded = EncryptedPrivateKey.fromBase64(key.toBase64());
+
+        assertThat(decoded).isEqualTo(key);
+        assertThat(decoded.formatVersion()).isEqualTo(EncryptedPrivateKey.FORMAT_ENVELOPE);
+        assertThat(Base64.getDecoder().decode(key.toBase64())).isEqualTo(key.data());
+    }
+}
@@ -0,0 +1,6 @@
+package io.dodn.springboot.core.enums.pki;
+
+public enum DelegatedSignerPurpose {
+    OCSP,
+    CMP
+}
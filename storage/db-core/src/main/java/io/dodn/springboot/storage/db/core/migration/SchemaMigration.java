@@ -0,0 +1,72 @@
+package io.dodn.springboot.storage.db.core.migration;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Runs {@code db/migration} outside the application, for databases migrated ahead of a deployment rather than on
+ * startup ({@code ./gradlew :storage:db-core:migrateSchema}). Loads {@code db-core.yml} for the active profiles
+ * ({@code spring.profiles.active}) and binds {@code storage.datasource.core} exactly as the application does, so the
+ * JDBC URL, credentials, driver and data source properties are the application's, including any overrides from
+ * system properties or environment variables. Baselines with the {@code spring.flyway} settings of the same file.
+ * {@code pki.schema.target} stops at an earlier version, for running a build that predates the later migrations.
+ */
+public final class SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigration.class);
+
+    private SchemaMigration() {}
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(MigrationContext.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setBannerMode(Banner.Mode.OFF);
+        application.setDefaultProperties(Map.of("spring.config.name", "db-core"));
+        try (ConfigurableApplicationContext context = application.run(args)) {
+            migrate(context.getEnvironment());
+        }
+    }
+
+    private static void migrate(Environment environment) {
+        HikariConfig config = Binder.get(environment).bind("storage.datasource.core", HikariConfig.class)
+                .orElseGet(HikariConfig::new);
+        if (config.getJdbcUrl() == null) {
+            throw new IllegalStateException("storage.datasource.core.jdbc-url is not set for profiles "
+                    + Arrays.toString(environment.getActiveProfiles()));
+        }
+        // Flyway holds one connection for its lock and migrates on another.
+        config.setMaximumPoolSize(2);
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            MigrateResult result = Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations(environment.getProperty("spring.flyway.locations", "classpath:db/migration"))
+                    .baselineOnMigrate(environment.getProperty("spring.flyway.baseline-on-migrate", Boolean.class,
+                            true))
+                    .baselineVersion(environment.getProperty("spring.flyway.baseline-version", "1"))
+                    .target(environment.getProperty("pki.schema.target", "latest"))
+                    .load()
+                    .migrate();
+            log.info("Applied {} migrations, schema version {} -> {}", result.migrationsExecuted,
+                    result.initialSchemaVersion, result.targetSchemaVersion);
+        }
+    }
+
+    /** Empty context: only the environment is needed, no auto-configuration or data source beans. */
+    @Configuration(proxyBeanMethods = false)
+    static class MigrationContext {
+    }
+}
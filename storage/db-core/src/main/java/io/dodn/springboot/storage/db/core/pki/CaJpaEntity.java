@@ -9,6 +9,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.time.Instant;
 
@@ -51,6 +52,10 @@ public class CaJpaEntity extends BaseEntity {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String encryptedPrivateKeyBase64;
 
+    @Column(columnDefinition = "BLOB")
+    private byte[] certificateDer;
+
+    /** Legacy PEM storage. Read only when {@code certificateDer} is absent, cleared when the row is rewritten. */
     @Column(columnDefinition = "TEXT")
     private String certificatePem;
 
@@ -73,12 +78,17 @@ public class CaJpaEntity extends BaseEntity {
     @Column(nullable = false)
     private int chainDepthPathLen;
 
+    /** Bumped on every update; nodes compare the table's versions to invalidate their CA caches. */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     protected CaJpaEntity() {}
 
     public CaJpaEntity(String alias, String subjectDnCn, String subjectDnO, String subjectDnOu,
             String subjectDnC, String subjectDnSt, String subjectDnL, CaType type,
             KeyAlgorithmType keyAlgorithmType, Long parentId, String encryptedPrivateKeyBase64,
-            String certificatePem, String serialNumberHex, Instant notBefore, Instant notAfter,
+            byte[] certificateDer, String serialNumberHex, Instant notBefore, Instant notAfter,
             CaStatus status, String crlDistributionPointUrl, int chainDepthPathLen) {
         this.alias = alias;
         this.subjectDnCn = subjectDnCn;
@@ -91,7 +101,7 @@ public class CaJpaEntity extends BaseEntity {
         this.keyAlgorithmType = keyAlgorithmType;
         this.parentId = parentId;
         this.encryptedPrivateKeyBase64 = encryptedPrivateKeyBase64;
-        this.certificatePem = certificatePem;
+        this.certificateDer = certificateDer;
         this.serialNumberHex = serialNumberHex;
         this.notBefore = notBefore;
         this.notAfter = notAfter;
@@ -111,8 +121,13 @@ public class CaJpaEntity extends BaseEntity {
     public KeyAlgorithmType getKeyAlgorithmType() { return keyAlgorithmType; }
     public Long getParentId() { return parentId; }
     public String getEncryptedPrivateKeyBase64() { return encryptedPrivateKeyBase64; }
+    public void setEncryptedPrivateKeyBase64(String encryptedPrivateKeyBase64) { this.encryptedPrivateKeyBase64 = encryptedPrivateKeyBase64; }
+    public byte[] getCertificateDer() { return certificateDer; }
     public String getCertificatePem() { return certificatePem; }
-    public void setCertificatePem(String certificatePem) { this.certificatePem = certificatePem; }
+    public void setCertificateDer(byte[] certificateDer) {
+        this.certificateDer = certificateDer;
+        this.certificatePem = null;
+    }
     public String getSerialNumberHex() { return serialNumberHex; }
     public Instant getNotBefore() { return notBefore; }
     public Instant getNotAfter() { return notAfter; }
@@ -120,4 +135,5 @@ public class CaJpaEntity extends BaseEntity {
     public void setStatus(CaStatus status) { this.status = status; }
     public String getCrlDistributionPointUrl() { return crlDistributionPointUrl; }
     public int getChainDepthPathLen() { return chainDepthPathLen; }
+    public long getVersion() { return version; }
 }
@@ -1,7 +1,12 @@
 package io.dodn.springboot.storage.db.core.pki;
 
+import io.dodn.springboot.core.enums.pki.CaStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +17,16 @@ public interface CaJpaRepository extends JpaRepository<CaJpaEntity, Long> {
     List<CaJpaEntity> findByParentId(Long parentId);
 
     boolean existsByAlias(String alias);
+
+    /** Grows with every insert and every version bump, since rows are never deleted. */
+    @Query("select count(c) + coalesce(sum(c.version), 0) from CaJpaEntity c")
+    long versionStamp();
+
+    @Transactional
+    @Modifying
+    @Query("update CaJpaEntity c set c.status = :status, c.encryptedPrivateKeyBase64 = :encryptedPrivateKeyBase64, "
+            + "c.certificateDer = :certificateDer, c.certificatePem = null, c.version = c.version + 1, "
+            + "c.updatedAt = :updatedAt where c.id = :id and c.version = :version")
+    int updateState(Long id, long version, CaStatus status, String encryptedPrivateKeyBase64, byte[] certificateDer,
+            LocalDateTime updatedAt);
 }
@@ -0,0 +1,14 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+
+import java.time.Instant;
+
+public interface CertificateExpiryProjection {
+
+    String getSerialNumberHex();
+
+    Instant getNotAfter();
+
+    CertificateStatus getStatus();
+}
@@ -0,0 +1,19 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+
+import java.time.Instant;
+
+public interface CertificateStatusProjection {
+
+    String getSerialNumberHex();
+
+    CertificateStatus getStatus();
+
+    Instant getRevokedAt();
+
+    RevocationReason getRevocationReason();
+
+    Instant getNotAfter();
+}
@@ -8,6 +8,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "cmp_transaction")
@@ -36,6 +37,10 @@ public class CmpTransactionJpaEntity extends BaseEntity {
     @Column(length = 2000)
     private String errorInfo;
 
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     protected CmpTransactionJpaEntity() {}
 
     public CmpTransactionJpaEntity(String transactionIdHex, String sender, String senderNonceHex,
@@ -60,4 +65,5 @@ public class CmpTransactionJpaEntity extends BaseEntity {
     public void setStatus(CmpTransactionStatus status) { this.status = status; }
     public String getErrorInfo() { return errorInfo; }
     public void setErrorInfo(String errorInfo) { this.errorInfo = errorInfo; }
+    public long getVersion() { return version; }
 }
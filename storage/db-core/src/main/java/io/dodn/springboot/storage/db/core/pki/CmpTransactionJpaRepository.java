@@ -1,10 +1,31 @@
 package io.dodn.springboot.storage.db.core.pki;
 
+import io.dodn.springboot.core.enums.pki.CmpTransactionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface CmpTransactionJpaRepository extends JpaRepository<CmpTransactionJpaEntity, Long> {
 
     Optional<CmpTransactionJpaEntity> findByTransactionIdHex(String transactionIdHex);
+
+    /** A recipient nonce of {@code null} keeps the stored one. */
+    @Transactional
+    @Modifying
+    @Query("update CmpTransactionJpaEntity t set t.status = :status, t.errorInfo = :errorInfo, "
+            + "t.recipientNonceHex = coalesce(:recipientNonceHex, t.recipientNonceHex), t.version = t.version + 1, "
+            + "t.updatedAt = :updatedAt where t.transactionIdHex = :transactionIdHex and t.version = :version")
+    int updateState(String transactionIdHex, long version, CmpTransactionStatus status, String errorInfo,
+            String recipientNonceHex, LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update CmpTransactionJpaEntity t set t.status = :to, t.version = t.version + 1, t.updatedAt = :updatedAt "
+            + "where t.transactionIdHex = :transactionIdHex and t.status = :from")
+    int transition(String transactionIdHex, CmpTransactionStatus from, CmpTransactionStatus to,
+            LocalDateTime updatedAt);
 }
@@ -0,0 +1,65 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Streams signed base CRLs between {@code crl_base} and local files; a CRL for a large CA runs to tens of megabytes.
+ */
+@Repository
+public class CrlBaseJdbcRepository {
+
+    private static final String DELETE_SQL = "delete from crl_base where issuer_id = ?";
+    private static final String INSERT_SQL = "insert into crl_base (issuer_id, crl_number, crl_der, created_at, "
+            + "updated_at) values (?, ?, ?, ?, ?)";
+    private static final String SELECT_SQL = "select crl_der from crl_base where issuer_id = ? and crl_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CrlBaseJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Replaces the stored base CRL of the issuer. */
+    public void save(long issuerId, long crlNumber, Path file) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update(DELETE_SQL, issuerId);
+        try (InputStream in = Files.newInputStream(file)) {
+            long length = Files.size(file);
+            jdbcTemplate.update(INSERT_SQL, ps -> {
+                ps.setLong(1, issuerId);
+                ps.setLong(2, crlNumber);
+                ps.setBinaryStream(3, in, length);
+                ps.setTimestamp(4, now);
+                ps.setTimestamp(5, now);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read CRL file: " + file, e);
+        }
+    }
+
+    /** Copies the stored base CRL to {@code target}; false when the issuer has no base with that number. */
+    public boolean copyTo(long issuerId, long crlNumber, Path target) {
+        Boolean found = jdbcTemplate.query(SELECT_SQL, rs -> {
+            if (!rs.next()) {
+                return false;
+            }
+            try (InputStream in = rs.getBinaryStream(1)) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write CRL file: " + target, e);
+            }
+            return true;
+        }, issuerId, crlNumber);
+        return Boolean.TRUE.equals(found);
+    }
+}
@@ -0,0 +1,32 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import io.dodn.springboot.storage.db.core.BaseEntity;
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Table;
+
+/**
+ * Maps {@code crl_base} for schema validation and creation; rows are written and read through
+ * {@link CrlBaseJdbcRepository}, which streams the CRL instead of holding it on the heap.
+ */
+@Entity
+@Table(name = "crl_base")
+public class CrlBaseJpaEntity extends BaseEntity {
+
+    @Column(nullable = false, unique = true)
+    private Long issuerId;
+
+    @Column(nullable = false)
+    private long crlNumber;
+
+    @Basic(fetch = FetchType.LAZY)
+    @Column(nullable = false, columnDefinition = "LONGBLOB")
+    private byte[] crlDer;
+
+    protected CrlBaseJpaEntity() {}
+
+    public Long getIssuerId() { return issuerId; }
+    public long getCrlNumber() { return crlNumber; }
+}
@@ -0,0 +1,48 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import io.dodn.springboot.storage.db.core.BaseEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "crl_state")
+public class CrlStateJpaEntity extends BaseEntity {
+
+    @Column(nullable = false, unique = true)
+    private Long issuerId;
+
+    @Column(nullable = false)
+    private long lastCrlNumber;
+
+    @Column
+    private Long baseCrlNumber;
+
+    @Column
+    private Instant baseThisUpdate;
+
+    @Column
+    private Instant baseNextUpdate;
+
+    protected CrlStateJpaEntity() {}
+
+    public CrlStateJpaEntity(Long issuerId, long lastCrlNumber) {
+        this.issuerId = issuerId;
+        this.lastCrlNumber = lastCrlNumber;
+    }
+
+    public Long getIssuerId() { return issuerId; }
+    public long getLastCrlNumber() { return lastCrlNumber; }
+    public void setLastCrlNumber(long lastCrlNumber) { this.lastCrlNumber = lastCrlNumber; }
+    public Long getBaseCrlNumber() { return baseCrlNumber; }
+    public Instant getBaseThisUpdate() { return baseThisUpdate; }
+    public Instant getBaseNextUpdate() { return baseNextUpdate; }
+
+    public void setBase(long baseCrlNumber, Instant baseThisUpdate, Instant baseNextUpdate) {
+        this.baseCrlNumber = baseCrlNumber;
+        this.baseThisUpdate = baseThisUpdate;
+        this.baseNextUpdate = baseNextUpdate;
+    }
+}
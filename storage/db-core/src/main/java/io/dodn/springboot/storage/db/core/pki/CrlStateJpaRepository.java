@@ -0,0 +1,17 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface CrlStateJpaRepository extends JpaRepository<CrlStateJpaEntity, Long> {
+
+    Optional<CrlStateJpaEntity> findByIssuerId(Long issuerId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from CrlStateJpaEntity s where s.issuerId = :issuerId")
+    Optional<CrlStateJpaEntity> findByIssuerIdForUpdate(Long issuerId);
+}
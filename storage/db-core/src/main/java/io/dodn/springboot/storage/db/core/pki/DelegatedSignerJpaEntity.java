@@ -0,0 +1,59 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import io.dodn.springboot.core.enums.pki.DelegatedSignerPurpose;
+import io.dodn.springboot.core.enums.pki.KeyAlgorithmType;
+import io.dodn.springboot.storage.db.core.BaseEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "delegated_signer", indexes = {
+        @Index(name = "idx_delegated_signer_issuer_purpose_not_after", columnList = "issuer_id, purpose, not_after")
+})
+public class DelegatedSignerJpaEntity extends BaseEntity {
+
+    @Column(nullable = false)
+    private Long issuerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private DelegatedSignerPurpose purpose;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String serialNumberHex;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private KeyAlgorithmType keyAlgorithmType;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String encryptedPrivateKeyBase64;
+
+    @Column(nullable = false)
+    private Instant notAfter;
+
+    protected DelegatedSignerJpaEntity() {}
+
+    public DelegatedSignerJpaEntity(Long issuerId, DelegatedSignerPurpose purpose, String serialNumberHex,
+            KeyAlgorithmType keyAlgorithmType, String encryptedPrivateKeyBase64, Instant notAfter) {
+        this.issuerId = issuerId;
+        this.purpose = purpose;
+        this.serialNumberHex = serialNumberHex;
+        this.keyAlgorithmType = keyAlgorithmType;
+        this.encryptedPrivateKeyBase64 = encryptedPrivateKeyBase64;
+        this.notAfter = notAfter;
+    }
+
+    public Long getIssuerId() { return issuerId; }
+    public DelegatedSignerPurpose getPurpose() { return purpose; }
+    public String getSerialNumberHex() { return serialNumberHex; }
+    public KeyAlgorithmType getKeyAlgorithmType() { return keyAlgorithmType; }
+    public String getEncryptedPrivateKeyBase64() { return encryptedPrivateKeyBase64; }
+    public Instant getNotAfter() { return notAfter; }
+}
@@ -0,0 +1,14 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import io.dodn.springboot.core.enums.pki.DelegatedSignerPurpose;
+import io.dodn.springboot.core.enums.pki.KeyAlgorithmType;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface DelegatedSignerJpaRepository extends JpaRepository<DelegatedSignerJpaEntity, Long> {
+
+    List<DelegatedSignerJpaEntity> findByIssuerIdAndPurposeAndKeyAlgorithmTypeAndNotAfterAfterOrderByNotAfterDesc(
+            Long issuerId, DelegatedSignerPurpose purpose, KeyAlgorithmType keyAlgorithmType, Instant notAfter);
+}
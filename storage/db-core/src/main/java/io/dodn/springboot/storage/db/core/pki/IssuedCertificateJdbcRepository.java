@@ -0,0 +1,102 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * JDBC batch insert for {@code issued_certificate}. The IDENTITY id strategy stops Hibernate from batching inserts,
+ * so bulk issuance writes rows here instead, reading the generated ids back.
+ */
+@Repository
+public class IssuedCertificateJdbcRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = "insert into issued_certificate (serial_number_hex, subject_dn_cn, "
+            + "subject_dn_o, subject_dn_ou, subject_dn_c, subject_dn_st, subject_dn_l, issuer_id, certificate_der, "
+            + "key_algorithm_type, not_before, not_after, status, revocation_reason, revoked_at, "
+            + "cmp_transaction_id_hex, version, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IssuedCertificateJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Returns the generated ids in the order of {@code entities}. */
+    public List<Long> insertAll(List<IssuedCertificateJpaEntity> entities) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = new ArrayList<>(entities.size());
+        for (int from = 0; from < entities.size(); from += BATCH_SIZE) {
+            ids.addAll(insertBatch(entities.subList(from, Math.min(from + BATCH_SIZE, entities.size())), now));
+        }
+        return ids;
+    }
+
+    private List<Long> insertBatch(List<IssuedCertificateJpaEntity> batch, Timestamp now) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, batch.get(i), now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return batch.size();
+                    }
+                }, keyHolder);
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != batch.size()) {
+            throw new IllegalStateException("Expected " + batch.size() + " generated ids, got " + keys.size());
+        }
+        return keys.stream().map(key -> ((Number) key.values().iterator().next()).longValue()).toList();
+    }
+
+    private static void bind(PreparedStatement ps, IssuedCertificateJpaEntity e, Timestamp now) throws SQLException {
+        ps.setString(1, e.getSerialNumberHex());
+        ps.setString(2, e.getSubjectDnCn());
+        ps.setString(3, e.getSubjectDnO());
+        ps.setString(4, e.getSubjectDnOu());
+        ps.setString(5, e.getSubjectDnC());
+        ps.setString(6, e.getSubjectDnSt());
+        ps.setString(7, e.getSubjectDnL());
+        ps.setLong(8, e.getIssuerId());
+        ps.setBytes(9, e.getCertificateDer());
+        ps.setString(10, e.getKeyAlgorithmType().name());
+        setInstant(ps, 11, e.getNotBefore());
+        setInstant(ps, 12, e.getNotAfter());
+        ps.setString(13, e.getStatus().name());
+        ps.setString(14, e.getRevocationReason() != null ? e.getRevocationReason().name() : null);
+        setInstant(ps, 15, e.getRevokedAt());
+        ps.setString(16, e.getCmpTransactionIdHex());
+        ps.setTimestamp(17, now);
+        ps.setTimestamp(18, now);
+    }
+
+    /** Binds like Hibernate's default {@code Instant} mapping, which stores UTC. */
+    private static void setInstant(PreparedStatement ps, int index, Instant value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.from(value), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
+        }
+    }
+}
@@ -8,12 +8,19 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 import java.time.Instant;
 
 @Entity
-@Table(name = "issued_certificate")
+@Table(name = "issued_certificate", indexes = {
+        @Index(name = "idx_issued_certificate_issuer_status_revoked",
+                columnList = "issuer_id, status, revoked_at, serial_number_hex, revocation_reason, not_after"),
+        @Index(name = "idx_issued_certificate_status_not_after", columnList = "status, not_after, serial_number_hex"),
+        @Index(name = "idx_issued_certificate_cmp_transaction_id_hex", columnList = "cmp_transaction_id_hex")
+})
 public class IssuedCertificateJpaEntity extends BaseEntity {
 
     @Column(nullable = false, unique = true, length = 100)
@@ -40,6 +47,10 @@ public class IssuedCertificateJpaEntity extends BaseEntity {
     @Column(nullable = false)
     private Long issuerId;
 
+    @Column(columnDefinition = "BLOB")
+    private byte[] certificateDer;
+
+    /** Legacy PEM storage. Read only when {@code certificateDer} is absent, cleared when the row is rewritten. */
     @Column(columnDefinition = "TEXT")
     private String certificatePem;
 
@@ -67,11 +78,15 @@ public class IssuedCertificateJpaEntity extends BaseEntity {
     @Column(length = 64)
     private String cmpTransactionIdHex;
 
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     protected IssuedCertificateJpaEntity() {}
 
     public IssuedCertificateJpaEntity(String serialNumberHex, String subjectDnCn, String subjectDnO,
             String subjectDnOu, String subjectDnC, String subjectDnSt, String subjectDnL,
-            Long issuerId, String certificatePem, KeyAlgorithmType keyAlgorithmType,
+            Long issuerId, byte[] certificateDer, KeyAlgorithmType keyAlgorithmType,
             Instant notBefore, Instant notAfter, CertificateStatus status,
             RevocationReason revocationReason, Instant revokedAt, String cmpTransactionIdHex) {
         this.serialNumberHex = serialNumberHex;
@@ -82,7 +97,7 @@ public class IssuedCertificateJpaEntity extends BaseEntity {
         this.subjectDnSt = subjectDnSt;
         this.subjectDnL = subjectDnL;
         this.issuerId = issuerId;
-        this.certificatePem = certificatePem;
+        this.certificateDer = certificateDer;
         this.keyAlgorithmType = keyAlgorithmType;
         this.notBefore = notBefore;
         this.notAfter = notAfter;
@@ -100,8 +115,12 @@ public class IssuedCertificateJpaEntity extends BaseEntity {
     public String getSubjectDnSt() { return subjectDnSt; }
     public String getSubjectDnL() { return subjectDnL; }
     public Long getIssuerId() { return issuerId; }
+    public byte[] getCertificateDer() { return certificateDer; }
     public String getCertificatePem() { return certificatePem; }
-    public void setCertificatePem(String pem) { this.certificatePem = pem; }
+    public void setCertificateDer(byte[] certificateDer) {
+        this.certificateDer = certificateDer;
+        this.certificatePem = null;
+    }
     public KeyAlgorithmType getKeyAlgorithmType() { return keyAlgorithmType; }
     public Instant getNotBefore() { return notBefore; }
     public Instant getNotAfter() { return notAfter; }
@@ -112,4 +131,5 @@ public class IssuedCertificateJpaEntity extends BaseEntity {
     public Instant getRevokedAt() { return revokedAt; }
     public void setRevokedAt(Instant revokedAt) { this.revokedAt = revokedAt; }
     public String getCmpTransactionIdHex() { return cmpTransactionIdHex; }
+    public long getVersion() { return version; }
 }
@@ -1,16 +1,71 @@
 package io.dodn.springboot.storage.db.core.pki;
 
 import io.dodn.springboot.core.enums.pki.CertificateStatus;
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface IssuedCertificateJpaRepository extends JpaRepository<IssuedCertificateJpaEntity, Long> {
 
     Optional<IssuedCertificateJpaEntity> findBySerialNumberHex(String serialNumberHex);
 
-    List<IssuedCertificateJpaEntity> findByIssuerId(Long issuerId);
+    List<IssuedCertificateJpaEntity> findByCmpTransactionIdHexOrderByIdAsc(String cmpTransactionIdHex);
 
-    List<IssuedCertificateJpaEntity> findByIssuerIdAndStatus(Long issuerId, CertificateStatus status);
+    @Query("select c.serialNumberHex as serialNumberHex, c.status as status, c.revokedAt as revokedAt, "
+            + "c.revocationReason as revocationReason, c.notAfter as notAfter from IssuedCertificateJpaEntity c "
+            + "where c.serialNumberHex = :serialNumberHex")
+    Optional<CertificateStatusProjection> findStatusBySerialNumberHex(String serialNumberHex);
+
+    @Query("select c.serialNumberHex as serialNumberHex, c.status as status, c.revokedAt as revokedAt, "
+            + "c.revocationReason as revocationReason, c.notAfter as notAfter from IssuedCertificateJpaEntity c "
+            + "where c.serialNumberHex = :serialNumberHex and c.issuerId = :issuerId")
+    Optional<CertificateStatusProjection> findStatusBySerialNumberHexAndIssuerId(String serialNumberHex,
+            Long issuerId);
+
+    @Query("select c.serialNumberHex as serialNumberHex, c.notAfter as notAfter, c.status as status "
+            + "from IssuedCertificateJpaEntity c where c.status = :status and c.notAfter < :notAfterBefore")
+    List<CertificateExpiryProjection> findExpiring(CertificateStatus status, Instant notAfterBefore, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.serialNumberHex as serialNumberHex, c.revokedAt as revokedAt, "
+            + "c.revocationReason as revocationReason from IssuedCertificateJpaEntity c "
+            + "where c.issuerId = :issuerId and c.status = :status and c.revokedAt >= :revokedSince")
+    Stream<RevokedCertificateProjection> streamRevoked(Long issuerId, CertificateStatus status, Instant revokedSince);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select c.serialNumberHex as serialNumberHex, c.status as status, c.revokedAt as revokedAt, "
+            + "c.revocationReason as revocationReason, c.notAfter as notAfter from IssuedCertificateJpaEntity c "
+            + "where c.issuerId = :issuerId")
+    Stream<CertificateStatusProjection> streamStatuses(Long issuerId);
+
+    /** Matches nothing when the serial is unknown, belongs to another issuer or is already revoked. */
+    @Transactional
+    @Modifying
+    @Query("update IssuedCertificateJpaEntity c "
+            + "set c.status = io.dodn.springboot.core.enums.pki.CertificateStatus.REVOKED, "
+            + "c.revocationReason = :reason, c.revokedAt = :revokedAt, c.version = c.version + 1, "
+            + "c.updatedAt = :updatedAt where c.serialNumberHex = :serialNumberHex and c.issuerId = :issuerId "
+            + "and c.status <> io.dodn.springboot.core.enums.pki.CertificateStatus.REVOKED")
+    int revoke(String serialNumberHex, Long issuerId, RevocationReason reason, Instant revokedAt,
+            LocalDateTime updatedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update IssuedCertificateJpaEntity c set c.status = :status, c.revocationReason = :revocationReason, "
+            + "c.revokedAt = :revokedAt, c.certificateDer = :certificateDer, c.certificatePem = null, "
+            + "c.version = c.version + 1, c.updatedAt = :updatedAt where c.id = :id and c.version = :version")
+    int updateState(Long id, long version, CertificateStatus status, RevocationReason revocationReason,
+            Instant revokedAt, byte[] certificateDer, LocalDateTime updatedAt);
 }
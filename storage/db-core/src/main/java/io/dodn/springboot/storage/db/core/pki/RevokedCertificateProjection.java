@@ -0,0 +1,14 @@
+package io.dodn.springboot.storage.db.core.pki;
+
+import io.dodn.springboot.core.enums.pki.RevocationReason;
+
+import java.time.Instant;
+
+public interface RevokedCertificateProjection {
+
+    String getSerialNumberHex();
+
+    Instant getRevokedAt();
+
+    RevocationReason getRevocationReason();
+}
@@ -0,0 +1,76 @@
+-- Schema as first deployed, when Hibernate ddl generation still owned it. Existing databases are baselined at
+-- this version (spring.flyway.baseline-version) and only run what follows.
+
+create table certificate_authority (
+    id                           bigint       not null auto_increment,
+    created_at                   datetime(6),
+    updated_at                   datetime(6),
+    alias                        varchar(100) not null,
+    subject_dn_cn                varchar(500) not null,
+    subject_dn_o                 varchar(200),
+    subject_dn_ou                varchar(200),
+    subject_dn_c                 varchar(10),
+    subject_dn_st                varchar(200),
+    subject_dn_l                 varchar(200),
+    type                         enum ('ROOT','INTERMEDIATE','END_ENTITY_ISSUER') not null,
+    key_algorithm_type           enum ('RSA_2048','RSA_4096','EC_P256','EC_P384') not null,
+    parent_id                    bigint,
+    encrypted_private_key_base64 text         not null,
+    certificate_pem              text,
+    serial_number_hex            varchar(100) not null,
+    not_before                   datetime(6)  not null,
+    not_after                    datetime(6)  not null,
+    status                       enum ('ACTIVE','REVOKED','EXPIRED') not null,
+    crl_distribution_point_url   varchar(500),
+    chain_depth_path_len         integer      not null,
+    primary key (id),
+    constraint uk_certificate_authority_alias unique (alias)
+) engine = InnoDB;
+
+create table issued_certificate (
+    id                     bigint       not null auto_increment,
+    created_at             datetime(6),
+    updated_at             datetime(6),
+    serial_number_hex      varchar(100) not null,
+    subject_dn_cn          varchar(500) not null,
+    subject_dn_o           varchar(200),
+    subject_dn_ou          varchar(200),
+    subject_dn_c           varchar(10),
+    subject_dn_st          varchar(200),
+    subject_dn_l           varchar(200),
+    issuer_id              bigint       not null,
+    certificate_pem        text,
+    key_algorithm_type     enum ('RSA_2048','RSA_4096','EC_P256','EC_P384') not null,
+    not_before             datetime(6)  not null,
+    not_after              datetime(6)  not null,
+    status                 enum ('VALID','REVOKED','EXPIRED','PENDING') not null,
+    revocation_reason      enum ('UNSPECIFIED','KEY_COMPROMISE','CA_COMPROMISE','AFFILIATION_CHANGED','SUPERSEDED',
+                                 'CESSATION_OF_OPERATION','CERTIFICATE_HOLD','PRIVILEGE_WITHDRAWN'),
+    revoked_at             datetime(6),
+    cmp_transaction_id_hex varchar(64),
+    primary key (id),
+    constraint uk_issued_certificate_serial_number_hex unique (serial_number_hex)
+) engine = InnoDB;
+
+create table cmp_transaction (
+    id                  bigint        not null auto_increment,
+    created_at          datetime(6),
+    updated_at          datetime(6),
+    transaction_id_hex  varchar(64)   not null,
+    sender              varchar(500)  not null,
+    sender_nonce_hex    varchar(64)   not null,
+    recipient_nonce_hex varchar(64),
+    request_type        enum ('IR','IP','CR','CP','P10CR','RR','RP','CERT_CONF','PKI_CONF','ERROR') not null,
+    status              enum ('PENDING','WAITING_CONFIRM','COMPLETED','FAILED') not null,
+    error_info          varchar(2000),
+    primary key (id),
+    constraint uk_cmp_transaction_transaction_id_hex unique (transaction_id_hex)
+) engine = InnoDB;
+
+create table example_entity (
+    id             bigint not null auto_increment,
+    created_at     datetime(6),
+    updated_at     datetime(6),
+    example_column varchar(255),
+    primary key (id)
+) engine = InnoDB;
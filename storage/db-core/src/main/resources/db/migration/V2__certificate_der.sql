@@ -0,0 +1,7 @@
+-- DER certificate storage next to the legacy PEM column; rows switch to DER the next time they are saved.
+
+alter table certificate_authority
+    add column certificate_der blob after encrypted_private_key_base64;
+
+alter table issued_certificate
+    add column certificate_der blob after issuer_id;
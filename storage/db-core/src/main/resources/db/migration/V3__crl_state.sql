@@ -0,0 +1,14 @@
+-- Persisted per-CA CRL numbering and the base CRL that delta CRLs refer to.
+
+create table crl_state (
+    id               bigint      not null auto_increment,
+    created_at       datetime(6),
+    updated_at       datetime(6),
+    issuer_id        bigint      not null,
+    last_crl_number  bigint      not null,
+    base_crl_number  bigint,
+    base_this_update datetime(6),
+    base_next_update datetime(6),
+    primary key (id),
+    constraint uk_crl_state_issuer_id unique (issuer_id)
+) engine = InnoDB;
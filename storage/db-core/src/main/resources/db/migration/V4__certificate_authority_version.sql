@@ -0,0 +1,4 @@
+-- Row version behind CA cache invalidation across nodes.
+
+alter table certificate_authority
+    add column version bigint not null default 0;
@@ -0,0 +1,7 @@
+-- Row versions behind the optimistic, read-free updates of issued certificates and CMP transactions.
+
+alter table issued_certificate
+    add column version bigint not null default 0;
+
+alter table cmp_transaction
+    add column version bigint not null default 0;
@@ -0,0 +1,14 @@
+-- Covering indexes for the issued_certificate access paths; every column a query reads is in its index, so none
+-- of them touches the clustered rows and their certificate bodies.
+
+-- CRL full/delta (issuer, status, revoked_at range) and OCSP status preload (issuer).
+create index idx_issued_certificate_issuer_status_revoked
+    on issued_certificate (issuer_id, status, revoked_at, serial_number_hex, revocation_reason);
+
+-- Expiry scan: status = VALID and not_after < now.
+create index idx_issued_certificate_status_not_after
+    on issued_certificate (status, not_after, serial_number_hex);
+
+-- Certificates issued under a CMP transaction.
+create index idx_issued_certificate_cmp_transaction_id_hex
+    on issued_certificate (cmp_transaction_id_hex);
@@ -0,0 +1,12 @@
+-- The signed base CRL of each CA, so every node serves the bytes of the one node that signed it.
+
+create table crl_base (
+    id         bigint   not null auto_increment,
+    created_at datetime(6),
+    updated_at datetime(6),
+    issuer_id  bigint   not null,
+    crl_number bigint   not null,
+    crl_der    longblob not null,
+    primary key (id),
+    constraint uk_crl_base_issuer_id unique (issuer_id)
+) engine = InnoDB;
@@ -0,0 +1,6 @@
+-- The OCSP status preload now also reads not_after, so it is appended to keep that query covered by the index.
+
+drop index idx_issued_certificate_issuer_status_revoked on issued_certificate;
+
+create index idx_issued_certificate_issuer_status_revoked
+    on issued_certificate (issuer_id, status, revoked_at, serial_number_hex, revocation_reason, not_after);
@@ -0,0 +1,19 @@
+-- Keys of the OCSP responder and CMP protection certificates a CA delegates to, so every node signs with the
+-- same certificate instead of issuing its own on start. The certificate itself is a row of issued_certificate.
+
+create table delegated_signer (
+    id                           bigint       not null auto_increment,
+    created_at                   datetime(6),
+    updated_at                   datetime(6),
+    issuer_id                    bigint       not null,
+    purpose                      enum ('OCSP','CMP') not null,
+    serial_number_hex            varchar(100) not null,
+    key_algorithm_type           enum ('RSA_2048','RSA_4096','EC_P256','EC_P384') not null,
+    encrypted_private_key_base64 text         not null,
+    not_after                    datetime(6)  not null,
+    primary key (id),
+    constraint uk_delegated_signer_serial_number_hex unique (serial_number_hex)
+) engine = InnoDB;
+
+create index idx_delegated_signer_issuer_purpose_not_after
+    on delegated_signer (issuer_id, purpose, not_after);